@@ -3,22 +3,32 @@ import com.sun.net.httpserver.HttpExchange;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class BaseHttpHandler {
+    protected static final int DEFAULT_PAGE_SIZE = 100;
+    // больший limit урезается: размер ответа не задаётся клиентом без ограничений
+    protected static final int MAX_PAGE_SIZE = 1000;
+    protected static final String NEXT_PAGE_HEADER = "X-Next-After";
+
     protected final Gson gson;
 
     public BaseHttpHandler(Gson gson) {
         this.gson = gson;
     }
 
+    // тело пишется потоком (chunked), без промежуточной строки и byte[] на весь ответ
     protected void sendJson(HttpExchange h, Object body, int code) throws IOException {
-        byte[] resp = gson.toJson(body).getBytes(StandardCharsets.UTF_8);
         h.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        h.sendResponseHeaders(code, resp.length);
-        h.getResponseBody().write(resp);
+        h.sendResponseHeaders(code, 0);
+        try (Writer out = new OutputStreamWriter(h.getResponseBody(), StandardCharsets.UTF_8)) {
+            gson.toJson(body, out);
+        }
         h.close();
     }
 
@@ -34,6 +44,60 @@ public class BaseHttpHandler {
         sendJson(h, body, 200);
     }
 
+    /**
+     * Страница списка. Если страница полная, в заголовке X-Next-After — курсор для следующего запроса.
+     */
+    protected void sendPage(HttpExchange h, List<?> page, int limit, String nextAfter) throws IOException {
+        if (!page.isEmpty() && page.size() == limit) {
+            h.getResponseHeaders().add(NEXT_PAGE_HEADER, nextAfter);
+        }
+        sendOk(h, page);
+    }
+
+    protected void sendIdPage(HttpExchange h, List<? extends Task> page, int limit) throws IOException {
+        sendPage(h, page, limit, page.isEmpty() ? "" : String.valueOf(page.get(page.size() - 1).getId()));
+    }
+
+    protected boolean isPageRequest(Map<String, String> params) {
+        return params.containsKey("limit") || params.containsKey("after");
+    }
+
+    /**
+     * limit страницы: по умолчанию DEFAULT_PAGE_SIZE, не больше MAX_PAGE_SIZE.
+     * Нечисловой или неположительный limit — NumberFormatException, обработчики отвечают 400.
+     */
+    protected int parseLimit(Map<String, String> params) {
+        return parseLimit(params, DEFAULT_PAGE_SIZE);
+    }
+
+    protected int parseLimit(Map<String, String> params, int defaultLimit) {
+        String limit = params.get("limit");
+        if (limit == null) return defaultLimit;
+        int value = parseNumber("limit", limit);
+        if (value <= 0) {
+            throw new NumberFormatException("limit должен быть положительным: " + limit);
+        }
+        return Math.min(value, MAX_PAGE_SIZE);
+    }
+
+    protected int parseAfter(Map<String, String> params) {
+        String after = params.get("after");
+        if (after == null || after.isEmpty()) return 0;
+        int value = parseNumber("after", after);
+        if (value < 0) {
+            throw new NumberFormatException("after не может быть отрицательным: " + after);
+        }
+        return value;
+    }
+
+    private static int parseNumber(String name, String value) {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new NumberFormatException("Неправильный " + name + ": " + value);
+        }
+    }
+
     protected void sendCreated(HttpExchange h) throws IOException {
         sendText(h, "{\"status\":\"created\"}", 201);
     }
@@ -46,6 +110,14 @@ public class BaseHttpHandler {
         sendText(h, "{\"error\":\"" + escape(message) + "\"}", 406);
     }
 
+    protected void sendBadRequest(HttpExchange h, String message) throws IOException {
+        sendText(h, "{\"error\":\"" + escape(message) + "\"}", 400);
+    }
+
+    protected void sendConflict(HttpExchange h, String message) throws IOException {
+        sendText(h, "{\"error\":\"" + escape(message) + "\"}", 409);
+    }
+
     protected void sendError(HttpExchange h, String message) throws IOException {
         sendText(h, "{\"error\":\"" + escape(message) + "\"}", 500);
     }
@@ -0,0 +1,112 @@
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * POST /batch — пакет изменений одним запросом. Тело — массив операций:
+ * {"op":"ADD"|"UPDATE","type":"TASK"|"EPIC"|"SUBTASK","task":{...}} или {"op":"DELETE","id":N}.
+ * В ответ — id сущности каждой операции по порядку (для добавлений — назначенные менеджером).
+ * <p>
+ * Неправильное тело — 400, ссылка на несуществующий эпик — 404, пересечение по времени — 406,
+ * прочие отказы проверки пакета (занятый id, повтор задачи) — 409.
+ */
+public class BatchHandler extends BaseHttpHandler implements HttpHandler {
+    private final TaskManager manager;
+
+    public BatchHandler(TaskManager manager, Gson gson) {
+        super(gson);
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange h) throws IOException {
+        try {
+            if (!"POST".equals(h.getRequestMethod())) {
+                sendError(h, "Неподдерживаемый метод: " + h.getRequestMethod());
+                return;
+            }
+            TaskBatch batch;
+            try {
+                batch = parseBatch(readBody(h));
+            } catch (JsonParseException | IllegalArgumentException | IllegalStateException e) {
+                sendBadRequest(h, "Неправильный пакет: " + e.getMessage());
+                return;
+            }
+            try {
+                manager.applyBatch(batch);
+            } catch (IllegalStateException overlap) {
+                sendHasOverlaps(h, overlap.getMessage());
+                return;
+            } catch (NotFoundException missing) {
+                sendNotFound(h, missing.getMessage());
+                return;
+            } catch (IllegalArgumentException rejected) {
+                sendConflict(h, rejected.getMessage());
+                return;
+            }
+            List<Integer> ids = new ArrayList<>(batch.size());
+            for (TaskBatch.Operation op : batch.getOperations()) {
+                ids.add(op.task() == null ? op.id() : op.task().getId());
+            }
+            sendJson(h, ids, 201);
+        } catch (Exception ex) {
+            sendError(h, "Внутренняя ошибка: " + ex.getMessage());
+        }
+    }
+
+    // ошибки формата — IllegalArgumentException с указанием операции
+    private TaskBatch parseBatch(String body) {
+        JsonElement root = JsonParser.parseString(body);
+        if (!root.isJsonArray()) {
+            throw new IllegalArgumentException("ожидается массив операций");
+        }
+        TaskBatch batch = new TaskBatch();
+        int index = 0;
+        for (JsonElement element : root.getAsJsonArray()) {
+            if (!element.isJsonObject()) {
+                throw new IllegalArgumentException("операция №" + index + " не объект");
+            }
+            JsonObject op = element.getAsJsonObject();
+            TaskBatch.Action action = TaskBatch.Action.valueOf(requiredString(op, "op", index));
+            if (action == TaskBatch.Action.DELETE) {
+                JsonElement id = op.get("id");
+                if (id == null || !id.isJsonPrimitive() || !id.getAsJsonPrimitive().isNumber()) {
+                    throw new IllegalArgumentException("операция №" + index + ": нужен числовой id");
+                }
+                batch.delete(id.getAsInt());
+                index++;
+                continue;
+            }
+            TaskType type = op.has("type") ? TaskType.valueOf(requiredString(op, "type", index)) : TaskType.TASK;
+            JsonElement fields = op.get("task");
+            if (fields == null || !fields.isJsonObject()) {
+                throw new IllegalArgumentException("операция №" + index + ": нет объекта task");
+            }
+            Task task = gson.fromJson(fields, switch (type) {
+                case EPIC -> Epic.class;
+                case SUBTASK -> Subtask.class;
+                case TASK -> Task.class;
+            });
+            if (action == TaskBatch.Action.ADD) batch.add(task);
+            else batch.update(task);
+            index++;
+        }
+        return batch;
+    }
+
+    private static String requiredString(JsonObject op, String field, int index) {
+        JsonElement value = op.get(field);
+        if (value == null || !value.isJsonPrimitive() || !value.getAsJsonPrimitive().isString()) {
+            throw new IllegalArgumentException("операция №" + index + ": нет строкового поля " + field);
+        }
+        return value.getAsString();
+    }
+}
@@ -0,0 +1,168 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Двоичный снапшот: заголовок фиксированной длины и записи вида
+ * [тип:1][статус:1][id:4][эпик:4][старт, минуты от эпохи:8][длительность, минуты:8][имя][описание],
+ * строки — длина (-1 для null) и байты UTF-8. Время хранится с точностью до минуты.
+ */
+public final class BinarySnapshot {
+
+    public static final int MAGIC = 0x4B414E42; // "KANB"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final long UNSET = Task.UNSET;
+
+    private static final byte TYPE_TASK = 1;
+    private static final byte TYPE_EPIC = 2;
+    private static final byte TYPE_SUBTASK = 3;
+
+    public record Contents(long journalSeq, List<Task> tasks, List<Epic> epics, List<Subtask> subtasks) {
+    }
+
+    private BinarySnapshot() {
+    }
+
+    public static boolean isBinary(File file) {
+        if (!file.isFile() || file.length() < HEADER_SIZE) return false;
+        try (InputStream in = Files.newInputStream(file.toPath())) {
+            byte[] head = in.readNBytes(4);
+            return head.length == 4 && ByteBuffer.wrap(head).getInt() == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    public static void write(Path target, List<Task> view, long journalSeq) throws IOException {
+        try (OutputStream os = Files.newOutputStream(target);
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeShort(VERSION);
+            out.writeShort(0);
+            out.writeLong(journalSeq);
+            out.writeInt(view.size());
+            out.writeInt(0);
+
+            for (Task t : view) {
+                byte type;
+                int epicId = 0;
+                if (t instanceof Epic) {
+                    type = TYPE_EPIC;
+                } else if (t instanceof Subtask s) {
+                    type = TYPE_SUBTASK;
+                    epicId = s.getEpicId();
+                } else {
+                    type = TYPE_TASK;
+                }
+                out.writeByte(type);
+                out.writeByte(t.getStatus().ordinal());
+                out.writeInt(t.getId());
+                out.writeInt(epicId);
+                if (type == TYPE_EPIC) {
+                    // у эпика время расчётное — не пишем
+                    out.writeLong(UNSET);
+                    out.writeLong(UNSET);
+                } else {
+                    // формат совпадает с хранением в задаче: минуты и тот же признак «не задано»
+                    out.writeLong(t.getStartMinute());
+                    out.writeLong(t.getDurationMinutes());
+                }
+                writeString(out, t.getName());
+                writeString(out, t.getDescription());
+            }
+        }
+    }
+
+    public static Contents read(Path source) throws IOException {
+        try (FileChannel ch = FileChannel.open(source, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Не двоичный снапшот: " + source);
+            }
+            short version = buf.getShort();
+            if (version != VERSION) {
+                throw new IOException("Неподдерживаемая версия снапшота: " + version);
+            }
+            buf.getShort();
+            long journalSeq = buf.getLong();
+            int count = buf.getInt();
+            buf.getInt();
+
+            List<Task> tasks = new ArrayList<>();
+            List<Epic> epics = new ArrayList<>();
+            List<Subtask> subtasks = new ArrayList<>();
+            TaskStatus[] statuses = TaskStatus.values();
+            byte[] scratch = new byte[256];
+
+            for (int i = 0; i < count; i++) {
+                byte type = buf.get();
+                TaskStatus status = statuses[buf.get()];
+                int id = buf.getInt();
+                int epicId = buf.getInt();
+                long start = buf.getLong();
+                long duration = buf.getLong();
+                int nameLen = buf.getInt();
+                if (nameLen > scratch.length) scratch = new byte[nameLen];
+                String name = readString(buf, nameLen, scratch);
+                int descLen = buf.getInt();
+                if (descLen > scratch.length) scratch = new byte[descLen];
+                String description = readString(buf, descLen, scratch);
+
+                Task t = switch (type) {
+                    case TYPE_EPIC -> {
+                        Epic e = new Epic(name, description);
+                        epics.add(e);
+                        yield e;
+                    }
+                    case TYPE_SUBTASK -> {
+                        Subtask s = new Subtask(name, description, epicId);
+                        subtasks.add(s);
+                        yield s;
+                    }
+                    case TYPE_TASK -> {
+                        Task task = new Task(name, description);
+                        tasks.add(task);
+                        yield task;
+                    }
+                    default -> throw new IOException("Неизвестный тип записи: " + type);
+                };
+                t.setId(id);
+                t.setStatus(status);
+                if (type != TYPE_EPIC) {
+                    t.setStartMinute(start);
+                    t.setDurationMinutes(duration);
+                }
+            }
+            return new Contents(journalSeq, tasks, epics, subtasks);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        if (s == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buf, int len, byte[] scratch) {
+        if (len < 0) return null;
+        buf.get(scratch, 0, len);
+        return new String(scratch, 0, len, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,118 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinarySnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void binaryRoundTripKeepsAllFields() {
+        File f = tempDir.resolve("store.bin").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, null, SnapshotFormat.BINARY);
+
+        Task t = new Task("Учёба", "Спринт 8");
+        t.setStartTime(LocalDateTime.of(2025, 2, 10, 12, 30));
+        t.setDuration(Duration.ofMinutes(90));
+        t.setStatus(TaskStatus.IN_PROGRESS);
+        m.addTask(t);
+        Epic e = new Epic("Переезд", null);
+        m.addEpic(e);
+        Subtask s = new Subtask("Коробки", "Кухня", e.getId());
+        s.setStartTime(LocalDateTime.of(2025, 2, 10, 9, 0));
+        s.setDuration(Duration.ofMinutes(30));
+        s.setStatus(TaskStatus.DONE);
+        m.addSubtask(s);
+
+        assertTrue(BinarySnapshot.isBinary(f));
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f);
+        assertEquals(SnapshotFormat.BINARY, copy.getSnapshotFormat());
+
+        Task t2 = copy.getAllTasks().get(0);
+        assertEquals("Учёба", t2.getName());
+        assertEquals(TaskStatus.IN_PROGRESS, t2.getStatus());
+        assertEquals(t.getStartTime(), t2.getStartTime());
+        assertEquals(t.getDuration(), t2.getDuration());
+
+        Epic e2 = copy.getAllEpics().get(0);
+        assertNull(e2.getDescription(), "null-строки должны сохраняться как null");
+        assertEquals(TaskStatus.DONE, e2.getStatus());
+        assertEquals(s.getStartTime(), e2.getStartTime());
+
+        Subtask s2 = copy.getAllSubtasks().get(0);
+        assertEquals(e.getId(), s2.getEpicId());
+        assertEquals(s.getEndTime(), s2.getEndTime());
+    }
+
+    @Test
+    void journaledBinaryStoreReplaysJournal() {
+        File f = tempDir.resolve("journal.bin").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, Durability.WRITE, SnapshotFormat.BINARY);
+        Task a = new Task("A", "d");
+        m.addTask(a);
+        m.addTask(new Task("B", "d"));
+        a.setStatus(TaskStatus.DONE);
+        m.updateTask(a);
+        m.close();
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f, Durability.WRITE);
+        assertEquals(2, copy.getAllTasks().size());
+        assertEquals(TaskStatus.DONE, copy.getTaskById(a.getId()).getStatus());
+        assertTrue(BinarySnapshot.isBinary(f));
+        copy.close();
+    }
+
+    @Test
+    void csvImportAndExport() throws Exception {
+        // CSV остаётся форматом импорта/экспорта: CSV читается в двоичное хранилище и выгружается обратно
+        File csv = tempDir.resolve("import.csv").toFile();
+        Files.writeString(csv.toPath(), "id,type,name,status,description,epic,start,durationMinutes\n" +
+                "1,TASK,Old,NEW,desc,,2025-01-01T10:00,15\n" +
+                "2,EPIC,Epic,NEW,desc,,,\n" +
+                "3,SUBTASK,Sub,DONE,desc,2,,\n");
+
+        FileBackedTaskManager m = FileBackedTaskManager.loadFromFile(csv, null, SnapshotFormat.BINARY);
+        assertTrue(BinarySnapshot.isBinary(csv), "После загрузки снапшот пишется в двоичном формате");
+
+        File export = tempDir.resolve("export.csv").toFile();
+        m.exportCsv(export);
+        List<String> lines = Files.readAllLines(export.toPath());
+        assertEquals(4, lines.size());
+        assertTrue(lines.contains("1,TASK,Old,NEW,desc,,2025-01-01T10:00,15"));
+        FileBackedTaskManager reimported = FileBackedTaskManager.loadFromFile(export);
+        assertEquals(1, reimported.getAllTasks().size());
+        assertEquals(1, reimported.getAllEpics().size());
+        assertEquals(1, reimported.getAllSubtasks().size());
+    }
+
+    @Test
+    void readsLargeSnapshot() throws Exception {
+        Path p = tempDir.resolve("large.bin");
+        List<Task> view = new ArrayList<>();
+        for (int i = 1; i <= 100_000; i++) {
+            Task t = new Task("Задача " + i, "Описание");
+            t.setId(i);
+            t.setStartTime(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(i * 10L));
+            t.setDuration(Duration.ofMinutes(5));
+            view.add(t);
+        }
+        BinarySnapshot.write(p, view, 42);
+
+        BinarySnapshot.Contents contents = BinarySnapshot.read(p);
+        assertEquals(42, contents.journalSeq());
+        assertEquals(100_000, contents.tasks().size());
+        Task last = contents.tasks().get(99_999);
+        assertEquals(100_000, last.getId());
+        assertEquals(view.get(99_999).getStartTime(), last.getStartTime());
+    }
+}
@@ -0,0 +1,174 @@
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkRestoreTest {
+
+    private InMemoryTaskManager manager;
+
+    @BeforeEach
+    void setup() {
+        manager = new InMemoryTaskManager();
+    }
+
+    @Test
+    void restoreBuildsIndexesAndEpicAggregates() {
+        Task t = task(1, "T", LocalDateTime.of(2025, 1, 1, 12, 0), 30);
+        Epic e = new Epic("E", "d");
+        e.setId(2);
+        Subtask s1 = subtask(3, 2, LocalDateTime.of(2025, 1, 1, 9, 0), 60);
+        s1.setStatus(TaskStatus.DONE);
+        Subtask s2 = subtask(4, 2, LocalDateTime.of(2025, 1, 1, 10, 0), 60);
+        s2.setStatus(TaskStatus.DONE);
+
+        manager.restore(List.of(t), List.of(e), List.of(s1, s2), true);
+
+        List<Task> p = manager.getPrioritizedTasks();
+        assertEquals(List.of(s1, s2, t), p, "Индекс приоритетов строится по времени старта");
+        Epic got = manager.getEpicById(2);
+        assertEquals(TaskStatus.DONE, got.getStatus());
+        assertEquals(List.of(3, 4), got.getSubtaskIds());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 9, 0), got.getStartTime().orElseThrow());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 0), got.getEndTime().orElseThrow());
+
+        Task next = new Task("N", "d");
+        manager.addTask(next);
+        assertEquals(5, next.getId(), "Счётчик id продолжается после восстановления");
+    }
+
+    @Test
+    void restoreValidatesOverlapsInOneSweep() {
+        Task a = task(1, "A", LocalDateTime.of(2025, 1, 1, 10, 0), 120);
+        Task b = task(2, "B", LocalDateTime.of(2025, 1, 1, 11, 0), 30);
+
+        assertThrows(IllegalStateException.class, () -> manager.restore(List.of(a, b), List.of(), List.of(), true));
+        assertTrue(manager.getAllTasks().isEmpty(), "При ошибке проверки ничего не вставляется");
+
+        Task touching = task(3, "C", LocalDateTime.of(2025, 1, 1, 12, 0), 30);
+        Task zero = task(4, "Z", LocalDateTime.of(2025, 1, 1, 10, 0), 0);
+        assertDoesNotThrow(() -> manager.restore(List.of(a, touching, zero), List.of(), List.of(), true));
+    }
+
+    @Test
+    void restoreRejectsBrokenReferences() {
+        Subtask orphan = subtask(5, 99, null, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.restore(List.of(), List.of(), List.of(orphan), false));
+
+        Task a = task(1, "A", null, 0);
+        Task dup = task(1, "B", null, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.restore(List.of(a, dup), List.of(), List.of(), false));
+    }
+
+    @Test
+    void rejectedRestoreLeavesManagerUntouched() {
+        Task t = task(1, "T", LocalDateTime.of(2025, 1, 1, 9, 0), 30);
+        Epic e = new Epic("E", "d");
+        e.setId(2);
+        Subtask ok = subtask(3, 2, LocalDateTime.of(2025, 1, 1, 10, 0), 30);
+        Subtask orphan = subtask(4, 99, null, 0);
+
+        assertThrows(NotFoundException.class,
+                () -> manager.restore(List.of(t), List.of(e), List.of(ok, orphan), true));
+        assertTrue(manager.getAllTasks().isEmpty());
+        assertTrue(manager.getAllEpics().isEmpty());
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+        assertTrue(manager.search("T", 10).isEmpty());
+
+        Subtask toTask = subtask(4, 1, null, 0);
+        assertThrows(NotFoundException.class,
+                () -> manager.restore(List.of(t), List.of(e), List.of(ok, toTask), true), "Ссылка не на эпик");
+        assertTrue(manager.getAllTasks().isEmpty());
+
+        manager.restore(List.of(t), List.of(e), List.of(ok), true);
+        Task clash = task(2, "C", null, 0);
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.restore(List.of(task(10, "N", null, 0), clash), List.of(), List.of(), false),
+                "Id занят уже загруженным эпиком");
+        assertEquals(List.of(t), manager.getAllTasks());
+    }
+
+    @Test
+    void newIdsDoNotCollideWithGivenOnes() {
+        Task fresh = new Task("Без id", "d");
+        Task given = task(1, "С id", null, 0);
+
+        manager.restore(List.of(fresh, given), List.of(), List.of(), false);
+
+        assertEquals(2, fresh.getId());
+        assertEquals(List.of(given, fresh), manager.getAllTasks());
+    }
+
+    @Test
+    void bulkBuiltPriorityIndexKeepsOrderAndUpdates() {
+        java.util.Random rnd = new java.util.Random(3);
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 1_000; i++) {
+            // только начало, без длительности: пересечений нет, зато есть равные минуты
+            Task t = new Task("T" + i, "d");
+            t.setId(i);
+            if (rnd.nextInt(4) > 0) t.setStartTime(base.plusMinutes(rnd.nextInt(200)));
+            tasks.add(t);
+        }
+        manager.restore(tasks, List.of(), List.of(), true);
+
+        List<Task> expected = tasks.stream()
+                .filter(t -> t.getStartMinute() != Task.UNSET)
+                .sorted(java.util.Comparator.comparingLong(Task::getStartMinute).thenComparingInt(Task::getId))
+                .toList();
+        assertEquals(expected, manager.getPrioritizedTasks());
+
+        Task moved = new Task(tasks.get(0));
+        moved.setStartTime(base.minusMinutes(1));
+        manager.updateTask(moved);
+        assertEquals(moved, manager.getPrioritizedTasks().get(0), "Ключи индекса приоритетов сохранены");
+        assertEquals(expected.size() + (tasks.get(0).getStartMinute() == Task.UNSET ? 1 : 0),
+                manager.getPrioritizedTasks().size(), "Прежний ключ задачи удалён");
+    }
+
+    @Test
+    void restoreOfLargeEpicIsLinear() {
+        // 50 000 подзадач одного эпика: поштучная вставка пересчитывала бы эпик на каждой подзадаче
+        Epic e = new Epic("E", "d");
+        e.setId(1);
+        List<Subtask> subtasks = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 50_000; i++) {
+            subtasks.add(subtask(i + 2, 1, base.plusMinutes(i * 10L), 10));
+        }
+
+        manager.restore(List.of(), List.of(e), subtasks, true);
+
+        assertEquals(50_000, manager.getPrioritizedTasks().size());
+        assertEquals(Duration.ofMinutes(500_000), manager.getEpicById(1).getDuration().orElseThrow());
+    }
+
+    private static Task task(int id, String name, LocalDateTime start, long minutes) {
+        Task t = new Task(name, "d");
+        t.setId(id);
+        if (start != null) {
+            t.setStartTime(start);
+            t.setDuration(Duration.ofMinutes(minutes));
+        }
+        return t;
+    }
+
+    private static Subtask subtask(int id, int epicId, LocalDateTime start, long minutes) {
+        Subtask s = new Subtask("S" + id, "d", epicId);
+        s.setId(id);
+        if (start != null) {
+            s.setStartTime(start);
+            s.setDuration(Duration.ofMinutes(minutes));
+        }
+        return s;
+    }
+}
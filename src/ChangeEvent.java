@@ -0,0 +1,13 @@
+/**
+ * Событие потока изменений. before — состояние до изменения (null для CREATED), after — после
+ * (null для DELETED); оба — копии, их можно хранить и менять.
+ * <p>
+ * Если задачу поменяли на месте и передали в update тот же объект, менеджер прежнего состояния
+ * уже не знает: before совпадёт с after.
+ */
+public record ChangeEvent(long sequence, Kind kind, TaskType type, int id, Task before, Task after) {
+
+    public enum Kind {
+        CREATED, UPDATED, DELETED
+    }
+}
@@ -0,0 +1,277 @@
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Поток изменений менеджера: кольцевой буфер фиксированного размера, у каждого подписчика свой
+ * курсор. Буфер выделяется один раз, подписчики читают одни и те же события независимо.
+ * <p>
+ * Отставший подписчик обрабатывается по своей политике: DROP_OLDEST пропускает затёртые события
+ * (их число — getDropped()), BLOCK задерживает пишущего, пока подписчик не освободит место.
+ * <p>
+ * Менеджер публикует события под своей блокировкой, поэтому publish никогда не ждёт: событие
+ * получает номер и, если места для подписчиков BLOCK нет, встаёт в очередь ожидающих. Ждёт пишущий
+ * поток уже после того, как отпустил блокировку: менеджер с собственной блокировкой оборачивает
+ * изменение в afterUnlock, менеджер без неё ждёт прямо в publish. Подписчик BLOCK поэтому может
+ * читать менеджер, обрабатывая события.
+ */
+public class ChangeFeed {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    public enum Overflow {
+        DROP_OLDEST, BLOCK
+    }
+
+    private final ChangeEvent[] ring;
+    private final int mask;
+    // номер последнего события в кольце и последнего выданного номера; первое событие получает номер 1
+    private long published;
+    private long assigned;
+    // события, которым нет места в кольце из-за отставших подписчиков BLOCK, по порядку номеров
+    private final ArrayDeque<ChangeEvent> pending = new ArrayDeque<>();
+    // глубина afterUnlock в текущем потоке: внутри него publish не ждёт
+    private final ThreadLocal<int[]> unlockDepth = ThreadLocal.withInitial(() -> new int[1]);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition appended = lock.newCondition();
+    private final Condition consumed = lock.newCondition();
+    private final List<Subscription> subscribers = new CopyOnWriteArrayList<>();
+
+    public ChangeFeed() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ChangeFeed(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Размер буфера должен быть положительным: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.ring = new ChangeEvent[size];
+        this.mask = size - 1;
+    }
+
+    public int capacity() {
+        return ring.length;
+    }
+
+    /**
+     * Без подписчиков менеджер не копирует сущности и не публикует событий.
+     */
+    public boolean hasSubscribers() {
+        return !subscribers.isEmpty();
+    }
+
+    public long getSequence() {
+        lock.lock();
+        try {
+            return published;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Подписка получает события, опубликованные после её создания.
+     */
+    public Subscription subscribe(Overflow overflow) {
+        lock.lock();
+        try {
+            Subscription s = new Subscription(overflow, assigned + 1);
+            subscribers.add(s);
+            return s;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    ChangeEvent publish(ChangeEvent.Kind kind, Task before, Task after) {
+        Task entity = after != null ? after : before;
+        ChangeEvent event;
+        lock.lock();
+        try {
+            event = new ChangeEvent(++assigned, kind, TaskType.of(entity), entity.getId(), before, after);
+            pending.add(event);
+            movePending();
+        } finally {
+            lock.unlock();
+        }
+        if (unlockDepth.get()[0] == 0) {
+            awaitCapacity();
+        }
+        return event;
+    }
+
+    /**
+     * Выполняет изменение, которое само берёт и отпускает блокировку менеджера: события внутри
+     * публикуются без ожидания, а место для подписчиков BLOCK ждётся после action, вне блокировки.
+     */
+    public <T> T afterUnlock(Supplier<T> action) {
+        int[] depth = unlockDepth.get();
+        depth[0]++;
+        try {
+            return action.get();
+        } finally {
+            if (--depth[0] == 0) {
+                awaitCapacity();
+            }
+        }
+    }
+
+    public void afterUnlock(Runnable action) {
+        afterUnlock(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * Ждёт, пока отложенные события не попадут в кольцо. Вызывать без блокировки менеджера.
+     */
+    public void awaitCapacity() {
+        lock.lock();
+        try {
+            while (!pending.isEmpty()) {
+                consumed.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // под lock: переносит в кольцо ожидающие события, которые уже никого не затрут
+    private void movePending() {
+        boolean moved = false;
+        while (!pending.isEmpty() && !mustWait(pending.peek().sequence())) {
+            ChangeEvent event = pending.poll();
+            ring[(int) (event.sequence() & mask)] = event;
+            published = event.sequence();
+            moved = true;
+        }
+        if (moved) appended.signalAll();
+        if (pending.isEmpty()) consumed.signalAll();
+    }
+
+    // событие sequence затрёт слот события sequence - capacity
+    private boolean mustWait(long sequence) {
+        for (Subscription s : subscribers) {
+            if (s.overflow == Overflow.BLOCK && sequence - s.next >= ring.length) return true;
+        }
+        return false;
+    }
+
+    public final class Subscription implements AutoCloseable {
+        private final Overflow overflow;
+        // номер следующего события к чтению
+        private long next;
+        private long dropped;
+        private boolean closed;
+
+        private Subscription(Overflow overflow, long next) {
+            this.overflow = overflow;
+            this.next = next;
+        }
+
+        /**
+         * Следующее событие или null, если новых нет.
+         */
+        public ChangeEvent poll() {
+            lock.lock();
+            try {
+                return take();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Следующее событие; ждёт не дольше timeout, затем возвращает null.
+         */
+        public ChangeEvent poll(long timeout, TimeUnit unit) throws InterruptedException {
+            long nanos = unit.toNanos(timeout);
+            lock.lock();
+            try {
+                while (!closed && next > published) {
+                    if (nanos <= 0) return null;
+                    nanos = appended.awaitNanos(nanos);
+                }
+                return take();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Переносит в target до max доступных событий, возвращает их число.
+         */
+        public int drainTo(Collection<? super ChangeEvent> target, int max) {
+            lock.lock();
+            try {
+                int n = 0;
+                ChangeEvent event;
+                while (n < max && (event = take()) != null) {
+                    target.add(event);
+                    n++;
+                }
+                return n;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long getDropped() {
+            lock.lock();
+            try {
+                return dropped;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Сколько опубликованных событий подписчик ещё не прочитал (включая затёртые и ждущие места).
+         */
+        public long getLag() {
+            lock.lock();
+            try {
+                return assigned - next + 1;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() {
+            lock.lock();
+            try {
+                closed = true;
+                subscribers.remove(this);
+                movePending();
+                consumed.signalAll();
+                appended.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private ChangeEvent take() {
+            if (closed || next > published) return null;
+            long oldest = published - ring.length + 1;
+            if (next < oldest) {
+                dropped += oldest - next;
+                next = oldest;
+            }
+            ChangeEvent event = ring[(int) (next & mask)];
+            next++;
+            if (overflow == Overflow.BLOCK) {
+                movePending();
+            }
+            return event;
+        }
+    }
+}
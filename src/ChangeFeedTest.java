@@ -0,0 +1,103 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChangeFeedTest {
+
+    private static Task task(int id) {
+        Task t = new Task("T" + id, "d");
+        t.setId(id);
+        return t;
+    }
+
+    @Test
+    void subscribersReadIndependently() {
+        ChangeFeed feed = new ChangeFeed(8);
+        ChangeFeed.Subscription first = feed.subscribe(ChangeFeed.Overflow.DROP_OLDEST);
+        feed.publish(ChangeEvent.Kind.CREATED, null, task(1));
+        ChangeFeed.Subscription second = feed.subscribe(ChangeFeed.Overflow.DROP_OLDEST);
+        feed.publish(ChangeEvent.Kind.DELETED, task(1), null);
+
+        assertEquals(1, first.poll().sequence());
+        assertEquals(2, first.poll().sequence());
+        assertNull(first.poll());
+        // подписка видит только события после своего создания
+        ChangeEvent e = second.poll();
+        assertEquals(ChangeEvent.Kind.DELETED, e.kind());
+        assertEquals(TaskType.TASK, e.type());
+        assertEquals(1, e.id());
+        assertNull(second.poll());
+    }
+
+    @Test
+    void laggingDropOldestSubscriberSkipsOverwrittenEvents() {
+        ChangeFeed feed = new ChangeFeed(4);
+        ChangeFeed.Subscription s = feed.subscribe(ChangeFeed.Overflow.DROP_OLDEST);
+        for (int i = 1; i <= 10; i++) {
+            feed.publish(ChangeEvent.Kind.CREATED, null, task(i));
+        }
+        assertEquals(10, s.getLag());
+        List<ChangeEvent> events = new ArrayList<>();
+        assertEquals(4, s.drainTo(events, 100));
+        assertEquals(7, events.get(0).sequence());
+        assertEquals(6, s.getDropped());
+    }
+
+    @Test
+    void blockSubscriberHoldsPublisherUntilItReads() throws Exception {
+        ChangeFeed feed = new ChangeFeed(2);
+        ChangeFeed.Subscription s = feed.subscribe(ChangeFeed.Overflow.BLOCK);
+        feed.publish(ChangeEvent.Kind.CREATED, null, task(1));
+        feed.publish(ChangeEvent.Kind.CREATED, null, task(2));
+
+        CountDownLatch done = new CountDownLatch(1);
+        Thread publisher = new Thread(() -> {
+            feed.publish(ChangeEvent.Kind.CREATED, null, task(3));
+            done.countDown();
+        });
+        publisher.start();
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS), "Буфер полон — публикация ждёт подписчика");
+
+        assertEquals(1, s.poll().sequence());
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(2, s.poll().sequence());
+        assertEquals(3, s.poll(1, TimeUnit.SECONDS).sequence());
+        assertEquals(0, s.getDropped());
+        s.close();
+        assertFalse(feed.hasSubscribers());
+    }
+
+    @Test
+    void insideAfterUnlockPublisherWaitsOnlyAtTheEnd() throws Exception {
+        ChangeFeed feed = new ChangeFeed(2);
+        ChangeFeed.Subscription s = feed.subscribe(ChangeFeed.Overflow.BLOCK);
+        CountDownLatch published = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(1);
+        Thread publisher = new Thread(() -> {
+            feed.afterUnlock(() -> {
+                for (int id = 1; id <= 4; id++) {
+                    feed.publish(ChangeEvent.Kind.CREATED, null, task(id));
+                }
+                published.countDown();
+            });
+            done.countDown();
+        });
+        publisher.start();
+        assertTrue(published.await(5, TimeUnit.SECONDS), "Внутри afterUnlock публикация не ждёт");
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS), "После него пишущий ждёт подписчика");
+        assertEquals(4, s.getLag());
+
+        List<Long> sequences = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            sequences.add(s.poll(1, TimeUnit.SECONDS).sequence());
+        }
+        assertEquals(List.of(1L, 2L, 3L, 4L), sequences, "Отложенные события не теряются и идут по порядку");
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, s.getDropped());
+    }
+}
@@ -0,0 +1,122 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarOffHeapTaskManagerTest extends TaskManagerBaseTest<ColumnarTaskManager> {
+
+    @Override
+    protected ColumnarTaskManager createManager() {
+        // маленькая начальная ёмкость — чтобы тесты контракта проходили и через перевыделение
+        return new ColumnarTaskManager(null, ColumnarTaskManager.Storage.OFF_HEAP, 2);
+    }
+
+    @Test
+    void textRoundTripsThroughUtf8() {
+        Epic e = new Epic("Эпик «Релиз»", null);
+        manager.addEpic(e);
+        Subtask s = new Subtask("", "Описание с эмодзи 🚀", e.getId());
+        manager.addSubtask(s);
+
+        Epic readEpic = manager.getEpicById(e.getId());
+        assertEquals("Эпик «Релиз»", readEpic.getName());
+        assertNull(readEpic.getDescription());
+        Subtask readSubtask = manager.getSubtaskById(s.getId());
+        assertEquals("", readSubtask.getName());
+        assertEquals("Описание с эмодзи 🚀", readSubtask.getDescription());
+    }
+
+    @Test
+    void statsReportCapacityAndFragmentation() {
+        ColumnarTaskManager.StorageStats empty = manager.getStorageStats();
+        assertTrue(empty.offHeap());
+        assertEquals(0, empty.usedBytes());
+        assertEquals(0.0, empty.fragmentation());
+
+        Task t = new Task("Задача", "d");
+        manager.addTask(t);
+        t.setName("Задача после переименования");
+        manager.updateTask(t);
+        ColumnarTaskManager.StorageStats afterUpdate = manager.getStorageStats();
+        assertEquals(1, afterUpdate.rows());
+        assertEquals("Задача".getBytes(java.nio.charset.StandardCharsets.UTF_8).length, afterUpdate.garbageBytes(),
+                "Прежнее название — мусор до сжатия");
+        assertTrue(afterUpdate.fragmentation() > 0);
+        assertTrue(afterUpdate.capacityBytes() >= afterUpdate.usedBytes());
+
+        manager.deleteTask(t.getId());
+        assertEquals(1, manager.getStorageStats().freeRows());
+    }
+
+    @Test
+    void parallelReadsDecodeTheirOwnText() throws InterruptedException {
+        TaskManager shared = new ConcurrentTaskManager(manager);
+        List<Integer> ids = new java.util.ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            // разная длина: у читателей разные строки в одно и то же время
+            Task t = new Task("Задача " + i + " " + "я".repeat(i * 7), "Описание " + i);
+            shared.addTask(t);
+            ids.add(t.getId());
+        }
+        List<Throwable> failures = java.util.Collections.synchronizedList(new java.util.ArrayList<>());
+        List<Thread> readers = new java.util.ArrayList<>();
+        for (int r = 0; r < 4; r++) {
+            int offset = r;
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int round = 0; round < 2_000; round++) {
+                        int i = (round * 7 + offset) % ids.size();
+                        Task read = shared.getById(ids.get(i));
+                        if (!read.getName().equals("Задача " + i + " " + "я".repeat(i * 7))
+                                || !read.getDescription().equals("Описание " + i)) {
+                            throw new AssertionError("Чужой текст у задачи " + i + ": " + read.getName());
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(failures.isEmpty(), "Параллельные чтения не портят текст друг друга: " + failures);
+    }
+
+    @Test
+    void heapIndexGrowsWithRowsButHoldsNoText() {
+        long initial = manager.getStorageStats().heapIndexBytes();
+        assertTrue(initial > 0);
+        String padding = "x".repeat(1_000);
+        for (int i = 0; i < 100; i++) {
+            Task t = new Task("T" + i, padding);
+            t.setStartTime(java.time.LocalDateTime.of(2025, 1, 1, 0, 0).plusHours(i));
+            t.setDuration(java.time.Duration.ofMinutes(30));
+            manager.addTask(t);
+        }
+        ColumnarTaskManager.StorageStats stats = manager.getStorageStats();
+        assertTrue(stats.heapIndexBytes() > initial, "Индекс растёт вместе со строками");
+        assertTrue(stats.heapIndexBytes() < stats.usedBytes(), "Текст в индекс не попадает: " + stats);
+    }
+
+    @Test
+    void compactionKeepsLiveText() {
+        String padding = "я".repeat(300);
+        for (int round = 0; round < 40; round++) {
+            Task t = new Task("T" + round, padding + round);
+            manager.addTask(t);
+            if (round % 4 != 0) manager.deleteTask(t.getId());
+        }
+        ColumnarTaskManager.StorageStats stats = manager.getStorageStats();
+        assertTrue(stats.fragmentation() <= 0.5, "Мусора не больше половины после сжатия");
+
+        List<Task> all = manager.getAllTasks();
+        assertEquals(10, all.size());
+        for (Task t : all) {
+            assertEquals(padding + t.getName().substring(1), t.getDescription());
+        }
+    }
+}
@@ -0,0 +1,898 @@
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Менеджер для досок на миллионы задач: сущности хранятся не объектами, а строками в параллельных
+ * колонках (id, тип, статус, эпик, начало и длительность в минутах, название и описание в общей
+ * области текста). Освобождённые строки переиспользуются через список свободных.
+ * Данные строк лежат в массивах на куче или, при Storage.OFF_HEAP, в прямых буферах вне кучи
+ * (см. TaskRows); на куче остаётся только индекс из массивов примитивов — порядок по id,
+ * дерево по времени, интервалы (IntervalIndex) и история просмотров, без объекта на сущность.
+ * Вне кучи уходят только данные строк: индекс — несколько десятков байтов на сущность —
+ * остаётся на куче при любом Storage, его размер показывает StorageStats.heapIndexBytes.
+ * Task, Epic и Subtask создаются только на границе API — при чтении. Выборки по статусу —
+ * простые циклы по колонкам, порядок по времени — дерево из тех же строк (см. prioritized).
+ * <p>
+ * Возвращаемые объекты — копии: чтобы изменить сущность, её нужно передать в update*.
+ * Изменения публикуются в поток изменений, как у InMemoryTaskManager; без подписчиков
+ * объекты для событий не создаются.
+ */
+public class ColumnarTaskManager implements TaskManager {
+
+    private static final int NONE = -1;
+    // строки нет в истории просмотров
+    private static final int NOT_VIEWED = -2;
+    private static final byte FREE_ROW = -1;
+    private static final TaskType[] TYPES = TaskType.values();
+    private static final TaskStatus[] STATUSES = TaskStatus.values();
+    private static final int STATUS_COUNT = STATUSES.length;
+
+    /**
+     * Где лежат данные сущностей: в массивах на куче или в прямых буферах вне кучи.
+     */
+    public enum Storage {
+        HEAP, OFF_HEAP
+    }
+
+    /**
+     * Объём хранилища строк: выделено и занято байтов (вместе с мусором), мусор в тексте
+     * до ближайшего сжатия. heapIndexBytes — выделенные под индекс массивы на куче
+     * (без заголовков массивов и текстового индекса поиска); в capacityBytes он не входит.
+     */
+    public record StorageStats(boolean offHeap, int rows, int freeRows,
+                               long capacityBytes, long usedBytes, long garbageBytes,
+                               long heapIndexBytes) {
+
+        // доля мусора в занятом
+        public double fragmentation() {
+            return usedBytes == 0 ? 0 : (double) garbageBytes / usedBytes;
+        }
+    }
+
+    private int id = 1;
+
+    // данные сущностей по номеру строки; индекс ниже — на куче
+    private final TaskRows data;
+    private int rows;
+    // тип строки, FREE_ROW — строка свободна
+    private byte[] types;
+    // подзадачи эпика — двусвязный список строк в порядке добавления:
+    // у эпика первая и последняя подзадача, у подзадачи — соседи
+    private int[] firstChild;
+    private int[] lastChild;
+    private int[] nextSibling;
+    private int[] prevSibling;
+    // у эпика — число подзадач по статусам, STATUS_COUNT ячеек на строку
+    private int[] statusCounts;
+    // задачи и подзадачи с началом — AVL-дерево по ключу (начало, id) из колонок;
+    // узлы — сами строки, здесь их ссылки и высоты
+    private int[] priorityLeft;
+    private int[] priorityRight;
+    private byte[] priorityHeight;
+    private int priorityRoot = NONE;
+    // история просмотров — двусвязный список строк от давнего просмотра к свежему;
+    // чтения по id идут параллельно (см. ConcurrentTaskManager), поэтому список под historyLock
+    private int[] historyPrev;
+    private int[] historyNext;
+    private int historyHead = NONE;
+    private int historyTail = NONE;
+    private final Object historyLock = new Object();
+
+    private int[] freeRows = new int[16];
+    private int freeCount;
+
+    private final IntIntMap rowById = new IntIntMap();
+    // id по возрастанию — курсор для постраничного чтения
+    private final SortedIntSet taskOrder = new SortedIntSet();
+    private final SortedIntSet epicOrder = new SortedIntSet();
+    private final SortedIntSet subtaskOrder = new SortedIntSet();
+    // id подзадач по статусу (индекс — ordinal); меняется там же, где счётчики статусов эпиков
+    private final SortedIntSet[] subtasksByStatus = new SortedIntSet[STATUS_COUNT];
+    private final IntervalIndex intervals;
+    // слова названий и описаний, как у InMemoryTaskManager; обновляется вместе с текстом строки
+    private final TextIndex textIndex = new TextIndex();
+    private final ChangeFeed changes = new ChangeFeed();
+    // эпики, затронутые применяемым пакетом (null вне applyBatch), с состоянием до пакета:
+    // событие эпика публикуется один раз в конце, а пересечения к этому моменту уже проверены
+    private IntObjectMap<Epic> batchEpics;
+
+    public ColumnarTaskManager() {
+        this(null);
+    }
+
+    public ColumnarTaskManager(SlotCalendar calendar) {
+        this(calendar, Storage.HEAP, 16);
+    }
+
+    /**
+     * initialRows — сколько сущностей помещается без перевыделения; вне кучи память
+     * под них и под их текст выделяется сразу.
+     */
+    public ColumnarTaskManager(SlotCalendar calendar, Storage storage, int initialRows) {
+        if (initialRows <= 0) {
+            throw new IllegalArgumentException("Ёмкость должна быть положительной: " + initialRows);
+        }
+        this.intervals = new IntervalIndex(calendar);
+        for (int i = 0; i < STATUS_COUNT; i++) {
+            subtasksByStatus[i] = new SortedIntSet();
+        }
+        this.data = storage == Storage.OFF_HEAP ? new OffHeapTaskRows(initialRows, initialRows * 32)
+                : new HeapTaskRows(initialRows);
+        allocateIndex(initialRows);
+    }
+
+    public StorageStats getStorageStats() {
+        return data.stats(rows, freeCount, heapIndexBytes());
+    }
+
+    @Override
+    public void addTask(Task task) {
+        int finalId = ensureId(task);
+        if (rowById.containsKey(finalId)) {
+            throw new IllegalArgumentException("Id уже используется: " + finalId);
+        }
+        ensureNoOverlap(task);
+        int row = insert(task, TaskType.TASK, 0);
+        taskOrder.add(finalId);
+        emitCreated(row);
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        int finalId = ensureId(epic);
+        if (rowById.containsKey(finalId)) {
+            throw new IllegalArgumentException("Id конфликтует с существующей задачей/подзадачей: " + finalId);
+        }
+        int row = insert(epic, TaskType.EPIC, 0);
+        epicOrder.add(finalId);
+        emitCreated(row);
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        if (subtask.getId() != 0 && subtask.getId() == subtask.getEpicId()) {
+            throw new IllegalArgumentException("Эпик не может быть подзадачей самого себя.");
+        }
+        int finalId = ensureId(subtask);
+        if (rowById.containsKey(finalId)) {
+            throw new IllegalArgumentException("Id уже используется: " + finalId);
+        }
+        int epicRow = rowOf(subtask.getEpicId(), TaskType.EPIC);
+        if (epicRow == NONE) {
+            throw new NotFoundException("Эпик не найден: " + subtask.getEpicId());
+        }
+        ensureNoOverlap(subtask);
+        Epic before = epicBefore(epicRow);
+        int row = insert(subtask, TaskType.SUBTASK, subtask.getEpicId());
+        subtaskOrder.add(finalId);
+        link(epicRow, row);
+        statusCounts[epicRow * STATUS_COUNT + data.status(row)]++;
+        subtasksByStatus[data.status(row)].add(finalId);
+        emitCreated(row);
+        epicChanged(epicRow, before);
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return materializeAll(taskOrder);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return materializeAll(epicOrder);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return materializeAll(subtaskOrder);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return materializeAll(subtasksByStatus[status.ordinal()]);
+    }
+
+    /**
+     * Число сущностей типа type по статусам — один проход по двум колонкам, без объектов.
+     */
+    public Map<TaskStatus, Integer> countByStatus(TaskType type) {
+        byte wanted = (byte) type.ordinal();
+        int[] counts = new int[STATUS_COUNT];
+        for (int row = 0; row < rows; row++) {
+            if (types[row] == wanted) counts[data.status(row)]++;
+        }
+        Map<TaskStatus, Integer> result = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : STATUSES) {
+            result.put(status, counts[status.ordinal()]);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        int epicRow = rowOf(epicId, TaskType.EPIC);
+        List<Subtask> result = new ArrayList<>();
+        if (epicRow == NONE) return result;
+        for (int row = firstChild[epicRow]; row != NONE; row = nextSibling[row]) {
+            result.add((Subtask) materialize(row));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (int entityId : textIndex.search(query, limit)) {
+            result.add(peek(entityId));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return page(taskOrder, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return page(epicOrder, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return page(subtaskOrder, afterId, limit);
+    }
+
+    private <T extends Task> List<T> page(SortedIntSet order, int afterId, int limit) {
+        int[] ids = order.valuesAfter(afterId, limit);
+        List<T> page = new ArrayList<>(ids.length);
+        for (int pageId : ids) {
+            page.add(materialize(rowById.get(pageId)));
+        }
+        return page;
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return viewed(rowOf(id, TaskType.TASK));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return viewed(rowOf(id, TaskType.EPIC));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return viewed(rowOf(id, TaskType.SUBTASK));
+    }
+
+    @Override
+    public Task getById(int id) {
+        return viewed(rowById.get(id));
+    }
+
+    @Override
+    public Task peekTask(int id) {
+        return materialize(rowOf(id, TaskType.TASK));
+    }
+
+    @Override
+    public Epic peekEpic(int id) {
+        return materialize(rowOf(id, TaskType.EPIC));
+    }
+
+    @Override
+    public Subtask peekSubtask(int id) {
+        return materialize(rowOf(id, TaskType.SUBTASK));
+    }
+
+    @Override
+    public TaskType typeOf(int id) {
+        int row = rowById.get(id);
+        return row == NONE ? null : TYPES[types[row]];
+    }
+
+    /**
+     * История хранит только порядок просмотров — ссылки между строками: сущности читаются
+     * из колонок заново, поэтому в ней всегда актуальное состояние.
+     */
+    @Override
+    public List<Task> getHistory() {
+        return getHistoryPage(0, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<Task> getHistoryPage(int afterId, int limit) {
+        List<Task> result = new ArrayList<>();
+        synchronized (historyLock) {
+            int row = historyHead;
+            if (afterId != 0) {
+                int after = rowById.get(afterId);
+                if (after == NONE || historyPrev[after] == NOT_VIEWED) return result;
+                row = historyNext[after];
+            }
+            for (; row != NONE && result.size() < limit; row = historyNext[row]) {
+                result.add(materialize(row));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        if (task == null) return;
+        int row = rowOf(task.getId(), TaskType.TASK);
+        if (row == NONE) return;
+        ensureNoOverlap(task);
+        Task before = snapshot(row);
+        write(row, task);
+        emitUpdated(before, row);
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        if (epic == null) return;
+        int row = rowOf(epic.getId(), TaskType.EPIC);
+        if (row == NONE) return;
+        Epic before = epicBefore(row);
+        data.setText(row, epic.getName(), epic.getDescription());
+        textIndex.add(epic);
+        data.setStatus(row, statusOrdinal(epic));
+        epicChanged(row, before);
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        if (subtask == null) return;
+        int row = rowOf(subtask.getId(), TaskType.SUBTASK);
+        if (row == NONE) return;
+        int epicRow = rowById.get(data.epicId(row));
+        // другой epicId — перенос подзадачи: новый эпик проверяется до любых изменений
+        int targetRow = epicRow;
+        if (subtask.getEpicId() != data.epicId(row)) {
+            targetRow = rowOf(subtask.getEpicId(), TaskType.EPIC);
+            if (targetRow == NONE) {
+                throw new NotFoundException("Эпик не найден: " + subtask.getEpicId());
+            }
+        }
+        ensureNoOverlap(subtask);
+        Task before = snapshot(row);
+        Epic epicBefore = epicBefore(epicRow);
+        Epic targetBefore = targetRow == epicRow ? null : epicBefore(targetRow);
+        statusCounts[epicRow * STATUS_COUNT + data.status(row)]--;
+        subtasksByStatus[data.status(row)].remove(subtask.getId());
+        if (targetRow != epicRow) {
+            unlink(epicRow, row);
+            link(targetRow, row);
+            data.setEpicId(row, subtask.getEpicId());
+        }
+        write(row, subtask);
+        statusCounts[targetRow * STATUS_COUNT + data.status(row)]++;
+        subtasksByStatus[data.status(row)].add(subtask.getId());
+        emitUpdated(before, row);
+        epicChanged(epicRow, epicBefore);
+        if (targetRow != epicRow) epicChanged(targetRow, targetBefore);
+    }
+
+    @Override
+    public Task deleteTask(int id) {
+        int row = rowOf(id, TaskType.TASK);
+        if (row == NONE) return null;
+        Task old = materialize(row);
+        taskOrder.remove(id);
+        release(row);
+        emitDeleted(old);
+        return old;
+    }
+
+    @Override
+    public Epic deleteEpic(int id) {
+        int row = rowOf(id, TaskType.EPIC);
+        if (row == NONE) return null;
+        Epic epic = materialize(row);
+        int child = firstChild[row];
+        while (child != NONE) {
+            int next = nextSibling[child];
+            Task removed = snapshot(child);
+            subtaskOrder.remove(data.id(child));
+            subtasksByStatus[data.status(child)].remove(data.id(child));
+            release(child);
+            emitDeleted(removed);
+            child = next;
+        }
+        epicOrder.remove(id);
+        release(row);
+        if (batchEpics != null) batchEpics.remove(id);
+        emitDeleted(epic);
+        return epic;
+    }
+
+    @Override
+    public Subtask deleteSubtask(int id) {
+        int row = rowOf(id, TaskType.SUBTASK);
+        if (row == NONE) return null;
+        Subtask subtask = materialize(row);
+        int epicRow = rowById.get(data.epicId(row));
+        Epic before = epicBefore(epicRow);
+        unlink(epicRow, row);
+        statusCounts[epicRow * STATUS_COUNT + data.status(row)]--;
+        subtasksByStatus[data.status(row)].remove(id);
+        subtaskOrder.remove(id);
+        release(row);
+        emitDeleted(subtask);
+        epicChanged(epicRow, before);
+        return subtask;
+    }
+
+    /**
+     * Пакет применяется целиком или не применяется совсем (см. TaskBatchValidator).
+     */
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        TaskBatchValidator.validate(batch, this::peek, id, intervals::overlapsAny);
+        batchEpics = new IntObjectMap<>();
+        try {
+            TaskManager.super.applyBatch(batch);
+        } finally {
+            IntObjectMap<Epic> touched = batchEpics;
+            batchEpics = null;
+            touched.forEach((epicId, before) -> {
+                int row = rowOf(epicId, TaskType.EPIC);
+                if (row != NONE) changes.publish(ChangeEvent.Kind.UPDATED, before, materialize(row));
+            });
+        }
+    }
+
+    @Override
+    public ChangeFeed getChangeFeed() {
+        return changes;
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return prioritized(Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE, 0);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return prioritized(from == null ? Long.MIN_VALUE : Task.ceilMinute(from),
+                to == null ? Long.MAX_VALUE : Task.ceilMinute(to),
+                Long.MIN_VALUE, Integer.MIN_VALUE, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        if (limit <= 0) return new ArrayList<>();
+        if (afterStart == null) {
+            return prioritized(Long.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE, Integer.MIN_VALUE, limit);
+        }
+        // курсор точнее минуты стоит после всех задач своей минуты
+        long minute = Task.toMinute(afterStart);
+        int cursorId = Task.fromMinute(minute).equals(afterStart) ? afterId : Integer.MAX_VALUE;
+        return prioritized(Long.MIN_VALUE, Long.MAX_VALUE, minute, cursorId, limit);
+    }
+
+    @Override
+    public Optional<Task> getActiveAt(LocalDateTime instant) {
+        Integer activeId = intervals.idAt(instant);
+        return activeId == null ? Optional.empty() : Optional.of(materialize(rowById.get(activeId)));
+    }
+
+    /**
+     * Задачи и подзадачи с началом в [from, to) и ключом (начало, id) строго после
+     * (afterStart, afterId), по возрастанию ключа; limit <= 0 — без ограничения.
+     * Спуск по дереву к курсору — O(log n), дальше обход по порядку до limit.
+     */
+    private List<Task> prioritized(long from, long to, long afterStart, int afterId, int limit) {
+        List<Task> result = new ArrayList<>();
+        // на стеке — путь к ещё не выданным строкам; высота AVL-дерева не больше 1.45 log2 n
+        int[] stack = new int[64];
+        int depth = 0;
+        int node = priorityRoot;
+        while (node != NONE) {
+            if (data.start(node) >= from && compareKey(node, afterStart, afterId) > 0) {
+                stack[depth++] = node;
+                node = priorityLeft[node];
+            } else {
+                node = priorityRight[node];
+            }
+        }
+        while (depth > 0 && (limit <= 0 || result.size() < limit)) {
+            node = stack[--depth];
+            if (data.start(node) >= to) break;
+            result.add(materialize(node));
+            for (int next = priorityRight[node]; next != NONE; next = priorityLeft[next]) {
+                stack[depth++] = next;
+            }
+        }
+        return result;
+    }
+
+    // --- строки ---
+
+    private int insert(Task t, TaskType type, int epicId) {
+        int row = allocateRow();
+        data.setId(row, t.getId());
+        types[row] = (byte) type.ordinal();
+        data.setEpicId(row, epicId);
+        firstChild[row] = lastChild[row] = nextSibling[row] = prevSibling[row] = NONE;
+        historyPrev[row] = historyNext[row] = NOT_VIEWED;
+        Arrays.fill(statusCounts, row * STATUS_COUNT, (row + 1) * STATUS_COUNT, 0);
+        rowById.put(t.getId(), row);
+        // время эпика рассчитывается по подзадачам при чтении; у задач его запишет write
+        data.setTimes(row, Task.UNSET, Task.UNSET);
+        if (type == TaskType.EPIC) {
+            data.setStatus(row, statusOrdinal(t));
+            data.setText(row, t.getName(), t.getDescription());
+            textIndex.add(t);
+        } else {
+            write(row, t);
+        }
+        return row;
+    }
+
+    private void write(int row, Task t) {
+        if (data.start(row) != Task.UNSET) priorityRoot = detach(priorityRoot, data.start(row), data.id(row));
+        data.setStatus(row, statusOrdinal(t));
+        data.setTimes(row, t.getStartMinute(), t.getDurationMinutes());
+        if (data.start(row) != Task.UNSET) priorityRoot = attach(priorityRoot, row);
+        data.setText(row, t.getName(), t.getDescription());
+        textIndex.add(t);
+        intervals.remove(data.id(row));
+        long end = t.getEndMinute();
+        if (end != Task.UNSET) intervals.add(data.id(row), data.start(row), end);
+    }
+
+    private void release(int row) {
+        int releasedId = data.id(row);
+        if (data.start(row) != Task.UNSET) priorityRoot = detach(priorityRoot, data.start(row), releasedId);
+        rowById.remove(releasedId);
+        intervals.remove(releasedId);
+        textIndex.remove(releasedId);
+        synchronized (historyLock) {
+            unlinkViewed(row);
+        }
+        data.clearText(row);
+        types[row] = FREE_ROW;
+        if (freeCount == freeRows.length) freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        freeRows[freeCount++] = row;
+    }
+
+    private int allocateRow() {
+        if (freeCount > 0) return freeRows[--freeCount];
+        if (rows == types.length) {
+            growIndex(rows * 2);
+            data.grow(rows * 2);
+        }
+        return rows++;
+    }
+
+    private int rowOf(int entityId, TaskType type) {
+        int row = rowById.get(entityId);
+        return row != NONE && types[row] == type.ordinal() ? row : NONE;
+    }
+
+    private void link(int epicRow, int row) {
+        int last = lastChild[epicRow];
+        prevSibling[row] = last;
+        nextSibling[row] = NONE;
+        if (last == NONE) firstChild[epicRow] = row;
+        else nextSibling[last] = row;
+        lastChild[epicRow] = row;
+    }
+
+    private void unlink(int epicRow, int row) {
+        int prev = prevSibling[row];
+        int next = nextSibling[row];
+        if (prev == NONE) firstChild[epicRow] = next;
+        else nextSibling[prev] = next;
+        if (next == NONE) lastChild[epicRow] = prev;
+        else prevSibling[next] = prev;
+    }
+
+    // статус по счётчикам подзадач; без подзадач — NEW, как у InMemoryTaskManager
+    private void refreshEpicStatus(int epicRow) {
+        int base = epicRow * STATUS_COUNT;
+        int newCount = statusCounts[base + TaskStatus.NEW.ordinal()];
+        int doneCount = statusCounts[base + TaskStatus.DONE.ordinal()];
+        int total = 0;
+        for (int i = 0; i < STATUS_COUNT; i++) {
+            total += statusCounts[base + i];
+        }
+        TaskStatus status;
+        if (total == 0 || newCount == total) status = TaskStatus.NEW;
+        else if (doneCount == total) status = TaskStatus.DONE;
+        else status = TaskStatus.IN_PROGRESS;
+        data.setStatus(epicRow, (byte) status.ordinal());
+    }
+
+    private static byte statusOrdinal(Task t) {
+        // статус может быть null у задачи из JSON без поля status — считаем её новой
+        return (byte) (t.getStatus() == null ? TaskStatus.NEW : t.getStatus()).ordinal();
+    }
+
+    // --- объекты на границе API ---
+
+    private <T extends Task> T viewed(int row) {
+        T entity = materialize(row);
+        if (entity != null) {
+            synchronized (historyLock) {
+                unlinkViewed(row);
+                historyPrev[row] = historyTail;
+                historyNext[row] = NONE;
+                if (historyTail == NONE) historyHead = row;
+                else historyNext[historyTail] = row;
+                historyTail = row;
+            }
+        }
+        return entity;
+    }
+
+    // под historyLock
+    private void unlinkViewed(int row) {
+        int prev = historyPrev[row];
+        if (prev == NOT_VIEWED) return;
+        int next = historyNext[row];
+        if (prev == NONE) historyHead = next;
+        else historyNext[prev] = next;
+        if (next == NONE) historyTail = prev;
+        else historyPrev[next] = prev;
+        historyPrev[row] = historyNext[row] = NOT_VIEWED;
+    }
+
+    private Task peek(int entityId) {
+        return materialize(rowById.get(entityId));
+    }
+
+    private <T extends Task> List<T> materializeAll(SortedIntSet order) {
+        List<T> result = new ArrayList<>(order.size());
+        order.forEach(entityId -> result.add(materialize(rowById.get(entityId))));
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> T materialize(int row) {
+        if (row == NONE) return null;
+        String name = data.name(row);
+        String description = data.description(row);
+        TaskStatus status = STATUSES[data.status(row)];
+        // текст строк не проходит через пул: материализация не должна влиять на его статистику
+        Task t = switch (TYPES[types[row]]) {
+            case TASK -> new Task(name, description, status);
+            case SUBTASK -> new Subtask(name, description, data.epicId(row), status);
+            case EPIC -> materializeEpic(row, name, description, status);
+        };
+        t.setId(data.id(row));
+        if (!(t instanceof Epic)) {
+            t.setStartMinute(data.start(row));
+            t.setDurationMinutes(data.duration(row));
+        }
+        return (T) t;
+    }
+
+    // время эпика — по подзадачам, одним проходом по его списку
+    private Epic materializeEpic(int row, String name, String description, TaskStatus status) {
+        Epic epic = new Epic(name, description, status);
+        long start = Task.UNSET;
+        long end = Task.UNSET;
+        long duration = 0;
+        boolean withDuration = false;
+        for (int child = firstChild[row]; child != NONE; child = nextSibling[child]) {
+            epic.addSubtask(data.id(child));
+            long childStart = data.start(child);
+            long childDuration = data.duration(child);
+            if (childStart != Task.UNSET && (start == Task.UNSET || childStart < start)) start = childStart;
+            if (childDuration != Task.UNSET) {
+                duration += childDuration;
+                withDuration = true;
+                if (childStart != Task.UNSET && (end == Task.UNSET || childStart + childDuration > end)) {
+                    end = childStart + childDuration;
+                }
+            }
+        }
+        epic.setCalculatedTimes(start, end, withDuration ? duration : Task.UNSET);
+        return epic;
+    }
+
+    // --- приоритетный порядок ---
+
+    private int compareKey(int row, long start, int entityId) {
+        int byStart = Long.compare(data.start(row), start);
+        return byStart != 0 ? byStart : Integer.compare(data.id(row), entityId);
+    }
+
+    private int attach(int node, int row) {
+        if (node == NONE) {
+            priorityLeft[row] = priorityRight[row] = NONE;
+            priorityHeight[row] = 1;
+            return row;
+        }
+        if (compareKey(row, data.start(node), data.id(node)) < 0) {
+            priorityLeft[node] = attach(priorityLeft[node], row);
+        } else {
+            priorityRight[node] = attach(priorityRight[node], row);
+        }
+        return rebalance(node);
+    }
+
+    // ключ берётся из колонок до того, как строка перезапишется
+    private int detach(int node, long start, int entityId) {
+        if (node == NONE) return NONE;
+        int cmp = compareKey(node, start, entityId);
+        if (cmp > 0) {
+            priorityLeft[node] = detach(priorityLeft[node], start, entityId);
+        } else if (cmp < 0) {
+            priorityRight[node] = detach(priorityRight[node], start, entityId);
+        } else {
+            int left = priorityLeft[node];
+            int right = priorityRight[node];
+            if (left == NONE) return right;
+            if (right == NONE) return left;
+            // на место узла встаёт следующий по порядку
+            int successor = right;
+            while (priorityLeft[successor] != NONE) {
+                successor = priorityLeft[successor];
+            }
+            priorityRight[successor] = detachLeftmost(right);
+            priorityLeft[successor] = left;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    private int detachLeftmost(int node) {
+        if (priorityLeft[node] == NONE) return priorityRight[node];
+        priorityLeft[node] = detachLeftmost(priorityLeft[node]);
+        return rebalance(node);
+    }
+
+    private int rebalance(int node) {
+        updateHeight(node);
+        int diff = height(priorityLeft[node]) - height(priorityRight[node]);
+        if (diff > 1) {
+            int left = priorityLeft[node];
+            if (height(priorityLeft[left]) < height(priorityRight[left])) priorityLeft[node] = rotateLeft(left);
+            return rotateRight(node);
+        }
+        if (diff < -1) {
+            int right = priorityRight[node];
+            if (height(priorityRight[right]) < height(priorityLeft[right])) priorityRight[node] = rotateRight(right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private int rotateRight(int node) {
+        int left = priorityLeft[node];
+        priorityLeft[node] = priorityRight[left];
+        priorityRight[left] = node;
+        updateHeight(node);
+        updateHeight(left);
+        return left;
+    }
+
+    private int rotateLeft(int node) {
+        int right = priorityRight[node];
+        priorityRight[node] = priorityLeft[right];
+        priorityLeft[right] = node;
+        updateHeight(node);
+        updateHeight(right);
+        return right;
+    }
+
+    private int height(int node) {
+        return node == NONE ? 0 : priorityHeight[node];
+    }
+
+    private void updateHeight(int node) {
+        priorityHeight[node] = (byte) (1 + Math.max(height(priorityLeft[node]), height(priorityRight[node])));
+    }
+
+    // --- поток изменений ---
+
+    // состояние до изменения; без подписчиков — null, и событие не публикуется
+    private Task snapshot(int row) {
+        return changes.hasSubscribers() ? materialize(row) : null;
+    }
+
+    private void emitCreated(int row) {
+        if (changes.hasSubscribers()) changes.publish(ChangeEvent.Kind.CREATED, null, materialize(row));
+    }
+
+    private void emitUpdated(Task before, int row) {
+        if (before != null) changes.publish(ChangeEvent.Kind.UPDATED, before, materialize(row));
+    }
+
+    private void emitDeleted(Task old) {
+        if (old != null && changes.hasSubscribers()) changes.publish(ChangeEvent.Kind.DELETED, old, null);
+    }
+
+    // внутри пакета запоминается только первое состояние эпика, событие — в конце applyBatch
+    private Epic epicBefore(int epicRow) {
+        if (!changes.hasSubscribers()) return null;
+        if (batchEpics != null) {
+            int epicId = data.id(epicRow);
+            if (!batchEpics.containsKey(epicId)) batchEpics.put(epicId, materialize(epicRow));
+            return null;
+        }
+        return materialize(epicRow);
+    }
+
+    private void epicChanged(int epicRow, Epic before) {
+        refreshEpicStatus(epicRow);
+        if (before != null) changes.publish(ChangeEvent.Kind.UPDATED, before, materialize(epicRow));
+    }
+
+    // --- индекс ---
+
+    private void allocateIndex(int capacity) {
+        types = new byte[capacity];
+        firstChild = new int[capacity];
+        lastChild = new int[capacity];
+        nextSibling = new int[capacity];
+        prevSibling = new int[capacity];
+        statusCounts = new int[capacity * STATUS_COUNT];
+        priorityLeft = new int[capacity];
+        priorityRight = new int[capacity];
+        priorityHeight = new byte[capacity];
+        historyPrev = new int[capacity];
+        historyNext = new int[capacity];
+    }
+
+    private long heapIndexBytes() {
+        // на строку: тип и высота в дереве по байту, восемь ссылок int и счётчики статусов
+        long perRow = 2 + 8L * Integer.BYTES + (long) STATUS_COUNT * Integer.BYTES;
+        return types.length * perRow + (long) freeRows.length * Integer.BYTES
+                + rowById.footprintBytes() + taskOrder.footprintBytes() + epicOrder.footprintBytes()
+                + subtaskOrder.footprintBytes() + intervals.footprintBytes() + statusIndexBytes();
+    }
+
+    private long statusIndexBytes() {
+        long bytes = 0;
+        for (SortedIntSet ids : subtasksByStatus) {
+            bytes += ids.footprintBytes();
+        }
+        return bytes;
+    }
+
+    private void growIndex(int capacity) {
+        types = Arrays.copyOf(types, capacity);
+        firstChild = Arrays.copyOf(firstChild, capacity);
+        lastChild = Arrays.copyOf(lastChild, capacity);
+        nextSibling = Arrays.copyOf(nextSibling, capacity);
+        prevSibling = Arrays.copyOf(prevSibling, capacity);
+        statusCounts = Arrays.copyOf(statusCounts, capacity * STATUS_COUNT);
+        priorityLeft = Arrays.copyOf(priorityLeft, capacity);
+        priorityRight = Arrays.copyOf(priorityRight, capacity);
+        priorityHeight = Arrays.copyOf(priorityHeight, capacity);
+        historyPrev = Arrays.copyOf(historyPrev, capacity);
+        historyNext = Arrays.copyOf(historyNext, capacity);
+    }
+
+    // --- id и пересечения ---
+
+    private void ensureNoOverlap(Task candidate) {
+        if (batchEpics != null) return;
+        long end = candidate.getEndMinute();
+        if (end == Task.UNSET) return;
+        if (intervals.overlapsAny(candidate.getId(), candidate.getStartMinute(), end)) {
+            throw new IllegalStateException("Интервал задачи пересекается с существующей задачей");
+        }
+    }
+
+    private int ensureId(Task t) {
+        if (t.getId() == 0) {
+            t.setId(id++);
+        }
+        if (t.getId() >= id) {
+            id = t.getId() + 1;
+        }
+        return t.getId();
+    }
+}
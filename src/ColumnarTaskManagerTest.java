@@ -0,0 +1,234 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ColumnarTaskManagerTest extends TaskManagerBaseTest<ColumnarTaskManager> {
+
+    @Override
+    protected ColumnarTaskManager createManager() {
+        return new ColumnarTaskManager();
+    }
+
+    @Test
+    void returnedObjectsAreCopies() {
+        Task t = new Task("T", "d");
+        manager.addTask(t);
+        Task read = manager.getTaskById(t.getId());
+        read.setName("Изменено снаружи");
+
+        assertEquals("T", manager.getTaskById(t.getId()).getName(), "Хранилище меняется только через update");
+        manager.updateTask(read);
+        assertEquals("Изменено снаружи", manager.getHistory().get(0).getName(), "История читает актуальное состояние");
+    }
+
+    @Test
+    void epicStatusAndTimesFollowSubtasks() {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        LocalDateTime start = LocalDateTime.of(2025, 3, 1, 9, 0);
+        Subtask a = new Subtask("A", "d", e.getId());
+        a.setStartTime(start);
+        a.setDuration(Duration.ofMinutes(30));
+        Subtask b = new Subtask("B", "d", e.getId());
+        b.setStatus(TaskStatus.DONE);
+        b.setStartTime(start.plusHours(2));
+        b.setDuration(Duration.ofMinutes(15));
+        manager.addSubtask(a);
+        manager.addSubtask(b);
+
+        Epic read = manager.getEpicById(e.getId());
+        assertEquals(TaskStatus.IN_PROGRESS, read.getStatus());
+        assertEquals(List.of(a.getId(), b.getId()), read.getSubtaskIds());
+        assertEquals(start, read.getStartTime().orElseThrow());
+        assertEquals(start.plusMinutes(135), read.getEndTime().orElseThrow());
+        assertEquals(Duration.ofMinutes(45), read.getDuration().orElseThrow());
+
+        manager.deleteSubtask(a.getId());
+        assertEquals(TaskStatus.DONE, manager.getEpicById(e.getId()).getStatus());
+        manager.deleteEpic(e.getId());
+        assertTrue(manager.getAllSubtasks().isEmpty());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+    }
+
+    @Test
+    void freedRowsAndTextAreReused() {
+        // много удалений и перезаписей: строки переиспользуются, текст сжимается, данные не путаются
+        String padding = "x".repeat(200);
+        for (int round = 0; round < 50; round++) {
+            Task t = new Task("T" + round, padding);
+            manager.addTask(t);
+            t.setDescription(padding + round);
+            manager.updateTask(t);
+            if (round % 2 == 0) manager.deleteTask(t.getId());
+        }
+        List<Task> all = manager.getAllTasks();
+        assertEquals(25, all.size());
+        for (Task t : all) {
+            int round = Integer.parseInt(t.getName().substring(1));
+            assertEquals(1, round % 2);
+            assertEquals(padding + round, t.getDescription());
+        }
+    }
+
+    @Test
+    void historyLinksRowsAndForgetsReusedOnes() {
+        Task a = new Task("A", "d");
+        Task b = new Task("B", "d");
+        Task c = new Task("C", "d");
+        manager.addTask(a);
+        manager.addTask(b);
+        manager.addTask(c);
+        manager.getTaskById(a.getId());
+        manager.getTaskById(b.getId());
+        manager.getTaskById(c.getId());
+        manager.getTaskById(a.getId());
+
+        assertEquals(List.of(b, c, a), manager.getHistory());
+        assertEquals(List.of(c), manager.getHistoryPage(b.getId(), 1));
+        assertTrue(manager.getHistoryPage(a.getId(), 5).isEmpty(), "После последнего просмотра пусто");
+
+        manager.deleteTask(c.getId());
+        // строка удалённой задачи достаётся новой, но её место в истории не наследуется
+        Task d = new Task("D", "d");
+        manager.addTask(d);
+        assertEquals(List.of(b, a), manager.getHistory());
+        assertTrue(manager.getHistoryPage(d.getId(), 5).isEmpty(), "Непросмотренной задачи в истории нет");
+    }
+
+    @Test
+    void countsByStatusScanColumns() {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        Subtask a = new Subtask("A", "d", e.getId());
+        a.setStatus(TaskStatus.DONE);
+        manager.addSubtask(a);
+        manager.addSubtask(new Subtask("B", "d", e.getId()));
+
+        assertEquals(1, (int) manager.countByStatus(TaskType.SUBTASK).get(TaskStatus.DONE));
+        assertEquals(1, (int) manager.countByStatus(TaskType.SUBTASK).get(TaskStatus.NEW));
+        assertEquals(1, (int) manager.countByStatus(TaskType.EPIC).get(TaskStatus.IN_PROGRESS));
+        assertEquals(List.of(a), manager.getSubtasksByStatus(TaskStatus.DONE));
+    }
+
+    @Test
+    void statusIndexMatchesInMemoryAfterRandomChanges() {
+        java.util.Random rnd = new java.util.Random(5);
+        InMemoryTaskManager expected = new InMemoryTaskManager();
+        TaskStatus[] statuses = TaskStatus.values();
+        List<Integer> epics = new java.util.ArrayList<>();
+        List<Integer> subtasks = new java.util.ArrayList<>();
+        for (int i = 0; i < 2_000; i++) {
+            int action = rnd.nextInt(10);
+            if (epics.isEmpty() || action == 0) {
+                Epic e = new Epic("E" + i, "d");
+                manager.addEpic(e);
+                expected.addEpic(new Epic(e));
+                epics.add(e.getId());
+            } else if (action == 1) {
+                int victim = epics.remove(rnd.nextInt(epics.size()));
+                manager.deleteEpic(victim);
+                expected.deleteEpic(victim);
+                subtasks.retainAll(expected.getAllSubtasks().stream().map(Task::getId).toList());
+            } else if (action < 4 && !subtasks.isEmpty()) {
+                int victim = subtasks.remove(rnd.nextInt(subtasks.size()));
+                manager.deleteSubtask(victim);
+                expected.deleteSubtask(victim);
+            } else if (action < 7 && !subtasks.isEmpty()) {
+                // смена статуса и, иногда, эпика
+                int target = subtasks.get(rnd.nextInt(subtasks.size()));
+                Subtask s = new Subtask("S", "d", epics.get(rnd.nextInt(epics.size())));
+                s.setId(target);
+                s.setStatus(statuses[rnd.nextInt(statuses.length)]);
+                manager.updateSubtask(s);
+                expected.updateSubtask(new Subtask(s));
+            } else {
+                Subtask s = new Subtask("S" + i, "d", epics.get(rnd.nextInt(epics.size())));
+                s.setStatus(statuses[rnd.nextInt(statuses.length)]);
+                manager.addSubtask(s);
+                expected.addSubtask(new Subtask(s));
+                subtasks.add(s.getId());
+            }
+        }
+        for (TaskStatus status : statuses) {
+            assertEquals(expected.getSubtasksByStatus(status), manager.getSubtasksByStatus(status), status.name());
+            assertEquals(expected.getSubtasksByStatus(status).size(),
+                    (int) manager.countByStatus(TaskType.SUBTASK).get(status), status.name());
+        }
+    }
+
+    @Test
+    void searchIndexFollowsRowsAndTheirReuse() {
+        Epic e = new Epic("Ремонт", "кухня");
+        manager.addEpic(e);
+        Subtask s = new Subtask("Купить краску", "для кухни", e.getId());
+        manager.addSubtask(s);
+        Task t = new Task("Купить молоко", "в магазине");
+        manager.addTask(t);
+
+        assertEquals(List.of(s, t), manager.search("купить", 10));
+        assertEquals(List.of(e, s), manager.search("кух*", 10), "Название весит больше описания");
+        assertTrue(manager.getHistory().isEmpty(), "Поиск не попадает в историю");
+
+        t.setName("Купить хлеб");
+        manager.updateTask(t);
+        assertTrue(manager.search("молоко", 10).isEmpty());
+        Epic rename = new Epic("Покраска", "стен");
+        rename.setId(e.getId());
+        manager.updateEpic(rename);
+        assertEquals(List.of(e), manager.search("покраска", 10));
+        assertTrue(manager.search("ремонт", 10).isEmpty());
+
+        manager.deleteEpic(e.getId());
+        assertTrue(manager.search("краску", 10).isEmpty(), "Подзадачи удалённого эпика уходят из индекса");
+        // строка удалённой подзадачи достаётся новой задаче вместе с новым текстом
+        Task reused = new Task("Полить цветы", "");
+        manager.addTask(reused);
+        assertEquals(List.of(reused), manager.search("цветы", 10));
+        assertEquals(List.of(t), manager.search("купить", 10));
+    }
+
+    @Test
+    void prioritizedOrderSurvivesReschedulesAndDeletes() {
+        java.util.Random rnd = new java.util.Random(11);
+        InMemoryTaskManager expected = new InMemoryTaskManager();
+        LocalDateTime base = LocalDateTime.of(2025, 3, 1, 0, 0);
+        List<Integer> ids = new java.util.ArrayList<>();
+        for (int i = 0; i < 3_000; i++) {
+            int action = rnd.nextInt(4);
+            if (action == 0 && !ids.isEmpty()) {
+                int victim = ids.remove(rnd.nextInt(ids.size()));
+                manager.deleteTask(victim);
+                expected.deleteTask(victim);
+                continue;
+            }
+            Task t = new Task("T" + i, "d");
+            // пересечения не проверяются: у задач только начало, без длительности
+            if (rnd.nextInt(5) > 0) t.setStartTime(base.plusMinutes(rnd.nextInt(500)));
+            if (action == 1 && !ids.isEmpty()) {
+                t.setId(ids.get(rnd.nextInt(ids.size())));
+                manager.updateTask(t);
+                expected.updateTask(new Task(t));
+            } else {
+                manager.addTask(t);
+                expected.addTask(new Task(t));
+                ids.add(t.getId());
+            }
+        }
+        assertEquals(expected.getPrioritizedTasks(), manager.getPrioritizedTasks());
+        assertEquals(expected.getPrioritizedTasks(base.plusMinutes(100), base.plusMinutes(200), 0),
+                manager.getPrioritizedTasks(base.plusMinutes(100), base.plusMinutes(200), 0));
+
+        List<Task> paged = new java.util.ArrayList<>();
+        List<Task> page = manager.getPrioritizedPage(null, 0, 37);
+        while (!page.isEmpty()) {
+            paged.addAll(page);
+            Task last = page.get(page.size() - 1);
+            page = manager.getPrioritizedPage(last.getStartTime().orElseThrow(), last.getId(), 37);
+        }
+        assertEquals(expected.getPrioritizedTasks(), paged, "Страницы по курсору складываются в полный порядок");
+    }
+}
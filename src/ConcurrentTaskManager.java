@@ -0,0 +1,222 @@
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Потокобезопасная обёртка над менеджером. Чтения идут параллельно под read-блокировкой,
+ * изменения — целиком под write-блокировкой, поэтому связи эпиков и подзадач меняются атомарно.
+ * История просмотров, которую пишут чтения по id, синхронизирована отдельно.
+ */
+public class ConcurrentTaskManager implements TaskManager {
+
+    private final TaskManager delegate;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Lock readLock = lock.readLock();
+    private final Lock writeLock = lock.writeLock();
+
+    public ConcurrentTaskManager(TaskManager delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        write(() -> delegate.addTask(task));
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        write(() -> delegate.addEpic(epic));
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        write(() -> delegate.addSubtask(subtask));
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return read(delegate::getAllTasks);
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return read(delegate::getAllEpics);
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return read(delegate::getAllSubtasks);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return read(() -> delegate.getSubtasksByStatus(status));
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return read(() -> delegate.getEpicSubtasks(epicId));
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return read(() -> delegate.search(query, limit));
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return read(() -> delegate.getTaskById(id));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return read(() -> delegate.getEpicById(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return read(() -> delegate.getSubtaskById(id));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> delegate.updateTask(task));
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> delegate.updateEpic(epic));
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> delegate.updateSubtask(subtask));
+    }
+
+    @Override
+    public Task deleteTask(int id) {
+        return write(() -> delegate.deleteTask(id));
+    }
+
+    @Override
+    public Epic deleteEpic(int id) {
+        return write(() -> delegate.deleteEpic(id));
+    }
+
+    @Override
+    public Subtask deleteSubtask(int id) {
+        return write(() -> delegate.deleteSubtask(id));
+    }
+
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        write(() -> delegate.applyBatch(batch));
+    }
+
+    // буфер событий потокобезопасен сам, подписка и чтение не берут блокировку менеджера
+    @Override
+    public ChangeFeed getChangeFeed() {
+        return delegate.getChangeFeed();
+    }
+
+    @Override
+    public Task peekTask(int id) {
+        return read(() -> delegate.peekTask(id));
+    }
+
+    @Override
+    public Epic peekEpic(int id) {
+        return read(() -> delegate.peekEpic(id));
+    }
+
+    @Override
+    public Subtask peekSubtask(int id) {
+        return read(() -> delegate.peekSubtask(id));
+    }
+
+    @Override
+    public Task getById(int id) {
+        return read(() -> delegate.getById(id));
+    }
+
+    @Override
+    public TaskType typeOf(int id) {
+        return read(() -> delegate.typeOf(id));
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return read(delegate::getHistory);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return read(delegate::getPrioritizedTasks);
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return read(() -> delegate.getPrioritizedTasks(from, to, limit));
+    }
+
+    @Override
+    public Optional<Task> getActiveAt(LocalDateTime instant) {
+        return read(() -> delegate.getActiveAt(instant));
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return read(() -> delegate.getTasksPage(afterId, limit));
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return read(() -> delegate.getEpicsPage(afterId, limit));
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return read(() -> delegate.getSubtasksPage(afterId, limit));
+    }
+
+    @Override
+    public List<Task> getHistoryPage(int afterId, int limit) {
+        return read(() -> delegate.getHistoryPage(afterId, limit));
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        return read(() -> delegate.getPrioritizedPage(afterStart, afterId, limit));
+    }
+
+    private <T> T read(Supplier<T> action) {
+        readLock.lock();
+        try {
+            return action.get();
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // подписчиков BLOCK пишущий ждёт уже без блокировки (см. ChangeFeed.afterUnlock)
+    private <T> T write(Supplier<T> action) {
+        return delegate.getChangeFeed().afterUnlock(() -> {
+            writeLock.lock();
+            try {
+                return action.get();
+            } finally {
+                writeLock.unlock();
+            }
+        });
+    }
+}
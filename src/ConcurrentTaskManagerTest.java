@@ -0,0 +1,99 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConcurrentTaskManagerTest extends TaskManagerBaseTest<ConcurrentTaskManager> {
+
+    @Override
+    protected ConcurrentTaskManager createManager() {
+        return new ConcurrentTaskManager(new InMemoryTaskManager());
+    }
+
+    @Test
+    void blockingSubscriberCanReadManagerWhileWriterWaits() throws Exception {
+        ChangeFeed.Subscription feed = manager.getChangeFeed().subscribe(ChangeFeed.Overflow.BLOCK);
+        int total = ChangeFeed.DEFAULT_CAPACITY + 100;
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < total; i++) {
+                manager.addTask(new Task("T" + i, "d"));
+            }
+        });
+        writer.start();
+        // писатель упирается в полный буфер; подписчик начинает читать только теперь
+        for (int i = 0; i < 500 && feed.getLag() < ChangeFeed.DEFAULT_CAPACITY; i++) {
+            Thread.sleep(10);
+        }
+        for (int i = 0; i < total; i++) {
+            ChangeEvent event = feed.poll(5, java.util.concurrent.TimeUnit.SECONDS);
+            assertNotNull(event, "Событие №" + (i + 1) + " не пришло: писатель и подписчик ждут друг друга");
+            assertNotNull(manager.getById(event.id()), "Подписчик читает менеджер при обработке события");
+        }
+        writer.join(5_000);
+        assertFalse(writer.isAlive());
+        assertEquals(0, feed.getDropped());
+        feed.close();
+    }
+
+    @Test
+    void concurrentWritersKeepEpicInvariants() throws Exception {
+        // Параллельные добавления, обновления и чтения не ломают связи эпиков и подзадач
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        int threads = 8;
+        int perThread = 500;
+        CountDownLatch start = new CountDownLatch(1);
+        ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            Thread w = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) {
+                        Subtask s = new Subtask("S", "d", e.getId());
+                        manager.addSubtask(s);
+                        s.setStatus(TaskStatus.DONE);
+                        manager.updateSubtask(s);
+                        manager.getSubtaskById(s.getId());
+                        manager.getAllSubtasks();
+                        manager.getHistory();
+                        if (i % 5 == 0) {
+                            manager.deleteSubtask(s.getId());
+                        }
+                    }
+                } catch (Throwable ex) {
+                    errors.add(ex);
+                }
+            });
+            workers.add(w);
+            w.start();
+        }
+        start.countDown();
+        for (Thread w : workers) {
+            w.join();
+        }
+
+        assertTrue(errors.isEmpty(), "Ошибки в потоках: " + errors);
+        List<Subtask> all = manager.getAllSubtasks();
+        Set<Integer> ids = new HashSet<>();
+        all.forEach(s -> ids.add(s.getId()));
+        assertEquals(threads * perThread * 4 / 5, all.size());
+        assertEquals(all.size(), ids.size(), "id должны быть уникальны");
+        Epic epic = manager.getEpicById(e.getId());
+        assertEquals(ids, new HashSet<>(epic.getSubtaskIds()), "Эпик знает ровно свои подзадачи");
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(all.size() + 1, manager.getHistory().size());
+    }
+
+    @Test
+    void managersProvideConcurrentManager() {
+        assertTrue(Managers.getConcurrent() instanceof ConcurrentTaskManager);
+    }
+}
@@ -0,0 +1,8 @@
+public enum Durability {
+    // не ждать записи на диск
+    ASYNC,
+    // ждать, пока пакет будет записан в файл
+    WRITE,
+    // ждать записи и FileChannel.force
+    FSYNC
+}
@@ -0,0 +1,42 @@
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Подмена файла, переживающая сбой питания: содержимое временного файла сбрасывается на диск
+ * до переименования, а каталог — после, иначе после сбоя на месте файла может оказаться
+ * старая версия или пустой файл.
+ */
+final class DurableFiles {
+
+    private DurableFiles() {
+    }
+
+    /**
+     * Атомарно заменяет target файлом tmp; по возвращении новая версия на диске.
+     */
+    static void replace(Path tmp, Path target) throws IOException {
+        force(tmp);
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory(target.toAbsolutePath().getParent());
+    }
+
+    static void force(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+    }
+
+    static void forceDirectory(Path dir) throws IOException {
+        if (dir == null) return;
+        try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            // не все платформы дают открыть каталог (Windows); там переименование уже надёжно
+            if (!System.getProperty("os.name", "").startsWith("Windows")) throw e;
+        }
+    }
+}
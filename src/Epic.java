@@ -1,82 +1,195 @@
-import java.time.Duration;
-import java.time.LocalDateTime;
-import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.IntFunction;
 
 public class Epic extends Task {
-    private final List<Integer> subtaskIds = new java.util.ArrayList<>();
+    // порядок добавления сохраняется, добавление и удаление — O(1); в JSON — массив id.
+    // Копии эпика разделяют множество, пока одна из них не изменит его (см. ownSubtaskIds)
+    private LinkedIntSet subtaskIds = new LinkedIntSet();
 
-    private Duration calcDuration;
-    private LocalDateTime calcStartTime;
-    private LocalDateTime calcEndTime;
+    // рассчитываются по подзадачам; в минутах, как и время задачи (в JSON — calcStartTime и т. д.)
+    private transient long calcDurationMinutes = UNSET;
+    private transient long calcStartMinute = UNSET;
+    private transient long calcEndMinute = UNSET;
+
+    // transient: Gson создаёт эпик без конструктора и не должен видеть агрегаты в JSON
+    private transient Aggregates aggregates;
+
+    // вклад подзадачи на момент последнего учёта — чтобы вычесть его при изменении
+    private record Contribution(TaskStatus status, long minutes, long start, long end) {
+    }
+
+    /**
+     * Счётчики статусов, сумма длительностей и мультимножества начал и концов подзадач.
+     */
+    private static final class Aggregates {
+        final IntObjectMap<Contribution> contributions = new IntObjectMap<>();
+        final int[] statusCounts = new int[TaskStatus.values().length];
+        long durationMinutes;
+        int withDuration;
+        final TreeMap<Long, Integer> starts = new TreeMap<>();
+        final TreeMap<Long, Integer> ends = new TreeMap<>();
+
+        void add(int id, Subtask s) {
+            // статус может быть null у подзадачи из JSON без поля status — считаем её новой
+            Contribution c = new Contribution(s.getStatus() == null ? TaskStatus.NEW : s.getStatus(),
+                    s.getDurationMinutes(), s.getStartMinute(), s.getEndMinute());
+            contributions.put(id, c);
+            statusCounts[c.status().ordinal()]++;
+            if (c.minutes() != UNSET) {
+                durationMinutes += c.minutes();
+                withDuration++;
+            }
+            if (c.start() != UNSET) starts.merge(c.start(), 1, Integer::sum);
+            if (c.end() != UNSET) ends.merge(c.end(), 1, Integer::sum);
+        }
+
+        boolean remove(int id) {
+            Contribution c = contributions.remove(id);
+            if (c == null) return false;
+            statusCounts[c.status().ordinal()]--;
+            if (c.minutes() != UNSET) {
+                durationMinutes -= c.minutes();
+                withDuration--;
+            }
+            if (c.start() != UNSET) decrement(starts, c.start());
+            if (c.end() != UNSET) decrement(ends, c.end());
+            return true;
+        }
+
+        private static void decrement(TreeMap<Long, Integer> multiset, long key) {
+            multiset.computeIfPresent(key, (k, n) -> n == 1 ? null : n - 1);
+        }
+    }
 
     public Epic(String name, String description) {
         super(name, description);
     }
 
+    // см. Task(String, String, TaskStatus)
+    Epic(String name, String description, TaskStatus status) {
+        super(name, description, status);
+    }
+
+    /**
+     * Копия вместе со списком подзадач и рассчитанными по ним временем и длительностью — O(1):
+     * список подзадач общий с оригиналом, копию себе делает тот, кто первым его изменит.
+     */
+    public Epic(Epic other) {
+        super(other);
+        this.subtaskIds = other.subtaskIds.share();
+        this.calcDurationMinutes = other.calcDurationMinutes;
+        this.calcStartMinute = other.calcStartMinute;
+        this.calcEndMinute = other.calcEndMinute;
+    }
+
     public void addSubtask(int id) {
-        subtaskIds.add(id);
+        if (!subtaskIds.contains(id)) ownSubtaskIds().add(id);
     }
 
     public void removeSubtask(int id) {
-        subtaskIds.remove((Integer) id);
+        if (subtaskIds.contains(id)) ownSubtaskIds().remove(id);
+        if (aggregates != null && aggregates.remove(id)) {
+            refreshTimes();
+        }
     }
 
-    public List<Integer> getSubtaskIds() {
+    // разделённое с копиями множество перед изменением копируется: O(k) один раз после копии эпика
+    private LinkedIntSet ownSubtaskIds() {
+        if (subtaskIds.isShared()) subtaskIds = new LinkedIntSet(subtaskIds);
         return subtaskIds;
     }
 
-    void recalcTimes(java.util.Map<Integer, Subtask> allSubtasks) {
-        if (subtaskIds.isEmpty()) {
-            calcDuration = null;
-            calcStartTime = null;
-            calcEndTime = null;
-            return;
+    /**
+     * Неизменяемое представление без копирования, в порядке добавления подзадач.
+     */
+    public List<Integer> getSubtaskIds() {
+        return subtaskIds.asList();
+    }
+
+    /**
+     * Полный пересчёт агрегатов по списку подзадач — при добавлении эпика с готовым списком.
+     */
+    void recalcTimes(IntFunction<Subtask> subtaskById) {
+        Aggregates a = new Aggregates();
+        subtaskIds.forEach(id -> {
+            Subtask s = subtaskById.apply(id);
+            if (s != null) {
+                a.add(id, s);
+            }
+        });
+        aggregates = a;
+        refreshTimes();
+    }
+
+    /**
+     * Учитывает новое состояние подзадачи вместо прежнего: O(log k).
+     */
+    void applySubtask(Subtask subtask) {
+        Aggregates a = aggregates();
+        a.remove(subtask.getId());
+        a.add(subtask.getId(), subtask);
+        refreshTimes();
+    }
+
+    /**
+     * Очищает список подзадач вместе с агрегатами.
+     */
+    void clearSubtasks() {
+        subtaskIds = new LinkedIntSet();
+        aggregates = new Aggregates();
+        refreshTimes();
+    }
+
+    /**
+     * Статус по счётчикам статусов подзадач; без подзадач — NEW.
+     */
+    TaskStatus aggregatedStatus() {
+        Aggregates a = aggregates();
+        int newCount = a.statusCounts[TaskStatus.NEW.ordinal()];
+        int doneCount = a.statusCounts[TaskStatus.DONE.ordinal()];
+        int total = a.contributions.size();
+        if (total == 0 || newCount == total) return TaskStatus.NEW;
+        if (doneCount == total) return TaskStatus.DONE;
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    private Aggregates aggregates() {
+        if (aggregates == null) {
+            aggregates = new Aggregates();
         }
+        return aggregates;
+    }
+
+    private void refreshTimes() {
+        Aggregates a = aggregates();
+        calcDurationMinutes = a.withDuration == 0 ? UNSET : a.durationMinutes;
+        calcStartMinute = a.starts.isEmpty() ? UNSET : a.starts.firstKey();
+        calcEndMinute = a.ends.isEmpty() ? UNSET : a.ends.lastKey();
+    }
 
-        long minutes = subtaskIds.stream()
-                .map(allSubtasks::get)
-                .filter(java.util.Objects::nonNull)
-                .map(Subtask::getDuration)
-                .flatMap(Optional::stream)
-                .mapToLong(Duration::toMinutes)
-                .sum();
-        boolean allWithoutDuration = subtaskIds.stream()
-                .map(allSubtasks::get)
-                .filter(java.util.Objects::nonNull)
-                .map(Subtask::getDuration)
-                .allMatch(Optional::isEmpty);
-        calcDuration = allWithoutDuration ? null : Duration.ofMinutes(minutes);
-
-        calcStartTime = subtaskIds.stream()
-                .map(allSubtasks::get)
-                .filter(java.util.Objects::nonNull)
-                .map(Subtask::getStartTime).flatMap(Optional::stream)
-                .min(Comparator.naturalOrder())
-                .orElse(null);
-
-        calcEndTime = subtaskIds.stream()
-                .map(allSubtasks::get)
-                .filter(java.util.Objects::nonNull)
-                .map(Subtask::getEndTime).flatMap(Optional::stream)
-                .max(Comparator.naturalOrder())
-                .orElse(null);
+    /**
+     * Рассчитанные значения как есть — для чтения эпика из JSON.
+     */
+    void setCalculatedTimes(long startMinute, long endMinute, long durationMinutes) {
+        this.calcStartMinute = startMinute;
+        this.calcEndMinute = endMinute;
+        this.calcDurationMinutes = durationMinutes;
     }
 
     @Override
-    public Optional<Duration> getDuration() {
-        return Optional.ofNullable(calcDuration);
+    public long getDurationMinutes() {
+        return calcDurationMinutes;
     }
 
     @Override
-    public Optional<LocalDateTime> getStartTime() {
-        return Optional.ofNullable(calcStartTime);
+    public long getStartMinute() {
+        return calcStartMinute;
     }
 
     @Override
-    public Optional<LocalDateTime> getEndTime() {
-        return Optional.ofNullable(calcEndTime);
+    public long getEndMinute() {
+        return calcEndMinute;
     }
 
     @Override
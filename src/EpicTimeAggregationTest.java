@@ -3,6 +3,9 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -53,4 +56,80 @@ public class EpicTimeAggregationTest {
         assertTrue(got.getEndTime().isEmpty());
         assertTrue(got.getDuration().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void aggregatesFollowUpdatesAndDeletes() {
+        // Подзадача изменена на месте: из агрегатов вычитается её прежний вклад
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        Subtask s1 = new Subtask("S1", "d", e.getId());
+        s1.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        s1.setDuration(Duration.ofMinutes(30));
+        manager.addSubtask(s1);
+        Subtask s2 = new Subtask("S2", "d", e.getId());
+        s2.setStartTime(LocalDateTime.of(2025, 1, 2, 10, 0));
+        s2.setDuration(Duration.ofMinutes(60));
+        manager.addSubtask(s2);
+        Subtask s3 = new Subtask("S3", "d", e.getId());
+        manager.addSubtask(s3);
+
+        s2.setStatus(TaskStatus.DONE);
+        s2.setStartTime(LocalDateTime.of(2025, 1, 1, 9, 0));
+        manager.updateSubtask(s2);
+        Epic got = manager.getEpicById(e.getId());
+        assertEquals(TaskStatus.IN_PROGRESS, got.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 9, 0), got.getStartTime().orElseThrow());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 30), got.getEndTime().orElseThrow());
+        assertEquals(Duration.ofMinutes(90), got.getDuration().orElseThrow());
+
+        manager.deleteSubtask(s1.getId());
+        manager.deleteSubtask(s3.getId());
+        got = manager.getEpicById(e.getId());
+        assertEquals(TaskStatus.DONE, got.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 10, 0), got.getEndTime().orElseThrow());
+        assertEquals(Duration.ofMinutes(60), got.getDuration().orElseThrow());
+
+        manager.deleteSubtask(s2.getId());
+        got = manager.getEpicById(e.getId());
+        assertEquals(TaskStatus.NEW, got.getStatus());
+        assertTrue(got.getStartTime().isEmpty());
+        assertTrue(got.getDuration().isEmpty());
+    }
+
+    @Test
+    void incrementalAggregatesMatchFullRecalculation() {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        Random rnd = new Random(3);
+        List<Subtask> alive = new ArrayList<>();
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 0, 0);
+        for (int i = 0; i < 300; i++) {
+            int op = rnd.nextInt(3);
+            if (op == 0 || alive.isEmpty()) {
+                Subtask s = new Subtask("S" + i, "d", e.getId());
+                s.setStartTime(base.plusHours(i));
+                s.setDuration(rnd.nextBoolean() ? Duration.ofMinutes(1 + rnd.nextInt(50)) : null);
+                s.setStatus(TaskStatus.values()[rnd.nextInt(3)]);
+                manager.addSubtask(s);
+                alive.add(s);
+            } else if (op == 1) {
+                Subtask s = alive.get(rnd.nextInt(alive.size()));
+                s.setStatus(TaskStatus.values()[rnd.nextInt(3)]);
+                s.setDuration(rnd.nextBoolean() ? Duration.ofMinutes(1 + rnd.nextInt(50)) : null);
+                manager.updateSubtask(s);
+            } else {
+                Subtask s = alive.remove(rnd.nextInt(alive.size()));
+                manager.deleteSubtask(s.getId());
+            }
+            Epic got = manager.getEpicById(e.getId());
+            Epic expected = new Epic(got);
+            IntObjectMap<Subtask> byId = new IntObjectMap<>();
+            alive.forEach(s -> byId.put(s.getId(), s));
+            expected.recalcTimes(byId::get);
+            assertEquals(expected.getStartTime(), got.getStartTime());
+            assertEquals(expected.getEndTime(), got.getEndTime());
+            assertEquals(expected.getDuration(), got.getDuration());
+            assertEquals(expected.aggregatedStatus(), got.getStatus());
+        }
+    }
+}
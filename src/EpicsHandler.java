@@ -3,6 +3,7 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager manager;
@@ -20,7 +21,16 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
 
             switch (method) {
                 case "GET" -> {
-                    if (id == null) sendOk(h, manager.getAllEpics());
+                    if (h.getRequestURI().getPath().endsWith("/subtasks")) {
+                        // подзадачи эпика без записи в историю
+                        if (id == null) sendError(h, "Для подзадач Эпика необходим №");
+                        else if (manager.peekEpic(id) == null) sendNotFound(h, "Эпик не найден: №" + id);
+                        else sendOk(h, manager.getEpicSubtasks(id));
+                    } else if (id == null && isPageRequest(parseQuery(h.getRequestURI().getQuery()))) {
+                        Map<String, String> params = parseQuery(h.getRequestURI().getQuery());
+                        int limit = parseLimit(params);
+                        sendIdPage(h, manager.getEpicsPage(parseAfter(params), limit), limit);
+                    } else if (id == null) sendOk(h, manager.getAllEpics());
                     else {
                         Epic e = manager.getEpicById(id);
                         if (e == null) sendNotFound(h, "Эпик не найден: №" + id);
@@ -55,16 +65,18 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
                         sendError(h, "Для удаления Эпика необходим №");
                         return;
                     }
-                    Epic e = manager.getEpicById(id);
-                    if (e == null) {
+                    // удаление и проверка существования — одна операция, без записи в историю
+                    if (manager.deleteEpic(id) == null) {
                         sendNotFound(h, "Эпик не найден: №" + id);
                         return;
                     }
-                    manager.deleteEpic(id);
                     sendCreated(h);
                 }
                 default -> sendError(h, "Неподдерживаемый метод: " + method);
             }
+        } catch (NumberFormatException badPage) {
+            // limit/after страницы
+            sendBadRequest(h, badPage.getMessage());
         } catch (Exception ex) {
             sendError(h, "Внутренняя ошибка: " + ex.getMessage());
         }
@@ -2,177 +2,541 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
-public class FileBackedTaskManager extends InMemoryTaskManager {
+public class FileBackedTaskManager extends InMemoryTaskManager implements AutoCloseable {
 
     private static final String HEADER = "id,type,name,status,description,epic,start,durationMinutes";
+    private static final String JOURNAL_MARK = "#journal,";
+    private static final char BATCH_SEPARATOR = '\u001e';
     private final File file;
+    // null — режим полной перезаписи файла при каждом изменении
+    private final TaskJournal journal;
+    private final SnapshotFormat format;
     private boolean suppressSave = false;
 
+    public record CompactionStats(long compactions, long failures, long lastDurationMillis,
+                                  long totalDurationMillis, long bytesReclaimed) {
+    }
+
+    // порядок захвата: compactionLock, затем this
+    private final Object compactionLock = new Object();
+    private final AtomicBoolean compactionQueued = new AtomicBoolean();
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong compactionFailures = new AtomicLong();
+    private final AtomicLong lastCompactionMillis = new AtomicLong();
+    private final AtomicLong totalCompactionMillis = new AtomicLong();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+    private ScheduledExecutorService compactor;
+    private long maxJournalBytes;
+
     public FileBackedTaskManager(File file) {
+        this(file, false);
+    }
+
+    public FileBackedTaskManager(File file, boolean journaled) {
+        this(file, journaled ? Durability.WRITE : null);
+    }
+
+    /**
+     * Режим журнала с записью через отдельный поток; durability == null — режим полной перезаписи.
+     */
+    public FileBackedTaskManager(File file, Durability durability) {
+        this(file, durability, SnapshotFormat.CSV);
+    }
+
+    public FileBackedTaskManager(File file, Durability durability, SnapshotFormat format) {
         this.file = file;
+        this.journal = durability == null ? null : new TaskJournal(new File(file.getPath() + ".journal"), durability);
+        this.format = format;
     }
 
     @Override
     public void addTask(Task task) {
-        super.addTask(task);
-        save();
+        mutate(() -> super.addTask(task), TaskJournal.ADD, () -> toCsv(task));
     }
 
     @Override
     public void addEpic(Epic epic) {
-        super.addEpic(epic);
-        save();
+        mutate(() -> super.addEpic(epic), TaskJournal.ADD, () -> toCsv(epic));
     }
 
     @Override
     public void addSubtask(Subtask subtask) {
-        super.addSubtask(subtask);
-        save();
+        mutate(() -> super.addSubtask(subtask), TaskJournal.ADD, () -> toCsv(subtask));
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        mutate(() -> super.updateTask(task), TaskJournal.UPDATE, () -> toCsv(task));
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        super.updateEpic(epic);
-        save();
+        mutate(() -> super.updateEpic(epic), TaskJournal.UPDATE, () -> toCsv(epic));
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        super.updateSubtask(subtask);
-        save();
+        mutate(() -> super.updateSubtask(subtask), TaskJournal.UPDATE, () -> toCsv(subtask));
     }
 
     @Override
-    public void deleteTask(int id) {
-        super.deleteTask(id);
-        save();
+    public Task deleteTask(int id) {
+        return delete(() -> super.deleteTask(id), () -> id + ",TASK");
     }
 
     @Override
-    public void deleteEpic(int id) {
-        super.deleteEpic(id);
-        save();
+    public Epic deleteEpic(int id) {
+        return delete(() -> super.deleteEpic(id), () -> id + ",EPIC");
     }
 
     @Override
-    public void deleteSubtask(int id) {
-        super.deleteSubtask(id);
-        save();
+    public Subtask deleteSubtask(int id) {
+        return delete(() -> super.deleteSubtask(id), () -> id + ",SUBTASK");
+    }
+
+    /**
+     * Пакет сохраняется один раз: одной записью журнала или одной перезаписью файла.
+     */
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        mutate(() -> {
+            boolean outer = suppressSave;
+            suppressSave = true;
+            try {
+                super.applyBatch(batch);
+            } finally {
+                suppressSave = outer;
+            }
+        }, TaskJournal.BATCH, () -> batchPayload(batch));
+    }
+
+    public boolean isJournaled() {
+        return journal != null;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return format;
     }
 
     public static FileBackedTaskManager loadFromFile(File file) {
-        FileBackedTaskManager manager = new FileBackedTaskManager(file);
+        return loadFromFile(file, false);
+    }
+
+    /**
+     * Загружает снапшот и доигрывает поверх него записи журнала, сделанные после снапшота.
+     */
+    public static FileBackedTaskManager loadFromFile(File file, boolean journaled) {
+        return loadFromFile(file, journaled ? Durability.WRITE : null);
+    }
+
+    /**
+     * Формат снапшота определяется по содержимому файла и сохраняется для последующих записей.
+     */
+    public static FileBackedTaskManager loadFromFile(File file, Durability durability) {
+        return loadFromFile(file, durability,
+                BinarySnapshot.isBinary(file) ? SnapshotFormat.BINARY : SnapshotFormat.CSV);
+    }
+
+    /**
+     * Читает снапшот любого формата, дальнейшие снапшоты пишет в формате format.
+     */
+    public static FileBackedTaskManager loadFromFile(File file, Durability durability, SnapshotFormat format) {
+        FileBackedTaskManager manager = new FileBackedTaskManager(file, durability, format);
+        TaskJournal log = new TaskJournal(new File(file.getPath() + ".journal"));
 
-        if (!file.exists()) {
+        if (!file.exists() && !log.getFile().exists()) {
             return manager;
         }
 
+        manager.suppressSave = true;
         try {
-            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
-            if (lines.isEmpty()) {
-                return manager;
-            }
-
-            manager.suppressSave = true;
-
+            long snapshotSeq = 0;
             List<Task> tasks = new ArrayList<>();
             List<Epic> epics = new ArrayList<>();
             List<Subtask> subtasks = new ArrayList<>();
 
-            for (int i = 1; i < lines.size(); i++) {
-                String line = lines.get(i).trim();
-                if (line.isEmpty()) continue;
+            if (BinarySnapshot.isBinary(file)) {
+                BinarySnapshot.Contents contents = BinarySnapshot.read(file.toPath());
+                snapshotSeq = contents.journalSeq();
+                tasks = contents.tasks();
+                epics = contents.epics();
+                subtasks = contents.subtasks();
+            } else {
+                List<String> lines = file.exists()
+                        ? Files.readAllLines(file.toPath(), StandardCharsets.UTF_8)
+                        : List.of();
 
-                String[] p = line.split(",", -1);
-                int id = Integer.parseInt(p[0]);
-                String type = p[1];
-                String name = p[2];
-                TaskStatus status = TaskStatus.valueOf(p[3]);
-                String description = p[4];
-                String epicStr = (p.length > 5) ? p[5] : "";
-                String startStr = (p.length > 6) ? p[6] : "";
-                String durStr = (p.length > 7) ? p[7] : "";
-
-                LocalDateTime start = (startStr == null || startStr.isEmpty()) ? null : LocalDateTime.parse(startStr);
-                Duration duration = (durStr == null || durStr.isEmpty()) ? null : Duration.ofMinutes(Long.parseLong(durStr));
-
-                if ("TASK".equals(type)) {
-                    Task t = new Task(name, description);
-                    t.setId(id);
-                    t.setStatus(status);
-                    t.setStartTime(start);
-                    t.setDuration(duration);
-                    tasks.add(t);
-                } else if ("EPIC".equals(type)) {
-                    Epic e = new Epic(name, description);
-                    e.setId(id);
-                    e.setStatus(status);
-                    epics.add(e);
-                } else if ("SUBTASK".equals(type)) {
-                    int epicId = epicStr.isEmpty() ? 0 : Integer.parseInt(epicStr);
-                    Subtask s = new Subtask(name, description, epicId);
-                    s.setId(id);
-                    s.setStatus(status);
-                    s.setStartTime(start);
-                    s.setDuration(duration);
-                    subtasks.add(s);
+                for (int i = 1; i < lines.size(); i++) {
+                    String line = lines.get(i).trim();
+                    if (line.isEmpty()) continue;
+                    if (line.startsWith(JOURNAL_MARK)) {
+                        snapshotSeq = Long.parseLong(line.substring(JOURNAL_MARK.length()));
+                        continue;
+                    }
+
+                    Task t = fromCsv(line);
+                    if (t instanceof Epic e) {
+                        epics.add(e);
+                    } else if (t instanceof Subtask s) {
+                        subtasks.add(s);
+                    } else if (t != null) {
+                        tasks.add(t);
+                    }
                 }
             }
 
-            for (Task t : tasks) {
-                manager.addTask(t);
-            }
-            for (Epic e : epics) {
-                manager.addEpic(e);
+            manager.restore(tasks, epics, subtasks, false);
+
+            for (TaskJournal.Record r : log.readAfter(snapshotSeq)) {
+                manager.replay(r);
             }
-            for (Subtask s : subtasks) {
-                manager.addSubtask(s);
+            if (manager.journal != null) {
+                manager.journal.open(log.getSeq());
             }
-
-            return manager;
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка загрузки из файла: " + file, e);
         } finally {
             manager.suppressSave = false;
-            manager.save();
         }
+        manager.save();
+        if (manager.journal == null) {
+            // журнал целиком вошёл в снапшот
+            try {
+                Files.deleteIfExists(log.getFile().toPath());
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка удаления журнала: " + log.getFile(), e);
+            }
+        }
+        return manager;
     }
 
     protected void save() {
         if (suppressSave) return;
+        if (journal != null && journal.isOpen()) {
+            compact();
+            return;
+        }
 
-        try {
-            StringBuilder sb = new StringBuilder();
-            sb.append(HEADER).append('\n');
-            for (Task t : getAllTasks()) {
-                sb.append(toCsv(t)).append('\n');
+        synchronized (this) {
+            List<Task> view = new ArrayList<>(getAllTasks());
+            view.addAll(getAllEpics());
+            view.addAll(getAllSubtasks());
+            writeSnapshot(view, journal == null ? 0 : journal.getSeq());
+            if (journal != null) {
+                // снапшот уже содержит всё до journal.getSeq(), старые записи больше не нужны
+                journal.truncate();
+                journal.open(journal.getSeq());
             }
-            for (Epic e : getAllEpics()) {
-                sb.append(toCsv(e)).append('\n');
+        }
+    }
+
+    /**
+     * Пишет свежий снапшот и отрезает вошедшую в него часть журнала. Запросы блокируются
+     * только на время копирования состояния и обрезки журнала, но не на время записи файла.
+     */
+    public void compact() {
+        if (journal == null) {
+            save();
+            return;
+        }
+        synchronized (compactionLock) {
+            long started = System.nanoTime();
+            List<Task> view = new ArrayList<>();
+            long seq;
+            long cut;
+            synchronized (this) {
+                if (!journal.isOpen()) {
+                    save();
+                    return;
+                }
+                getAllTasks().forEach(t -> view.add(Task.copyOf(t)));
+                getAllEpics().forEach(e -> view.add(Task.copyOf(e)));
+                getAllSubtasks().forEach(s -> view.add(Task.copyOf(s)));
+                seq = journal.getSeq();
+                cut = journal.size();
             }
-            for (Subtask s : getAllSubtasks()) {
-                sb.append(toCsv(s)).append('\n');
+            writeSnapshot(view, seq);
+            synchronized (this) {
+                journal.dropPrefix(cut);
             }
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            compactions.incrementAndGet();
+            lastCompactionMillis.set(millis);
+            totalCompactionMillis.addAndGet(millis);
+            bytesReclaimed.addAndGet(cut);
+        }
+    }
 
-            Files.writeString(file.toPath(), sb.toString(), StandardCharsets.UTF_8);
+    /**
+     * Фоновое сжатие: по размеру журнала (maxJournalBytes > 0) и/или по времени (interval != null).
+     */
+    public void startCompaction(long maxJournalBytes, Duration interval) {
+        if (journal == null) {
+            throw new IllegalStateException("Сжатие доступно только в режиме журнала");
+        }
+        stopCompaction();
+        synchronized (this) {
+            this.maxJournalBytes = maxJournalBytes;
+            compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "journal-compactor");
+                t.setDaemon(true);
+                return t;
+            });
+            if (interval != null) {
+                long ms = interval.toMillis();
+                compactor.scheduleWithFixedDelay(this::compactInBackground, ms, ms, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Останавливает фоновое сжатие и дожидается завершения уже начатого.
+     */
+    public void stopCompaction() {
+        ScheduledExecutorService running;
+        synchronized (this) {
+            running = compactor;
+            compactor = null;
+        }
+        if (running == null) return;
+        running.shutdown();
+        try {
+            running.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Дожидается записи всех изменений, поставленных в очередь журнала.
+     */
+    public void flush() {
+        if (journal != null) {
+            journal.flush();
+        }
+    }
+
+    /**
+     * Останавливает фоновое сжатие и поток записи журнала, дописав очередь.
+     */
+    @Override
+    public void close() {
+        stopCompaction();
+        if (journal != null) {
+            journal.close();
+        }
+    }
+
+    public CompactionStats getCompactionStats() {
+        return new CompactionStats(compactions.get(), compactionFailures.get(), lastCompactionMillis.get(),
+                totalCompactionMillis.get(), bytesReclaimed.get());
+    }
+
+    private void compactInBackground() {
+        compactionQueued.set(false);
+        if (journal.size() == 0) return;
+        try {
+            compact();
+        } catch (ManagerSaveException e) {
+            compactionFailures.incrementAndGet();
+        }
+    }
+
+    /**
+     * Выгружает текущее состояние в CSV (формат импорта/экспорта), независимо от формата снапшотов.
+     */
+    public synchronized void exportCsv(File target) {
+        List<Task> view = new ArrayList<>(getAllTasks());
+        view.addAll(getAllEpics());
+        view.addAll(getAllSubtasks());
+        try {
+            Files.writeString(target.toPath(), csvSnapshot(view, null), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка выгрузки в файл: " + target, e);
+        }
+    }
+
+    private void writeSnapshot(List<Task> view, long seq) {
+        // в режиме журнала снапшот подменяется атомарно: при сбое остаётся старый снапшот и полный журнал
+        Path target = journal == null ? file.toPath() : Path.of(file.getPath() + ".tmp");
+        try {
+            if (format == SnapshotFormat.BINARY) {
+                BinarySnapshot.write(target, view, seq);
+            } else {
+                Files.writeString(target, csvSnapshot(view, journal == null ? null : seq), StandardCharsets.UTF_8);
+            }
+            if (journal != null) {
+                // снапшот должен быть на диске раньше, чем из журнала уйдёт покрытый им префикс
+                DurableFiles.replace(target, file.toPath());
+            }
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка сохранения в файл: " + file, e);
         }
     }
 
+    private static String csvSnapshot(List<Task> view, Long journalSeq) {
+        StringBuilder sb = new StringBuilder();
+        sb.append(HEADER).append('\n');
+        if (journalSeq != null) {
+            sb.append(JOURNAL_MARK).append(journalSeq).append('\n');
+        }
+        for (Task t : view) {
+            sb.append(toCsv(t)).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Изменение и постановка записи в журнал идут под блокировкой, ожидание записи на диск — уже без неё,
+     * чтобы параллельные изменения попадали в одну пачку.
+     */
+    private void mutate(Runnable mutation, String op, Supplier<String> payload) {
+        persist(() -> {
+            mutation.run();
+            return Boolean.TRUE;
+        }, op, payload);
+    }
+
+    // удаление несуществующего id ничего не меняет — ни записи в журнале, ни перезаписи файла
+    private <T extends Task> T delete(Supplier<T> removal, Supplier<String> payload) {
+        return persist(removal, TaskJournal.DELETE, payload);
+    }
+
+    /**
+     * Выполняет изменение и сохраняет его, если mutation вернула не null.
+     */
+    private <T> T persist(Supplier<T> mutation, String op, Supplier<String> payload) {
+        // подписчиков BLOCK пишущий ждёт после выхода из монитора (см. ChangeFeed.afterUnlock)
+        return getChangeFeed().afterUnlock(() -> persistLocked(mutation, op, payload));
+    }
+
+    private <T> T persistLocked(Supplier<T> mutation, String op, Supplier<String> payload) {
+        CompletableFuture<Void> done = null;
+        T result;
+        synchronized (this) {
+            result = mutation.get();
+            if (result == null || suppressSave) return result;
+            if (journal == null || !journal.isOpen()) {
+                // в режиме журнала первый снапшот становится его базой
+                save();
+                return result;
+            }
+            done = journal.append(op, payload.get());
+            if (compactor != null && maxJournalBytes > 0 && journal.size() >= maxJournalBytes
+                    && compactionQueued.compareAndSet(false, true)) {
+                compactor.execute(this::compactInBackground);
+            }
+        }
+        journal.await(done);
+        return result;
+    }
+
+    private void replay(TaskJournal.Record r) {
+        switch (r.op()) {
+            case TaskJournal.ADD -> {
+                Task t = fromCsv(r.payload());
+                if (t instanceof Epic e) addEpic(e);
+                else if (t instanceof Subtask s) addSubtask(s);
+                else if (t != null) addTask(t);
+            }
+            case TaskJournal.UPDATE -> {
+                Task t = fromCsv(r.payload());
+                if (t instanceof Epic e) updateEpic(e);
+                else if (t instanceof Subtask s) updateSubtask(s);
+                else if (t != null) updateTask(t);
+            }
+            case TaskJournal.BATCH -> applyBatch(batchFromPayload(r.payload()));
+            case TaskJournal.DELETE -> {
+                String[] p = r.payload().split(",", -1);
+                int id = Integer.parseInt(p[0]);
+                switch (p[1]) {
+                    case "EPIC" -> deleteEpic(id);
+                    case "SUBTASK" -> deleteSubtask(id);
+                    default -> deleteTask(id);
+                }
+            }
+            default -> throw new IllegalStateException("Неизвестная операция журнала: " + r.op());
+        }
+    }
+
+    // операции пакета в одной строке журнала: «ADD,<csv>», «UPDATE,<csv>», «DELETE,<id>» через BATCH_SEPARATOR
+    private static String batchPayload(TaskBatch batch) {
+        StringBuilder sb = new StringBuilder();
+        for (TaskBatch.Operation op : batch.getOperations()) {
+            if (!sb.isEmpty()) sb.append(BATCH_SEPARATOR);
+            sb.append(op.action()).append(',');
+            sb.append(op.task() == null ? String.valueOf(op.id()) : toCsv(op.task()));
+        }
+        return sb.toString();
+    }
+
+    private static TaskBatch batchFromPayload(String payload) {
+        TaskBatch batch = new TaskBatch();
+        for (String part : payload.split(String.valueOf(BATCH_SEPARATOR))) {
+            int comma = part.indexOf(',');
+            String rest = part.substring(comma + 1);
+            switch (TaskBatch.Action.valueOf(part.substring(0, comma))) {
+                case ADD -> batch.add(fromCsv(rest));
+                case UPDATE -> batch.update(fromCsv(rest));
+                case DELETE -> batch.delete(Integer.parseInt(rest));
+            }
+        }
+        return batch;
+    }
+
+    private static Task fromCsv(String line) {
+        String[] p = line.split(",", -1);
+        int id = Integer.parseInt(p[0]);
+        String type = p[1];
+        String name = p[2];
+        TaskStatus status = TaskStatus.valueOf(p[3]);
+        String description = p[4];
+        String epicStr = (p.length > 5) ? p[5] : "";
+        String startStr = (p.length > 6) ? p[6] : "";
+        String durStr = (p.length > 7) ? p[7] : "";
+
+        LocalDateTime start = (startStr == null || startStr.isEmpty()) ? null : LocalDateTime.parse(startStr);
+        Duration duration = (durStr == null || durStr.isEmpty()) ? null : Duration.ofMinutes(Long.parseLong(durStr));
+
+        if ("TASK".equals(type)) {
+            Task t = new Task(name, description);
+            t.setId(id);
+            t.setStatus(status);
+            t.setStartTime(start);
+            t.setDuration(duration);
+            return t;
+        } else if ("EPIC".equals(type)) {
+            Epic e = new Epic(name, description);
+            e.setId(id);
+            e.setStatus(status);
+            return e;
+        } else if ("SUBTASK".equals(type)) {
+            int epicId = epicStr.isEmpty() ? 0 : Integer.parseInt(epicStr);
+            Subtask s = new Subtask(name, description, epicId);
+            s.setId(id);
+            s.setStatus(status);
+            s.setStartTime(start);
+            s.setDuration(duration);
+            return s;
+        }
+        return null;
+    }
+
     private static String esc(String s) {
-        return (s == null) ? "" : s.replace("\n", " ");
+        return (s == null) ? "" : s.replace("\n", " ").replace(BATCH_SEPARATOR, ' ');
     }
 
     private static String toCsv(Task t) {
@@ -206,4 +570,4 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                 durationMin
         );
     }
-}
\ No newline at end of file
+}
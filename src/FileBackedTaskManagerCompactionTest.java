@@ -0,0 +1,112 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileBackedTaskManagerCompactionTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void compactWritesSnapshotAndTruncatesJournal() throws Exception {
+        File f = tempDir.resolve("store.csv").toFile();
+        File journal = new File(f.getPath() + ".journal");
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        for (int i = 0; i < 10; i++) {
+            m.addTask(new Task("T" + i, "d"));
+        }
+        long journalBytes = Files.size(journal.toPath());
+
+        m.compact();
+
+        assertEquals(0, Files.size(journal.toPath()), "Журнал должен очищаться после сжатия");
+        FileBackedTaskManager.CompactionStats stats = m.getCompactionStats();
+        assertEquals(1, stats.compactions());
+        assertEquals(journalBytes, stats.bytesReclaimed());
+        assertEquals(10, FileBackedTaskManager.loadFromFile(f, true).getAllTasks().size());
+    }
+
+    @Test
+    void writesAfterCompactionAreReplayed() {
+        // Изменения после сжатия доигрываются поверх нового снапшота ровно один раз
+        File f = tempDir.resolve("after.csv").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        Task a = new Task("A", "d");
+        m.addTask(a);
+        m.addTask(new Task("B", "d"));
+        m.compact();
+        a.setStatus(TaskStatus.DONE);
+        m.updateTask(a);
+        m.addTask(new Task("C", "d"));
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f, true);
+        assertEquals(3, copy.getAllTasks().size());
+        assertEquals(TaskStatus.DONE, copy.getTaskById(a.getId()).getStatus());
+    }
+
+    @Test
+    void sizeTriggerCompactsInBackground() throws Exception {
+        File f = tempDir.resolve("size.csv").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        m.startCompaction(256, null);
+        try {
+            for (int i = 0; i < 50; i++) {
+                m.addTask(new Task("T" + i, "d"));
+            }
+            awaitCompaction(m);
+        } finally {
+            m.close();
+        }
+        assertEquals(50, FileBackedTaskManager.loadFromFile(f, true).getAllTasks().size());
+    }
+
+    @Test
+    void timeTriggerCompactsInBackground() throws Exception {
+        File f = tempDir.resolve("time.csv").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        m.startCompaction(0, Duration.ofMillis(20));
+        try {
+            m.addTask(new Task("A", "d"));
+            m.addTask(new Task("B", "d"));
+            awaitCompaction(m);
+        } finally {
+            m.close();
+        }
+        assertEquals(2, FileBackedTaskManager.loadFromFile(f, true).getAllTasks().size());
+    }
+
+    @Test
+    void compactionRequiresJournal() {
+        FileBackedTaskManager m = new FileBackedTaskManager(tempDir.resolve("plain.csv").toFile());
+        assertThrows(IllegalStateException.class, () -> m.startCompaction(1024, null));
+    }
+
+    private static void awaitCompaction(FileBackedTaskManager m) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (m.getCompactionStats().compactions() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(m.getCompactionStats().compactions() > 0, "Фоновое сжатие должно сработать");
+    }
+
+    @Test
+    void fsyncCompactionLeavesNoTemporaryFiles() throws Exception {
+        // снапшот и журнал подменяются через сброшенные на диск временные файлы
+        File f = tempDir.resolve("fsync.csv").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, Durability.FSYNC);
+        m.addTask(new Task("A", "d"));
+        m.compact();
+        m.addTask(new Task("B", "d"));
+        m.compact();
+
+        assertFalse(new File(f.getPath() + ".tmp").exists());
+        assertFalse(new File(f.getPath() + ".journal.tmp").exists());
+        assertEquals(2, FileBackedTaskManager.loadFromFile(f, Durability.FSYNC).getAllTasks().size());
+    }
+}
@@ -0,0 +1,78 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileBackedTaskManagerDurabilityTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void concurrentWritersAreAllPersisted() throws Exception {
+        // Подтверждённые записи параллельных клиентов не теряются
+        File f = tempDir.resolve("group.csv").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, Durability.WRITE);
+        m.addTask(new Task("База", "d"));
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            int n = t;
+            Thread th = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    m.addTask(new Task("T" + n + "-" + i, "d"));
+                }
+            });
+            threads.add(th);
+            th.start();
+        }
+        for (Thread th : threads) {
+            th.join();
+        }
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f, Durability.WRITE);
+        assertEquals(401, copy.getAllTasks().size());
+        m.close();
+        copy.close();
+    }
+
+    @Test
+    void asyncWritesBecomeVisibleAfterFlush() {
+        File f = tempDir.resolve("async.csv").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, Durability.ASYNC);
+        Epic e = new Epic("E", "d");
+        m.addEpic(e);
+        for (int i = 0; i < 100; i++) {
+            m.addSubtask(new Subtask("S" + i, "d", e.getId()));
+        }
+        m.flush();
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f, Durability.ASYNC);
+        assertEquals(100, copy.getAllSubtasks().size());
+        m.close();
+        copy.close();
+    }
+
+    @Test
+    void fsyncModeRoundTrip() {
+        File f = tempDir.resolve("fsync.csv").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, Durability.FSYNC);
+        Task t = new Task("T", "d");
+        m.addTask(t);
+        t.setStatus(TaskStatus.IN_PROGRESS);
+        m.updateTask(t);
+        m.deleteTask(t.getId());
+        m.addTask(new Task("U", "d"));
+        m.close();
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f, Durability.FSYNC);
+        assertEquals(1, copy.getAllTasks().size());
+        assertEquals("U", copy.getAllTasks().get(0).getName());
+        copy.close();
+    }
+}
@@ -0,0 +1,240 @@
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileBackedTaskManagerJournalTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void mutationsAppendToJournalWithoutRewritingSnapshot() throws Exception {
+        // После первого снапшота изменения дописываются в журнал, сам снапшот не переписывается
+        File f = tempDir.resolve("store.csv").toFile();
+        File journal = new File(f.getPath() + ".journal");
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+
+        m.addTask(new Task("Первая", "d"));
+        String snapshot = Files.readString(f.toPath());
+
+        m.addTask(new Task("Вторая", "d"));
+        m.addTask(new Task("Третья", "d"));
+
+        assertEquals(snapshot, Files.readString(f.toPath()), "Снапшот не должен переписываться");
+        assertEquals(2, Files.readAllLines(journal.toPath()).size(), "Каждое изменение — одна запись журнала");
+    }
+
+    @Test
+    void loadReplaysJournalOnTopOfSnapshot() {
+        File f = tempDir.resolve("replay.csv").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+
+        Task t = new Task("T", "d");
+        m.addTask(t);
+        Epic e = new Epic("E", "d");
+        m.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        s.setStartTime(LocalDateTime.of(2025, 3, 1, 10, 0));
+        s.setDuration(Duration.ofMinutes(45));
+        m.addSubtask(s);
+        s.setStatus(TaskStatus.DONE);
+        m.updateSubtask(s);
+        t.setName("T2");
+        m.updateTask(t);
+        Task gone = new Task("Gone", "d");
+        m.addTask(gone);
+        m.deleteTask(gone.getId());
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f, true);
+
+        assertEquals(1, copy.getAllTasks().size());
+        assertEquals("T2", copy.getAllTasks().get(0).getName());
+        assertEquals(TaskStatus.DONE, copy.getAllSubtasks().get(0).getStatus());
+        assertEquals(TaskStatus.DONE, copy.getAllEpics().get(0).getStatus(), "Статус эпика пересчитывается при доигрывании");
+        assertEquals(s.getStartTime(), copy.getAllSubtasks().get(0).getStartTime());
+    }
+
+    @Test
+    void loadCompactsJournalIntoSnapshot() throws Exception {
+        // После загрузки журнал вливается в снапшот и очищается; повторная загрузка даёт то же состояние
+        File f = tempDir.resolve("compact.csv").toFile();
+        File journal = new File(f.getPath() + ".journal");
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        m.addTask(new Task("A", "d"));
+        m.addTask(new Task("B", "d"));
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f, true);
+        assertEquals(0, Files.size(journal.toPath()));
+        copy.addTask(new Task("C", "d"));
+
+        FileBackedTaskManager again = FileBackedTaskManager.loadFromFile(f, true);
+        assertEquals(3, again.getAllTasks().size());
+    }
+
+    @Test
+    void tornLastRecordIsIgnored() throws Exception {
+        // Недописанная при сбое последняя запись не ломает восстановление
+        File f = tempDir.resolve("torn.csv").toFile();
+        File journal = new File(f.getPath() + ".journal");
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        m.addTask(new Task("A", "d"));
+        m.addTask(new Task("B", "d"));
+        Files.writeString(journal.toPath(), "2,ADD,9,TA", StandardOpenOption.APPEND);
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f, true);
+        assertEquals(2, copy.getAllTasks().size());
+    }
+
+    @Test
+    void plainLoadAbsorbsJournal() throws Exception {
+        // Загрузка в режиме полной перезаписи тоже учитывает журнал и удаляет его
+        File f = tempDir.resolve("plain.csv").toFile();
+        File journal = new File(f.getPath() + ".journal");
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        m.addTask(new Task("A", "d"));
+        m.addTask(new Task("B", "d"));
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f);
+        assertEquals(2, copy.getAllTasks().size());
+        assertFalse(journal.exists());
+        assertEquals(2, FileBackedTaskManager.loadFromFile(f, true).getAllTasks().size());
+    }
+
+    @Test
+    void deletingMissingIdIsNotJournaled() throws Exception {
+        File f = tempDir.resolve("missing.csv").toFile();
+        File journal = new File(f.getPath() + ".journal");
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        Task t = new Task("A", "d");
+        m.addTask(t);
+        m.addTask(new Task("B", "d"));
+
+        assertNull(m.deleteTask(999));
+        assertNull(m.deleteEpic(t.getId()));
+        assertEquals(1, Files.readAllLines(journal.toPath()).size());
+    }
+
+    @Test
+    void batchIsOneJournalRecordAndReplays() throws Exception {
+        File f = tempDir.resolve("batch.csv").toFile();
+        File journal = new File(f.getPath() + ".journal");
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        Epic e = new Epic("E", "d");
+        m.addEpic(e);
+
+        TaskBatch batch = new TaskBatch();
+        for (int i = 0; i < 50; i++) {
+            Subtask s = new Subtask("S" + i, "d", e.getId());
+            s.setStatus(TaskStatus.DONE);
+            batch.add(s);
+        }
+        Task temp = new Task("Temp", "d");
+        batch.add(temp);
+        m.applyBatch(batch);
+        m.flush();
+        assertEquals(1, Files.readAllLines(journal.toPath()).size(), "Пакет — одна запись журнала");
+
+        m.applyBatch(new TaskBatch().delete(temp.getId()));
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f, true);
+        assertEquals(50, copy.getAllSubtasks().size());
+        assertEquals(TaskStatus.DONE, copy.getEpicById(e.getId()).getStatus());
+        assertTrue(copy.getAllTasks().isEmpty());
+    }
+
+    @Test
+    void appendAfterCloseIsRejectedAndJournalReopens() {
+        File file = tempDir.resolve("direct.journal").toFile();
+        TaskJournal journal = new TaskJournal(file);
+        journal.open(0);
+        journal.await(journal.append(TaskJournal.DELETE, "1"));
+        journal.close();
+
+        ManagerSaveException closed = assertThrows(ManagerSaveException.class,
+                () -> journal.append(TaskJournal.DELETE, "2"));
+        assertTrue(closed.getMessage().startsWith("Журнал закрыт"), closed.getMessage());
+        assertFalse(journal.isOpen());
+
+        // после закрытия служебные операции работают с файлом напрямую, а open запускает журнал заново
+        journal.truncate();
+        journal.open(journal.getSeq());
+        journal.await(journal.append(TaskJournal.DELETE, "3"));
+        journal.flush();
+        assertEquals(1, journal.readAfter(0).size());
+        assertEquals("3", journal.readAfter(0).get(0).payload());
+        journal.close();
+    }
+
+    @Test
+    void appendsRacingWithCloseAreWrittenOrRejected() throws Exception {
+        File file = tempDir.resolve("race.journal").toFile();
+        TaskJournal journal = new TaskJournal(file);
+        journal.open(0);
+        java.util.concurrent.ConcurrentLinkedQueue<java.util.concurrent.CompletableFuture<Void>> written =
+                new java.util.concurrent.ConcurrentLinkedQueue<>();
+        java.util.concurrent.atomic.AtomicInteger rejected = new java.util.concurrent.atomic.AtomicInteger();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 2_000; i++) {
+                    try {
+                        // append под блокировкой, как у менеджера: seq растёт без гонок
+                        synchronized (journal) {
+                            written.add(journal.append(TaskJournal.DELETE, "1"));
+                        }
+                    } catch (ManagerSaveException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        Thread.sleep(5);
+        journal.close();
+        for (Thread t : writers) {
+            t.join();
+        }
+
+        int ok = 0;
+        for (java.util.concurrent.CompletableFuture<Void> done : written) {
+            try {
+                done.get(5, java.util.concurrent.TimeUnit.SECONDS);
+                ok++;
+            } catch (java.util.concurrent.ExecutionException e) {
+                assertTrue(e.getCause().getMessage().startsWith("Журнал закрыт"), e.getCause().getMessage());
+            }
+        }
+        assertEquals(8_000, written.size() + rejected.get());
+        assertEquals(ok, journal.readAfter(0).size(), "В файле ровно подтверждённые записи");
+
+        journal.truncate();
+        journal.open(0);
+        journal.await(journal.append(TaskJournal.DELETE, "2"));
+        journal.close();
+    }
+
+    @Test
+    void managerKeepsWorkingAfterClose() {
+        File f = tempDir.resolve("reopen.csv").toFile();
+        FileBackedTaskManager m = new FileBackedTaskManager(f, true);
+        m.addTask(new Task("До закрытия", "d"));
+        m.addTask(new Task("Ещё до закрытия", "d"));
+        m.close();
+
+        m.addTask(new Task("После закрытия", "d"));
+        m.addTask(new Task("И ещё", "d"));
+        m.flush();
+        m.close();
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f);
+        assertEquals(4, copy.getAllTasks().size());
+        copy.close();
+    }
+}
@@ -158,4 +158,17 @@ public class FileBackedTaskManagerTest {
         assertTrue(copy.getAllTasks().get(0).getStartTime().isEmpty());
         assertTrue(copy.getAllTasks().get(0).getDuration().isEmpty());
     }
-}
\ No newline at end of file
+
+    @Test
+    void csvStartWithSecondsLoadsTruncatedToMinute() throws Exception {
+        // файлы прежних версий хранили время начала с секундами (LocalDateTime.toString)
+        File f = tempDir.resolve("seconds.csv").toFile();
+        Files.writeString(f.toPath(), "id,type,name,status,description,epic,start,durationMinutes\n" +
+                "1,TASK,T,NEW,d,,2025-02-10T12:30:45,90\n");
+
+        FileBackedTaskManager copy = FileBackedTaskManager.loadFromFile(f);
+        Task t = copy.getAllTasks().get(0);
+        assertEquals(LocalDateTime.of(2025, 2, 10, 12, 30), t.getStartTime().orElseThrow());
+        assertEquals(LocalDateTime.of(2025, 2, 10, 14, 0), t.getEndTime().orElseThrow());
+    }
+}
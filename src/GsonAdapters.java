@@ -1,8 +1,15 @@
 import com.google.gson.*;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 
 public final class GsonAdapters {
     private GsonAdapters() {
@@ -12,6 +19,7 @@ public final class GsonAdapters {
         return new GsonBuilder()
                 .registerTypeAdapter(Duration.class, new DurationAdapter())
                 .registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter())
+                .registerTypeAdapterFactory(new TaskTimesAdapterFactory())
                 .serializeNulls()
                 .create();
     }
@@ -42,4 +50,164 @@ public final class GsonAdapters {
             return LocalDateTime.parse(json.getAsString());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Задачи пишутся и читаются потоком, без промежуточного дерева JsonObject. Время хранится
+     * в минутах в transient-полях; в JSON оно по-прежнему выглядит как поля startTime и duration
+     * (у эпика ещё calcStartTime, calcEndTime, calcDuration), подзадачи эпика — массивом id
+     * в порядке добавления. Поля идут в том же порядке, что писал отражающий адаптер Gson.
+     * Объекты создаются конструкторами, поэтому строки проходят через пул, а время без значения —
+     * Task.UNSET.
+     */
+    static final class TaskTimesAdapterFactory implements TypeAdapterFactory {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            Class<? super T> raw = type.getRawType();
+            if (!Task.class.isAssignableFrom(raw)) return null;
+            return (TypeAdapter<T>) new TaskAdapter(raw);
+        }
+    }
+
+    private static final class TaskAdapter extends TypeAdapter<Task> {
+        private final Class<?> type;
+
+        TaskAdapter(Class<?> type) {
+            this.type = type;
+        }
+
+        @Override
+        public void write(JsonWriter out, Task task) throws IOException {
+            if (task == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (task instanceof Epic epic) {
+                out.name("subtaskIds").beginArray();
+                for (int id : epic.getSubtaskIds()) {
+                    out.value(id);
+                }
+                out.endArray();
+            } else if (task instanceof Subtask subtask) {
+                out.name("epicId").value(subtask.getEpicId());
+            }
+            out.name("name").value(task.getName());
+            out.name("description").value(task.getDescription());
+            out.name("id").value(task.getId());
+            out.name("status").value(task.getStatus() == null ? null : task.getStatus().name());
+            if (task instanceof Epic epic) {
+                // собственные поля времени у эпика не используются
+                out.name("duration").nullValue();
+                out.name("startTime").nullValue();
+                writeMinutes(out.name("calcDuration"), epic.getDurationMinutes());
+                writeTime(out.name("calcStartTime"), epic.getStartMinute());
+                writeTime(out.name("calcEndTime"), epic.getEndMinute());
+            } else {
+                writeMinutes(out.name("duration"), task.getDurationMinutes());
+                writeTime(out.name("startTime"), task.getStartMinute());
+            }
+            out.endObject();
+        }
+
+        @Override
+        public Task read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            String name = null;
+            String description = null;
+            int id = 0;
+            int epicId = 0;
+            TaskStatus status = TaskStatus.NEW;
+            int[] subtaskIds = new int[0];
+            int subtaskCount = 0;
+            long start = Task.UNSET;
+            long duration = Task.UNSET;
+            long calcStart = Task.UNSET;
+            long calcEnd = Task.UNSET;
+            long calcDuration = Task.UNSET;
+            try {
+                in.beginObject();
+                while (in.hasNext()) {
+                    String field = in.nextName();
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        if (field.equals("status")) status = null;
+                        continue;
+                    }
+                    switch (field) {
+                        case "name" -> name = in.nextString();
+                        case "description" -> description = in.nextString();
+                        case "id" -> id = in.nextInt();
+                        case "epicId" -> epicId = in.nextInt();
+                        // неизвестное имя статуса — null, как у адаптера перечислений Gson
+                        case "status" -> status = statusOf(in.nextString());
+                        case "subtaskIds" -> {
+                            in.beginArray();
+                            while (in.hasNext()) {
+                                if (subtaskCount == subtaskIds.length) {
+                                    subtaskIds = Arrays.copyOf(subtaskIds, Math.max(4, subtaskCount * 2));
+                                }
+                                subtaskIds[subtaskCount++] = in.nextInt();
+                            }
+                            in.endArray();
+                        }
+                        case "startTime" -> start = readTime(in);
+                        case "duration" -> duration = in.nextLong();
+                        case "calcStartTime" -> calcStart = readTime(in);
+                        case "calcEndTime" -> calcEnd = readTime(in);
+                        case "calcDuration" -> calcDuration = in.nextLong();
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+            } catch (NumberFormatException | DateTimeParseException e) {
+                throw new JsonSyntaxException(e);
+            }
+
+            Task task;
+            if (Epic.class.isAssignableFrom(type)) {
+                Epic epic = new Epic(name, description);
+                for (int i = 0; i < subtaskCount; i++) {
+                    epic.addSubtask(subtaskIds[i]);
+                }
+                epic.setCalculatedTimes(calcStart, calcEnd, calcDuration);
+                task = epic;
+            } else if (Subtask.class.isAssignableFrom(type)) {
+                task = new Subtask(name, description, epicId);
+            } else {
+                task = new Task(name, description);
+            }
+            task.setId(id);
+            task.setStatus(status);
+            if (!(task instanceof Epic)) {
+                task.setStartMinute(start);
+                task.setDurationMinutes(duration);
+            }
+            return task;
+        }
+
+        private static TaskStatus statusOf(String name) {
+            for (TaskStatus status : TaskStatus.values()) {
+                if (status.name().equals(name)) return status;
+            }
+            return null;
+        }
+
+        private static void writeMinutes(JsonWriter out, long minutes) throws IOException {
+            if (minutes == Task.UNSET) out.nullValue();
+            else out.value(minutes);
+        }
+
+        private static void writeTime(JsonWriter out, long minute) throws IOException {
+            if (minute == Task.UNSET) out.nullValue();
+            else out.value(Task.fromMinute(minute).toString());
+        }
+
+        private static long readTime(JsonReader in) throws IOException {
+            return Task.toMinute(LocalDateTime.parse(in.nextString()));
+        }
+    }
+}
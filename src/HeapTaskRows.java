@@ -0,0 +1,188 @@
+import java.util.Arrays;
+
+/**
+ * Строки в массивах-колонках на куче, текст — в общем массиве символов.
+ */
+class HeapTaskRows implements TaskRows {
+
+    // id, статус, эпик, начало, длительность, смещения и длины текста
+    private static final int FIXED_BYTES = 4 + 1 + 4 + 8 + 8 + 4 * 4;
+
+    private int[] ids;
+    private byte[] statuses;
+    private int[] epicIds;
+    private long[] starts;
+    private long[] durations;
+    // длина -1 — строка null
+    private int[] nameOffsets;
+    private int[] nameLengths;
+    private int[] descriptionOffsets;
+    private int[] descriptionLengths;
+
+    private char[] text;
+    private int textLength;
+    private int textGarbage;
+
+    HeapTaskRows(int capacity) {
+        ids = new int[capacity];
+        statuses = new byte[capacity];
+        epicIds = new int[capacity];
+        starts = new long[capacity];
+        durations = new long[capacity];
+        nameOffsets = new int[capacity];
+        nameLengths = new int[capacity];
+        descriptionOffsets = new int[capacity];
+        descriptionLengths = new int[capacity];
+        text = new char[Math.max(256, capacity * 16)];
+    }
+
+    @Override
+    public int capacity() {
+        return ids.length;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        ids = Arrays.copyOf(ids, capacity);
+        statuses = Arrays.copyOf(statuses, capacity);
+        epicIds = Arrays.copyOf(epicIds, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        durations = Arrays.copyOf(durations, capacity);
+        nameOffsets = Arrays.copyOf(nameOffsets, capacity);
+        nameLengths = Arrays.copyOf(nameLengths, capacity);
+        descriptionOffsets = Arrays.copyOf(descriptionOffsets, capacity);
+        descriptionLengths = Arrays.copyOf(descriptionLengths, capacity);
+    }
+
+    @Override
+    public int id(int row) {
+        return ids[row];
+    }
+
+    @Override
+    public byte status(int row) {
+        return statuses[row];
+    }
+
+    @Override
+    public int epicId(int row) {
+        return epicIds[row];
+    }
+
+    @Override
+    public long start(int row) {
+        return starts[row];
+    }
+
+    @Override
+    public long duration(int row) {
+        return durations[row];
+    }
+
+    @Override
+    public String name(int row) {
+        return read(nameOffsets[row], nameLengths[row]);
+    }
+
+    @Override
+    public String description(int row) {
+        return read(descriptionOffsets[row], descriptionLengths[row]);
+    }
+
+    @Override
+    public void setId(int row, int id) {
+        ids[row] = id;
+    }
+
+    @Override
+    public void setStatus(int row, byte status) {
+        statuses[row] = status;
+    }
+
+    @Override
+    public void setEpicId(int row, int epicId) {
+        epicIds[row] = epicId;
+    }
+
+    @Override
+    public void setTimes(int row, long start, long duration) {
+        starts[row] = start;
+        durations[row] = duration;
+    }
+
+    @Override
+    public void setText(int row, String name, String description) {
+        if (!textEquals(nameOffsets[row], nameLengths[row], name)) {
+            textGarbage += Math.max(nameLengths[row], 0);
+            nameLengths[row] = name == null ? -1 : name.length();
+            nameOffsets[row] = append(name);
+        }
+        if (!textEquals(descriptionOffsets[row], descriptionLengths[row], description)) {
+            textGarbage += Math.max(descriptionLengths[row], 0);
+            descriptionLengths[row] = description == null ? -1 : description.length();
+            descriptionOffsets[row] = append(description);
+        }
+        compactIfNeeded();
+    }
+
+    @Override
+    public void clearText(int row) {
+        textGarbage += Math.max(nameLengths[row], 0) + Math.max(descriptionLengths[row], 0);
+        nameLengths[row] = descriptionLengths[row] = -1;
+        compactIfNeeded();
+    }
+
+    @Override
+    public ColumnarTaskManager.StorageStats stats(int rows, int freeRows, long indexBytes) {
+        return new ColumnarTaskManager.StorageStats(false, rows, freeRows,
+                (long) capacity() * FIXED_BYTES + (long) text.length * Character.BYTES,
+                (long) rows * FIXED_BYTES + (long) textLength * Character.BYTES,
+                (long) textGarbage * Character.BYTES, indexBytes);
+    }
+
+    private int append(String s) {
+        if (s == null) return 0;
+        int offset = textLength;
+        if (textLength + s.length() > text.length) {
+            text = Arrays.copyOf(text, Math.max(text.length * 2, textLength + s.length()));
+        }
+        s.getChars(0, s.length(), text, offset);
+        textLength += s.length();
+        return offset;
+    }
+
+    private boolean textEquals(int offset, int length, String s) {
+        if (s == null || length < 0) return s == null && length < 0;
+        if (s.length() != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (text[offset + i] != s.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private String read(int offset, int length) {
+        return length < 0 ? null : new String(text, offset, length);
+    }
+
+    // у освобождённых строк длины -1, у ни разу не занятых — 0: копировать нечего
+    private void compactIfNeeded() {
+        if (textLength < MIN_COMPACT_LENGTH || textGarbage * 2 <= textLength) return;
+        char[] compacted = new char[Math.max(256, (textLength - textGarbage) * 2)];
+        int length = 0;
+        for (int row = 0; row < ids.length; row++) {
+            if (nameLengths[row] > 0) {
+                System.arraycopy(text, nameOffsets[row], compacted, length, nameLengths[row]);
+                nameOffsets[row] = length;
+                length += nameLengths[row];
+            }
+            if (descriptionLengths[row] > 0) {
+                System.arraycopy(text, descriptionOffsets[row], compacted, length, descriptionLengths[row]);
+                descriptionOffsets[row] = length;
+                length += descriptionLengths[row];
+            }
+        }
+        text = compacted;
+        textLength = length;
+        textGarbage = 0;
+    }
+}
@@ -3,6 +3,7 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager manager;
@@ -19,7 +20,15 @@ public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
                 sendError(h, "Метод неподдерживается: " + h.getRequestMethod());
                 return;
             }
-            sendOk(h, manager.getHistory());
+            Map<String, String> params = parseQuery(h.getRequestURI().getQuery());
+            if (isPageRequest(params)) {
+                int limit = parseLimit(params);
+                sendIdPage(h, manager.getHistoryPage(parseAfter(params), limit), limit);
+            } else {
+                sendOk(h, manager.getHistory());
+            }
+        } catch (NumberFormatException ex) {
+            sendBadRequest(h, "Неправильный параметр запроса: " + ex.getMessage());
         } catch (Exception ex) {
             sendError(h, "Внутренняя ошибка: " + ex.getMessage());
         }
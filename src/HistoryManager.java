@@ -7,4 +7,24 @@ public interface HistoryManager {
     void remove(int id);
 
     List<Task> getHistory();
+
+    /**
+     * Не больше limit записей истории, следующих за просмотром с id afterId (afterId = 0 — с начала).
+     * Если afterId в истории уже нет, возвращается пустой список.
+     */
+    default List<Task> getHistory(int afterId, int limit) {
+        return page(getHistory(), afterId, limit);
+    }
+
+    static List<Task> page(List<Task> history, int afterId, int limit) {
+        int from = 0;
+        if (afterId != 0) {
+            from = -1;
+            for (int i = 0; i < history.size() && from < 0; i++) {
+                if (history.get(i).getId() == afterId) from = i + 1;
+            }
+            if (from < 0) return List.of();
+        }
+        return history.subList(from, Math.min(history.size(), from + Math.max(limit, 0)));
+    }
 }
\ No newline at end of file
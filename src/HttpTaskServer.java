@@ -3,20 +3,35 @@ import com.sun.net.httpserver.HttpServer;
 
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
     private final HttpServer server;
     private final TaskManager manager;
+    private final ExecutorService executor;
     private static final Gson GSON = GsonAdapters.create();
 
     public HttpTaskServer(TaskManager manager) throws IOException {
+        this(manager, 1);
+    }
+
+    /**
+     * При threads > 1 запросы обрабатываются пулом потоков — менеджер должен быть потокобезопасным
+     * (см. Managers.getConcurrent()).
+     */
+    public HttpTaskServer(TaskManager manager, int threads) throws IOException {
         this.manager = manager;
         this.server = HttpServer.create(new InetSocketAddress(8080), 0);
+        this.executor = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        server.setExecutor(executor);
         server.createContext("/tasks", new TasksHandler(manager, GSON));
         server.createContext("/subtasks", new SubtasksHandler(manager, GSON));
         server.createContext("/epics", new EpicsHandler(manager, GSON));
         server.createContext("/history", new HistoryHandler(manager, GSON));
         server.createContext("/prioritized", new PrioritizedHandler(manager, GSON));
+        server.createContext("/search", new SearchHandler(manager, GSON));
+        server.createContext("/batch", new BatchHandler(manager, GSON));
     }
 
     public void start() {
@@ -26,6 +41,9 @@ public class HttpTaskServer {
 
     public void stop() {
         server.stop(0);
+        if (executor != null) {
+            executor.shutdown();
+        }
         System.out.println("HTTP server stopped");
     }
 
@@ -34,8 +52,8 @@ public class HttpTaskServer {
     }
 
     public static void main(String[] args) throws Exception {
-        TaskManager m = Managers.getDefault();
-        HttpTaskServer s = new HttpTaskServer(m);
+        TaskManager m = Managers.getConcurrent();
+        HttpTaskServer s = new HttpTaskServer(m, Runtime.getRuntime().availableProcessors());
         s.start();
     }
 }
\ No newline at end of file
@@ -0,0 +1,98 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpTaskServerBatchTest {
+    private TaskManager manager;
+    private HttpTaskServer server;
+    private HttpClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        manager = new InMemoryTaskManager();
+        server = new HttpTaskServer(manager);
+        client = HttpClient.newHttpClient();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void postBatch_returns201_withAssignedIds() throws Exception {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        Task gone = new Task("Gone", "d");
+        manager.addTask(gone);
+
+        String body = "[{\"op\":\"ADD\",\"type\":\"SUBTASK\",\"task\":{\"name\":\"S1\",\"description\":\"d\","
+                + "\"status\":\"NEW\",\"epicId\":" + e.getId() + "}},"
+                + "{\"op\":\"ADD\",\"task\":{\"name\":\"T\",\"description\":\"d\",\"status\":\"NEW\"}},"
+                + "{\"op\":\"DELETE\",\"id\":" + gone.getId() + "}]";
+        var post = HttpRequest.newBuilder(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        var resp = client.send(post, HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(201, resp.statusCode());
+        int[] ids = HttpTaskServer.getGson().fromJson(resp.body(), int[].class);
+        assertEquals(3, ids.length);
+        assertEquals("S1", manager.getSubtaskById(ids[0]).getName());
+        assertEquals("T", manager.getTaskById(ids[1]).getName());
+        assertEquals(gone.getId(), ids[2]);
+        assertEquals(1, manager.getAllTasks().size());
+    }
+
+    @Test
+    void postBatch_withOverlap_returns406_andAppliesNothing() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2025, 4, 1, 10, 0);
+        String task = "{\"name\":\"T\",\"description\":\"d\",\"status\":\"NEW\",\"startTime\":\"" + start
+                + "\",\"duration\":60}";
+        String body = "[{\"op\":\"ADD\",\"task\":" + task + "},{\"op\":\"ADD\",\"task\":" + task + "}]";
+        var post = HttpRequest.newBuilder(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+
+        assertEquals(406, client.send(post, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertTrue(manager.getAllTasks().isEmpty());
+    }
+
+    private int postBatch(String body) throws Exception {
+        var post = HttpRequest.newBuilder(URI.create("http://localhost:8080/batch"))
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+        return client.send(post, HttpResponse.BodyHandlers.ofString()).statusCode();
+    }
+
+    @Test
+    void postBatch_malformed_returns400() throws Exception {
+        assertEquals(400, postBatch("{\"op\":\"ADD\"}"), "Не массив");
+        assertEquals(400, postBatch("[{\"task\":{\"name\":\"T\"}}]"), "Нет op");
+        assertEquals(400, postBatch("[{\"op\":\"DELETE\"}]"), "Нет id");
+        assertEquals(400, postBatch("[{\"op\":\"ADD\"}]"), "Нет task");
+        assertEquals(400, postBatch("[{\"op\":\"MOVE\",\"task\":{}}]"), "Неизвестная операция");
+        assertTrue(manager.getAllTasks().isEmpty());
+    }
+
+    @Test
+    void postBatch_missingEpic_returns404_andUsedId_returns409() throws Exception {
+        String orphan = "[{\"op\":\"ADD\",\"type\":\"SUBTASK\",\"task\":{\"name\":\"S\",\"description\":\"d\","
+                + "\"status\":\"NEW\",\"epicId\":999}}]";
+        assertEquals(404, postBatch(orphan));
+
+        Task existing = new Task("T", "d");
+        manager.addTask(existing);
+        String clash = "[{\"op\":\"ADD\",\"task\":{\"id\":" + existing.getId()
+                + ",\"name\":\"T2\",\"description\":\"d\",\"status\":\"NEW\"}}]";
+        assertEquals(409, postBatch(clash));
+        assertEquals("T", manager.getTaskById(existing.getId()).getName());
+    }
+}
@@ -50,4 +50,32 @@ public class HttpTaskServerPrioritizedTest {
         assertEquals(b.getId(), p.get(0).getId());
         assertEquals(a.getId(), p.get(1).getId());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getPrioritizedRange_returnsOnlyRequestedWindow() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2025, 1, 1, 9, 0);
+        for (int i = 0; i < 5; i++) {
+            Task t = new Task("T" + i, "d");
+            t.setStartTime(base.plusDays(i));
+            t.setDuration(Duration.ofMinutes(30));
+            manager.addTask(t);
+        }
+        var gson = HttpTaskServer.getGson();
+
+        var range = HttpRequest.newBuilder(URI.create("http://localhost:8080/prioritized?from="
+                + base.plusDays(1) + "&to=" + base.plusDays(4) + "&limit=2")).GET().build();
+        var resp = client.send(range, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, resp.statusCode());
+        Task[] tasks = gson.fromJson(resp.body(), Task[].class);
+        assertEquals(2, tasks.length);
+        assertEquals(base.plusDays(1), tasks[0].getStartTime().orElseThrow());
+
+        var at = HttpRequest.newBuilder(URI.create("http://localhost:8080/prioritized?at="
+                + base.plusMinutes(10))).GET().build();
+        assertEquals(1, gson.fromJson(client.send(at, HttpResponse.BodyHandlers.ofString()).body(), Task[].class).length);
+
+        var bad = HttpRequest.newBuilder(URI.create("http://localhost:8080/prioritized?from=tomorrow"))
+                .GET().build();
+        assertEquals(400, client.send(bad, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
@@ -0,0 +1,64 @@
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpTaskServerSearchTest {
+    private TaskManager manager;
+    private HttpTaskServer server;
+    private HttpClient client;
+    private com.google.gson.Gson gson;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        manager = new InMemoryTaskManager();
+        server = new HttpTaskServer(manager);
+        client = HttpClient.newHttpClient();
+        gson = HttpTaskServer.getGson();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void searchFindsTasksAndSubtasksByCyrillicTerms() throws Exception {
+        Epic e = new Epic("Переезд", "Всё для переезда");
+        manager.addEpic(e);
+        Subtask s = new Subtask("Собрать коробки", "Большие коробки", e.getId());
+        manager.addSubtask(s);
+        manager.addTask(new Task("Купить коробки", "В магазине"));
+        manager.addTask(new Task("Позвонить маме", ""));
+
+        var resp = client.send(get("коробки"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, resp.statusCode());
+        Task[] found = gson.fromJson(resp.body(), Task[].class);
+        assertEquals(2, found.length);
+        assertEquals(s.getId(), found[0].getId(), "Совпадение в названии и описании выше");
+
+        var prefix = client.send(get("собр* короб*"), HttpResponse.BodyHandlers.ofString());
+        assertEquals(1, gson.fromJson(prefix.body(), Task[].class).length);
+        assertTrue(manager.getHistory().isEmpty());
+
+        var missing = HttpRequest.newBuilder(URI.create("http://localhost:8080/search")).GET().build();
+        assertEquals(400, client.send(missing, HttpResponse.BodyHandlers.ofString()).statusCode());
+        var badLimit = HttpRequest.newBuilder(URI.create("http://localhost:8080/search?q=x&limit=abc")).GET().build();
+        assertEquals(400, client.send(badLimit, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+
+    private static HttpRequest get(String q) {
+        String encoded = URLEncoder.encode(q, StandardCharsets.UTF_8).replace("+", "%20");
+        return HttpRequest.newBuilder(URI.create("http://localhost:8080/search?q=" + encoded)).GET().build();
+    }
+}
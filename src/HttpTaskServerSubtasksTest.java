@@ -113,4 +113,35 @@ public class HttpTaskServerSubtasksTest {
         var resp = client.send(post, HttpResponse.BodyHandlers.ofString());
         assertEquals(406, resp.statusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void filterByStatusAndByEpic() throws Exception {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        Epic other = new Epic("O", "d");
+        manager.addEpic(other);
+        Subtask done = new Subtask("S1", "d", e.getId());
+        done.setStatus(TaskStatus.DONE);
+        manager.addSubtask(done);
+        manager.addSubtask(new Subtask("S2", "d", e.getId()));
+        manager.addSubtask(new Subtask("S3", "d", other.getId()));
+
+        var byStatus = HttpRequest.newBuilder(URI.create("http://localhost:8080/subtasks?status=DONE")).GET().build();
+        var r1 = client.send(byStatus, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, r1.statusCode());
+        Subtask[] doneList = gson.fromJson(r1.body(), Subtask[].class);
+        assertEquals(1, doneList.length);
+        assertEquals(done.getId(), doneList[0].getId());
+
+        var byEpic = HttpRequest.newBuilder(URI.create("http://localhost:8080/epics/subtasks?id=" + e.getId())).GET().build();
+        var r2 = client.send(byEpic, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, r2.statusCode());
+        assertEquals(2, gson.fromJson(r2.body(), Subtask[].class).length);
+        assertTrue(manager.getHistory().isEmpty(), "Выборки не пишут в историю");
+
+        var missing = HttpRequest.newBuilder(URI.create("http://localhost:8080/epics/subtasks?id=999")).GET().build();
+        assertEquals(404, client.send(missing, HttpResponse.BodyHandlers.ofString()).statusCode());
+        var badStatus = HttpRequest.newBuilder(URI.create("http://localhost:8080/subtasks?status=LATER")).GET().build();
+        assertEquals(500, client.send(badStatus, HttpResponse.BodyHandlers.ofString()).statusCode());
+    }
+}
@@ -102,4 +102,64 @@ public class HttpTaskServerTasksTest {
         var resp = client.send(post, HttpResponse.BodyHandlers.ofString());
         assertEquals(406, resp.statusCode());
     }
-}
\ No newline at end of file
+
+    @Test
+    void deleteChecksExistenceWithoutTouchingHistory() throws Exception {
+        Task t = new Task("T", "d");
+        manager.addTask(t);
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+
+        var wrongType = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks?id=" + e.getId()))
+                .DELETE().build();
+        assertEquals(404, client.send(wrongType, HttpResponse.BodyHandlers.ofString()).statusCode());
+
+        var del = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks?id=" + t.getId()))
+                .DELETE().build();
+        assertEquals(201, client.send(del, HttpResponse.BodyHandlers.ofString()).statusCode());
+        assertTrue(manager.getHistory().isEmpty());
+        assertTrue(manager.exists(e.getId()));
+    }
+
+    @Test
+    void pagedGet_returnsLimitAndNextCursor() throws Exception {
+        Task a = new Task("A", "d");
+        Task b = new Task("B", "d");
+        Task c = new Task("C", "d");
+        manager.addTask(a);
+        manager.addTask(b);
+        manager.addTask(c);
+
+        var first = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks?limit=2")).GET().build();
+        var resp = client.send(first, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, resp.statusCode());
+        Task[] page = gson.fromJson(resp.body(), Task[].class);
+        assertEquals(2, page.length);
+        String next = resp.headers().firstValue("X-Next-After").orElseThrow();
+        assertEquals(String.valueOf(b.getId()), next);
+
+        var second = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks?limit=2&after=" + next)).GET().build();
+        resp = client.send(second, HttpResponse.BodyHandlers.ofString());
+        page = gson.fromJson(resp.body(), Task[].class);
+        assertEquals(1, page.length);
+        assertEquals(c.getId(), page[0].getId());
+        assertTrue(resp.headers().firstValue("X-Next-After").isEmpty(), "Последняя страница без курсора");
+    }
+
+    @Test
+    void pagedGet_rejectsMalformedParamsAndClampsLimit() throws Exception {
+        for (int i = 0; i < 1001; i++) {
+            manager.addTask(new Task("T" + i, "d"));
+        }
+        for (String query : new String[]{"limit=abc", "limit=-1", "limit=0", "after=x", "after=-5"}) {
+            var request = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks?" + query)).GET().build();
+            assertEquals(400, client.send(request, HttpResponse.BodyHandlers.ofString()).statusCode(), query);
+        }
+
+        var huge = HttpRequest.newBuilder(URI.create("http://localhost:8080/tasks?limit=2147483647")).GET().build();
+        var resp = client.send(huge, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, resp.statusCode());
+        assertEquals(1000, gson.fromJson(resp.body(), Task[].class).length, "limit урезается до MAX_PAGE_SIZE");
+        assertTrue(resp.headers().firstValue("X-Next-After").isPresent(), "Урезанная страница ведёт дальше");
+    }
+}
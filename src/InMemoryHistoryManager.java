@@ -1,8 +1,7 @@
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
+// методы синхронизированы: история меняется и при чтении задач по id, в том числе из параллельных запросов
 public class InMemoryHistoryManager implements HistoryManager {
 
     private static class Node {
@@ -17,12 +16,12 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
     }
 
-    private final Map<Integer, Node> index = new HashMap<>(); // id -> node
+    private final IntObjectMap<Node> index = new IntObjectMap<>(); // id -> node
     private Node head;
     private Node tail;
 
     @Override
-    public void add(Task task) {
+    public synchronized void add(Task task) {
         if (task == null) return;
         Task snapshot = Task.copyOf(task);
         Node old = index.get(snapshot.getId());
@@ -33,7 +32,7 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     @Override
-    public void remove(int id) {
+    public synchronized void remove(int id) {
         Node node = index.get(id);
         if (node != null) {
             removeNode(node);
@@ -41,7 +40,7 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     @Override
-    public List<Task> getHistory() {
+    public synchronized List<Task> getHistory() {
         List<Task> list = new ArrayList<>();
         Node cur = head;
         while (cur != null) {
@@ -51,6 +50,24 @@ public class InMemoryHistoryManager implements HistoryManager {
         return list;
     }
 
+    @Override
+    public synchronized List<Task> getHistory(int afterId, int limit) {
+        List<Task> page = new ArrayList<>();
+        Node cur;
+        if (afterId == 0) {
+            cur = head;
+        } else {
+            Node after = index.get(afterId);
+            if (after == null) return page;
+            cur = after.next;
+        }
+        while (cur != null && page.size() < limit) {
+            page.add(Task.copyOf(cur.task));
+            cur = cur.next;
+        }
+        return page;
+    }
+
     private void linkLast(Task task) {
         Node node = new Node(task);
         if (tail == null) {
@@ -3,43 +3,127 @@ import java.util.*;
 
 public class InMemoryTaskManager implements TaskManager {
     private int id = 1;
-    private final Map<Integer, Task> tasks = new java.util.HashMap<>();
-    private final Map<Integer, Epic> epics = new java.util.HashMap<>();
-    private final Map<Integer, Subtask> subtasks = new java.util.HashMap<>();
+    // единственное хранилище сущностей: занятость id и поиск по id — одна проба,
+    // сущность нужного типа отбирается проверкой типа (см. find)
+    private final IntObjectMap<Task> index = new IntObjectMap<>();
+    // id подзадач по статусу, по возрастанию — выборка читается без сортировки;
+    // подзадачи эпика индексирует сам эпик (getSubtaskIds)
+    private final Map<TaskStatus, SortedIntSet> subtasksByStatus = new EnumMap<>(TaskStatus.class);
+    private final TextIndex textIndex = new TextIndex();
+    // id каждого типа по возрастанию — выборки по типу и курсор для постраничного чтения
+    private final SortedIntSet taskOrder = new SortedIntSet();
+    private final SortedIntSet epicOrder = new SortedIntSet();
+    private final SortedIntSet subtaskOrder = new SortedIntSet();
     private final HistoryManager historyManager = Managers.getDefaultHistory();
-    private final NavigableSet<Task> prioritized = new TreeSet<>(
-            Comparator.<Task, LocalDateTime>comparing(
-                    t -> t.getStartTime().orElse(null),
-                    Comparator.nullsLast(Comparator.naturalOrder())
-            ).thenComparingInt(t -> t.id)
-    );
+    // ключ неизменяем и запоминается по id: задачу могут поменять снаружи до её переиндексации.
+    // Сравнение — по минутам начала и id, без объектов времени
+    private record PriorityKey(long start, int id) implements Comparable<PriorityKey> {
+        @Override
+        public int compareTo(PriorityKey other) {
+            int byStart = Long.compare(start, other.start);
+            return byStart != 0 ? byStart : Integer.compare(id, other.id);
+        }
+
+        // курсор точнее минуты стоит после всех задач своей минуты
+        static PriorityKey after(LocalDateTime start, int id) {
+            long minute = Task.toMinute(start);
+            return Task.fromMinute(minute).equals(start) ? new PriorityKey(minute, id)
+                    : new PriorityKey(minute, Integer.MAX_VALUE);
+        }
+    }
+
+    private final TreeMap<PriorityKey, Task> prioritized = new TreeMap<>();
+    private final IntObjectMap<PriorityKey> priorityKeys = new IntObjectMap<>();
+    private final IntervalIndex intervals;
+    private final ChangeFeed changes = new ChangeFeed();
+
+    // эпик и его состояние до изменения (before == null, если подписчиков не было)
+    private record EpicChange(Epic epic, Epic before) {
+    }
+
+    // эпики, затронутые применяемым пакетом (null вне applyBatch): их статус считается и событие
+    // публикуется один раз в конце, а пересечения к этому моменту уже проверены для пакета целиком
+    private IntObjectMap<EpicChange> batchEpics;
+
+    public InMemoryTaskManager() {
+        this(null);
+    }
+
+    /**
+     * С календарём слотов проверка пересечений внутри горизонта не зависит от числа задач.
+     */
+    public InMemoryTaskManager(SlotCalendar calendar) {
+        this.intervals = new IntervalIndex(calendar);
+        for (TaskStatus status : TaskStatus.values()) {
+            subtasksByStatus.put(status, new SortedIntSet());
+        }
+    }
 
     @Override
     public List<Task> getPrioritizedTasks() {
-        return new ArrayList<>(prioritized);
+        return new ArrayList<>(prioritized.values());
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        NavigableMap<PriorityKey, Task> range = prioritized;
+        if (from != null) {
+            range = range.tailMap(new PriorityKey(Task.ceilMinute(from), Integer.MIN_VALUE), true);
+        }
+        if (to != null) {
+            range = range.headMap(new PriorityKey(Task.ceilMinute(to), Integer.MIN_VALUE), false);
+        }
+        List<Task> result = new ArrayList<>();
+        for (Task t : range.values()) {
+            if (limit > 0 && result.size() == limit) break;
+            result.add(t);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        NavigableMap<PriorityKey, Task> rest = afterStart == null ? prioritized
+                : prioritized.tailMap(PriorityKey.after(afterStart, afterId), false);
+        List<Task> page = new ArrayList<>(Math.max(0, Math.min(limit, rest.size())));
+        for (Task t : rest.values()) {
+            if (page.size() == limit) break;
+            page.add(t);
+        }
+        return page;
+    }
+
+    @Override
+    public Optional<Task> getActiveAt(LocalDateTime instant) {
+        Integer id = intervals.idAt(instant);
+        return id == null ? Optional.empty() : Optional.of(index.get(id));
     }
 
     @Override
     public void addTask(Task task) {
         int finalId = ensureId(task);
-        if (tasks.containsKey(finalId) || epics.containsKey(finalId) || subtasks.containsKey(finalId)) {
+        if (index.containsKey(finalId)) {
             throw new IllegalArgumentException("Id уже используется: " + finalId);
         }
-        if (task.getStartTime().isPresent() && task.getDuration().isPresent()) {
-            ensureNoOverlap(task);
-        }
-        tasks.put(finalId, task);
+        ensureNoOverlap(task);
+        taskOrder.add(finalId);
+        index.put(finalId, task);
+        textIndex.add(task);
         indexForPriority(task);
+        emit(ChangeEvent.Kind.CREATED, null, task);
     }
 
     @Override
     public void addEpic(Epic epic) {
         int finalId = ensureId(epic);
-        if (subtasks.containsKey(finalId) || tasks.containsKey(finalId) || epics.containsKey(finalId)) {
+        if (index.containsKey(finalId)) {
             throw new IllegalArgumentException("Id конфликтует с существующей задачей/подзадачей: " + finalId);
         }
-        epics.put(finalId, epic);
-        epic.recalcTimes(subtasks);
+        epicOrder.add(finalId);
+        index.put(finalId, epic);
+        textIndex.add(epic);
+        epic.recalcTimes(this::findSubtask);
+        emit(ChangeEvent.Kind.CREATED, null, epic);
     }
 
     @Override
@@ -48,40 +132,109 @@ public class InMemoryTaskManager implements TaskManager {
             throw new IllegalArgumentException("Эпик не может быть подзадачей самого себя.");
         }
         int finalId = ensureId(subtask);
-        if (tasks.containsKey(finalId) || epics.containsKey(finalId) || subtasks.containsKey(finalId)) {
+        if (index.containsKey(finalId)) {
             throw new IllegalArgumentException("Id уже используется: " + finalId);
         }
-        Epic epic = epics.get(subtask.getEpicId());
+        Epic epic = findEpic(subtask.getEpicId());
         if (epic == null) {
-            throw new IllegalArgumentException("Эпик не найден: " + subtask.getEpicId());
-        }
-        if (subtask.getStartTime().isPresent() && subtask.getDuration().isPresent()) {
-            ensureNoOverlap(subtask);
+            throw new NotFoundException("Эпик не найден: " + subtask.getEpicId());
         }
-        subtasks.put(finalId, subtask);
+        ensureNoOverlap(subtask);
+        subtaskOrder.add(finalId);
+        index.put(finalId, subtask);
+        indexStatus(subtask);
+        textIndex.add(subtask);
+        Epic before = epicBefore(epic);
         epic.addSubtask(finalId);
-        updateEpicStatus(epic);
+        epic.applySubtask(subtask);
         indexForPriority(subtask);
+        emit(ChangeEvent.Kind.CREATED, null, subtask);
+        epicChanged(epic, before);
     }
 
     @Override
     public List<Task> getAllTasks() {
-        return new java.util.ArrayList<>(tasks.values());
+        return inOrder(taskOrder);
     }
 
     @Override
     public List<Epic> getAllEpics() {
-        return new java.util.ArrayList<>(epics.values());
+        return inOrder(epicOrder);
     }
 
     @Override
     public List<Subtask> getAllSubtasks() {
-        return new java.util.ArrayList<>(subtasks.values());
+        return inOrder(subtaskOrder);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return inOrder(subtasksByStatus.get(status));
+    }
+
+    // порядок обхода IntObjectMap не определён, выдача идёт по возрастанию id;
+    // в order лежат id одного типа, поэтому приведение безопасно
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> inOrder(SortedIntSet order) {
+        List<T> result = new ArrayList<>(order.size());
+        order.forEach(entityId -> result.add((T) index.get(entityId)));
+        return result;
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        Epic epic = findEpic(epicId);
+        if (epic == null) return new ArrayList<>();
+        List<Subtask> result = new ArrayList<>(epic.getSubtaskIds().size());
+        for (int subtaskId : epic.getSubtaskIds()) {
+            Subtask s = findSubtask(subtaskId);
+            if (s != null) result.add(s);
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        List<Task> result = new ArrayList<>();
+        for (int id : textIndex.search(query, limit)) {
+            result.add(index.get(id));
+        }
+        return result;
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return page(taskOrder, afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return page(epicOrder, afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return page(subtaskOrder, afterId, limit);
+    }
+
+    @Override
+    public List<Task> getHistoryPage(int afterId, int limit) {
+        return historyManager.getHistory(afterId, limit);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Task> List<T> page(SortedIntSet order, int afterId, int limit) {
+        int[] ids = order.valuesAfter(afterId, limit);
+        List<T> page = new ArrayList<>(ids.length);
+        for (int pageId : ids) {
+            page.add((T) index.get(pageId));
+        }
+        return page;
     }
 
     @Override
     public Task getTaskById(int id) {
-        Task task = tasks.get(id);
+        Task task = findTask(id);
         if (task != null) {
             addToHistory(task);
         }
@@ -90,7 +243,7 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Epic getEpicById(int id) {
-        Epic epic = epics.get(id);
+        Epic epic = findEpic(id);
         if (epic != null) {
             addToHistory(epic);
         }
@@ -99,13 +252,43 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public Subtask getSubtaskById(int id) {
-        Subtask subtask = subtasks.get(id);
+        Subtask subtask = findSubtask(id);
         if (subtask != null) {
             addToHistory(subtask);
         }
         return subtask;
     }
 
+    @Override
+    public Task peekTask(int id) {
+        return findTask(id);
+    }
+
+    @Override
+    public Epic peekEpic(int id) {
+        return findEpic(id);
+    }
+
+    @Override
+    public Subtask peekSubtask(int id) {
+        return findSubtask(id);
+    }
+
+    @Override
+    public Task getById(int id) {
+        Task entity = index.get(id);
+        if (entity != null) {
+            addToHistory(entity);
+        }
+        return entity;
+    }
+
+    @Override
+    public TaskType typeOf(int id) {
+        Task entity = index.get(id);
+        return entity == null ? null : TaskType.of(entity);
+    }
+
     @Override
     public List<Task> getHistory() {
         return historyManager.getHistory();
@@ -113,106 +296,315 @@ public class InMemoryTaskManager implements TaskManager {
 
     @Override
     public void updateTask(Task task) {
-        if (task != null && tasks.containsKey(task.getId())) {
-            deindexForPriority(tasks.get(task.getId()));
-            if (task.getStartTime().isPresent() && task.getDuration().isPresent()) {
-                ensureNoOverlap(task);
-            }
-            tasks.put(task.getId(), task);
+        Task old = task == null ? null : findTask(task.getId());
+        if (old != null) {
+            ensureNoOverlap(task);
+            deindexForPriority(old);
+            index.put(task.getId(), task);
+            textIndex.add(task);
             indexForPriority(task);
+            emit(ChangeEvent.Kind.UPDATED, old, task);
         }
     }
 
     @Override
     public void updateEpic(Epic epic) {
-        if (epic != null && epics.containsKey(epic.getId())) {
-            Epic existingEpic = epics.get(epic.getId());
-            existingEpic.setName(epic.getName());
-            existingEpic.setDescription(epic.getDescription());
+        Epic existingEpic = epic == null ? null : findEpic(epic.getId());
+        if (existingEpic != null) {
+            Epic before = epicBefore(existingEpic);
+            existingEpic.copyTextFrom(epic);
             existingEpic.setStatus(epic.getStatus());
-            existingEpic.recalcTimes(subtasks);
-            updateEpicStatus(existingEpic);
+            textIndex.add(existingEpic);
+            epicChanged(existingEpic, before);
         }
     }
 
     @Override
     public void updateSubtask(Subtask subtask) {
-        if (subtask != null && subtasks.containsKey(subtask.getId())) {
-            deindexForPriority(subtasks.get(subtask.getId()));
-            if (subtask.getStartTime().isPresent() && subtask.getDuration().isPresent()) {
-                ensureNoOverlap(subtask);
+        Subtask old = subtask == null ? null : findSubtask(subtask.getId());
+        if (old != null) {
+            // другой epicId — перенос подзадачи: новый эпик проверяется до любых изменений
+            boolean moved = old.getEpicId() != subtask.getEpicId();
+            if (moved && findEpic(subtask.getEpicId()) == null) {
+                throw new NotFoundException("Эпик не найден: " + subtask.getEpicId());
             }
-            subtasks.put(subtask.getId(), subtask);
+            ensureNoOverlap(subtask);
+            deindexForPriority(old);
+            index.put(subtask.getId(), subtask);
+            indexStatus(subtask);
+            textIndex.add(subtask);
             indexForPriority(subtask);
+            emit(ChangeEvent.Kind.UPDATED, old, subtask);
 
-            Epic epic = epics.get(subtask.getEpicId());
+            if (moved) {
+                Epic source = findEpic(old.getEpicId());
+                if (source != null) {
+                    Epic before = epicBefore(source);
+                    source.removeSubtask(subtask.getId());
+                    epicChanged(source, before);
+                }
+            }
+            Epic epic = findEpic(subtask.getEpicId());
             if (epic != null) {
-                updateEpicStatus(epic);
+                Epic before = epicBefore(epic);
+                if (moved) epic.addSubtask(subtask.getId());
+                epic.applySubtask(subtask);
+                epicChanged(epic, before);
             }
         }
     }
 
     @Override
-    public void deleteTask(int id) {
-        Task old = tasks.remove(id);
+    public Task deleteTask(int id) {
+        Task old = findTask(id);
         if (old != null) {
+            taskOrder.remove(id);
+            index.remove(id);
+            textIndex.remove(id);
             deindexForPriority(old);
             historyManager.remove(id);
+            emit(ChangeEvent.Kind.DELETED, old, null);
         }
+        return old;
     }
 
     @Override
-    public void deleteEpic(int id) {
-        Epic epic = epics.remove(id);
+    public Epic deleteEpic(int id) {
+        Epic epic = findEpic(id);
         if (epic != null) {
+            epicOrder.remove(id);
+            index.remove(id);
+            textIndex.remove(id);
             historyManager.remove(id);
-            for (int subtaskId : new java.util.ArrayList<>(epic.getSubtaskIds())) {
-                Subtask removed = subtasks.remove(subtaskId);
-                if (removed != null) deindexForPriority(removed);
+            // эпик уже убран из индекса и его список не меняется — обход без копии
+            for (int subtaskId : epic.getSubtaskIds()) {
+                Subtask removed = findSubtask(subtaskId);
+                if (removed != null) {
+                    subtaskOrder.remove(subtaskId);
+                    index.remove(subtaskId);
+                    deindexStatus(subtaskId);
+                    textIndex.remove(subtaskId);
+                    deindexForPriority(removed);
+                    emit(ChangeEvent.Kind.DELETED, removed, null);
+                }
                 historyManager.remove(subtaskId);
             }
+            emit(ChangeEvent.Kind.DELETED, epic, null);
         }
+        return epic;
     }
 
     @Override
-    public void deleteSubtask(int id) {
-        Subtask subtask = subtasks.remove(id);
+    public Subtask deleteSubtask(int id) {
+        Subtask subtask = findSubtask(id);
         if (subtask != null) {
+            subtaskOrder.remove(id);
+            index.remove(id);
+            deindexStatus(id);
+            textIndex.remove(id);
             deindexForPriority(subtask);
-            Epic epic = epics.get(subtask.getEpicId());
+            historyManager.remove(id);
+            emit(ChangeEvent.Kind.DELETED, subtask, null);
+            Epic epic = findEpic(subtask.getEpicId());
             if (epic != null) {
+                Epic before = epicBefore(epic);
                 epic.removeSubtask(id);
-                updateEpicStatus(epic);
+                epicChanged(epic, before);
+            }
+        }
+        return subtask;
+    }
+
+    /**
+     * Пакет применяется целиком или не применяется совсем: все проверки, которые могли бы прервать
+     * его на середине, выполняются заранее (см. TaskBatchValidator).
+     */
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        TaskBatchValidator.validate(batch, index::get, id, intervals::overlapsAny);
+        batchEpics = new IntObjectMap<>();
+        try {
+            TaskManager.super.applyBatch(batch);
+        } finally {
+            IntObjectMap<EpicChange> touched = batchEpics;
+            batchEpics = null;
+            touched.forEachValue(change -> {
+                if (index.get(change.epic().getId()) == change.epic()) {
+                    epicChanged(change.epic(), change.before());
+                }
+            });
+        }
+    }
+
+    /**
+     * Доверенная массовая загрузка (восстановление из файла): без проверки пересечений на каждую
+     * сущность, индекс приоритетов строится из отсортированного списка за O(n), статус и время эпика
+     * считаются один раз в конце. При validateOverlaps пересечения проверяются одним проходом O(n log n).
+     * Подзадачи привязываются к эпикам по epicId.
+     * <p>
+     * Id и ссылки на эпики проверяются до первого изменения: при ошибке менеджер остаётся прежним.
+     */
+    public void restore(Collection<Task> restoredTasks, Collection<Epic> restoredEpics,
+                        Collection<Subtask> restoredSubtasks, boolean validateOverlaps) {
+        List<Task> timed = new ArrayList<>();
+        for (Task t : restoredTasks) {
+            if (t.getStartMinute() != Task.UNSET) timed.add(t);
+        }
+        for (Subtask s : restoredSubtasks) {
+            if (s.getStartMinute() != Task.UNSET) timed.add(s);
+        }
+        if (validateOverlaps) {
+            TaskBatchValidator.ensureNoOverlaps(timed);
+        }
+        validateRestore(restoredTasks, restoredEpics, restoredSubtasks);
+
+        // сначала заданные id, затем новые: выданный id не совпадёт с заданным дальше по списку
+        assignRestoredIds(restoredTasks, restoredEpics, restoredSubtasks);
+        for (Task t : restoredTasks) {
+            taskOrder.add(t.getId());
+            index.put(t.getId(), t);
+            textIndex.add(t);
+        }
+        for (Epic e : restoredEpics) {
+            e.clearSubtasks();
+            epicOrder.add(e.getId());
+            index.put(e.getId(), e);
+            textIndex.add(e);
+        }
+        for (Subtask s : restoredSubtasks) {
+            Epic epic = findEpic(s.getEpicId());
+            subtaskOrder.add(s.getId());
+            index.put(s.getId(), s);
+            indexStatus(s);
+            textIndex.add(s);
+            epic.addSubtask(s.getId());
+            epic.applySubtask(s);
+        }
+
+        prioritizeAll(timed);
+        for (Task t : timed) {
+            if (t.getEndMinute() != Task.UNSET) intervals.add(t.id, t.getStartMinute(), t.getEndMinute());
+        }
+        for (Epic e : restoredEpics) {
+            // статус эпика без подзадач берётся как есть, как и при addEpic
+            if (!e.getSubtaskIds().isEmpty()) {
+                updateEpicStatus(e);
+            }
+        }
+    }
+
+    private Task findTask(int entityId) {
+        return find(entityId, TaskType.TASK);
+    }
+
+    private Epic findEpic(int entityId) {
+        return find(entityId, TaskType.EPIC);
+    }
+
+    private Subtask findSubtask(int entityId) {
+        return find(entityId, TaskType.SUBTASK);
+    }
+
+    // сущность с этим id, если она нужного типа, иначе null
+    @SuppressWarnings("unchecked")
+    private <T extends Task> T find(int entityId, TaskType type) {
+        Task entity = index.get(entityId);
+        return entity != null && TaskType.of(entity) == type ? (T) entity : null;
+    }
+
+    // заданные id не повторяются и свободны, каждая подзадача ссылается на эпик из загрузки или менеджера
+    private void validateRestore(Collection<Task> restoredTasks, Collection<Epic> restoredEpics,
+                                 Collection<Subtask> restoredSubtasks) {
+        IntIntMap types = new IntIntMap();
+        for (Collection<? extends Task> group : List.of(restoredTasks, restoredEpics, restoredSubtasks)) {
+            for (Task t : group) {
+                if (t.getId() == 0) continue;
+                if (index.containsKey(t.getId()) || types.containsKey(t.getId())) {
+                    throw new IllegalArgumentException("Id уже используется: " + t.getId());
+                }
+                types.put(t.getId(), TaskType.of(t).ordinal());
             }
-            historyManager.remove(id);
+        }
+        for (Subtask s : restoredSubtasks) {
+            if (types.get(s.getEpicId()) != TaskType.EPIC.ordinal() && findEpic(s.getEpicId()) == null) {
+                throw new NotFoundException("Эпик не найден: " + s.getEpicId());
+            }
+        }
+    }
+
+    private void assignRestoredIds(Collection<Task> restoredTasks, Collection<Epic> restoredEpics,
+                                   Collection<Subtask> restoredSubtasks) {
+        List<Collection<? extends Task>> groups = List.of(restoredTasks, restoredEpics, restoredSubtasks);
+        for (Collection<? extends Task> group : groups) {
+            for (Task t : group) {
+                if (t.getId() != 0) ensureId(t);
+            }
+        }
+        for (Collection<? extends Task> group : groups) {
+            for (Task t : group) {
+                if (t.getId() == 0) ensureId(t);
+            }
+        }
+    }
+
+    // статус мог смениться на месте, поэтому прежняя запись ищется во всех корзинах: их всего три
+    private void indexStatus(Subtask s) {
+        deindexStatus(s.getId());
+        TaskStatus status = s.getStatus() == null ? TaskStatus.NEW : s.getStatus();
+        subtasksByStatus.get(status).add(s.getId());
+    }
+
+    private void deindexStatus(int subtaskId) {
+        for (SortedIntSet bucket : subtasksByStatus.values()) {
+            bucket.remove(subtaskId);
         }
     }
 
     private void indexForPriority(Task t) {
-        t.getStartTime().ifPresent(st -> {
-            prioritized.remove(t);
-            prioritized.add(t);
-        });
+        unprioritize(t.id);
+        prioritize(t);
+        intervals.remove(t.id);
+        if (t.getEndMinute() != Task.UNSET) intervals.add(t.id, t.getStartMinute(), t.getEndMinute());
     }
 
     private void deindexForPriority(Task t) {
-        prioritized.remove(t);
+        unprioritize(t.id);
+        intervals.remove(t.id);
     }
 
-    private boolean overlaps(Task a, Task b) {
-        var aS = a.getStartTime();
-        var aE = a.getEndTime();
-        var bS = b.getStartTime();
-        var bE = b.getEndTime();
-        if (aS.isEmpty() || aE.isEmpty() || bS.isEmpty() || bE.isEmpty()) return false;
-        return aS.get().isBefore(bE.get()) && bS.get().isBefore(aE.get());
+    private void prioritize(Task t) {
+        if (t.getStartMinute() == Task.UNSET) return;
+        PriorityKey key = new PriorityKey(t.getStartMinute(), t.id);
+        prioritized.put(key, t);
+        priorityKeys.put(t.id, key);
+    }
+
+    // в пустой индекс TreeMap.putAll из SortedMap строит дерево за O(n), без поиска места для каждой задачи
+    private void prioritizeAll(List<Task> timed) {
+        List<Map.Entry<PriorityKey, Task>> entries = new ArrayList<>(timed.size());
+        for (Task t : timed) {
+            PriorityKey key = new PriorityKey(t.getStartMinute(), t.id);
+            entries.add(Map.entry(key, t));
+            priorityKeys.put(t.id, key);
+        }
+        entries.sort(Map.Entry.comparingByKey());
+        prioritized.putAll(new SortedRun<>(entries));
+    }
+
+    private void unprioritize(int taskId) {
+        PriorityKey key = priorityKeys.remove(taskId);
+        if (key != null) {
+            prioritized.remove(key);
+        }
     }
 
     private void ensureNoOverlap(Task candidate) {
-        boolean has = prioritized.stream()
-                .filter(t -> t.id != candidate.id)
-                .anyMatch(t -> overlaps(t, candidate));
-        if (has) throw new IllegalStateException("Интервал задачи пересекается с существующей задачей");
+        if (batchEpics != null) return;
+        long end = candidate.getEndMinute();
+        if (end == Task.UNSET) return;
+        if (intervals.overlapsAny(candidate.id, candidate.getStartMinute(), end)) {
+            throw new IllegalStateException("Интервал задачи пересекается с существующей задачей");
+        }
     }
 
     private int ensureId(Task t) {
@@ -229,38 +621,102 @@ public class InMemoryTaskManager implements TaskManager {
         return id++;
     }
 
-    private void addToHistory(Task task) {
+    void addToHistory(Task task) {
         historyManager.add(task);
     }
 
+
+    // агрегаты эпика поддерживаются при каждом изменении подзадачи, здесь только O(1)
     private void updateEpicStatus(Epic epic) {
-        List<Integer> subtaskIds = epic.getSubtaskIds();
-        if (subtaskIds.isEmpty()) {
-            epic.setStatus(TaskStatus.NEW);
-            epic.recalcTimes(subtasks);
+        epic.setStatus(epic.aggregatedStatus());
+    }
+
+    @Override
+    public ChangeFeed getChangeFeed() {
+        return changes;
+    }
+
+    // без подписчиков события не создаются и ничего не копируется
+    private void emit(ChangeEvent.Kind kind, Task before, Task after) {
+        if (!changes.hasSubscribers()) return;
+        changes.publish(kind, before == null ? null : Task.copyOf(before), after == null ? null : Task.copyOf(after));
+    }
+
+    private Epic epicBefore(Epic epic) {
+        if (batchEpics != null && batchEpics.containsKey(epic.getId())) return null;
+        return changes.hasSubscribers() ? new Epic(epic) : null;
+    }
+
+    // пересчёт статуса и событие эпика; внутри пакета — один раз в конце, с состоянием до пакета
+    private void epicChanged(Epic epic, Epic before) {
+        if (batchEpics != null) {
+            if (!batchEpics.containsKey(epic.getId())) {
+                batchEpics.put(epic.getId(), new EpicChange(epic, before));
+            }
             return;
         }
+        updateEpicStatus(epic);
+        if (changes.hasSubscribers()) {
+            changes.publish(ChangeEvent.Kind.UPDATED, before, new Epic(epic));
+        }
+    }
 
-        var statuses = subtaskIds.stream()
-                .map(subtasks::get)
-                .filter(java.util.Objects::nonNull)
-                .map(Subtask::getStatus)
-                .toList();
-
-        if (statuses.stream().anyMatch(s -> s == TaskStatus.IN_PROGRESS)) {
-            epic.setStatus(TaskStatus.IN_PROGRESS);
-        } else {
-            boolean hasNew = statuses.stream().anyMatch(s -> s == TaskStatus.NEW);
-            boolean hasDone = statuses.stream().anyMatch(s -> s == TaskStatus.DONE);
-
-            if (hasDone && !hasNew) {
-                epic.setStatus(TaskStatus.DONE);
-            } else if (hasNew && !hasDone) {
-                epic.setStatus(TaskStatus.NEW);
-            } else {
-                epic.setStatus(TaskStatus.IN_PROGRESS);
-            }
+    /**
+     * Отсортированный по ключу список как SortedMap — только для TreeMap.putAll:
+     * ему нужны размер, итератор и естественный порядок ключей.
+     */
+    private static final class SortedRun<K, V> extends AbstractMap<K, V> implements SortedMap<K, V> {
+        private final List<Map.Entry<K, V>> entries;
+
+        SortedRun(List<Map.Entry<K, V>> entries) {
+            this.entries = entries;
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return entries.iterator();
+                }
+
+                @Override
+                public int size() {
+                    return entries.size();
+                }
+            };
+        }
+
+        @Override
+        public Comparator<? super K> comparator() {
+            return null;
+        }
+
+        @Override
+        public K firstKey() {
+            if (entries.isEmpty()) throw new NoSuchElementException();
+            return entries.get(0).getKey();
+        }
+
+        @Override
+        public K lastKey() {
+            if (entries.isEmpty()) throw new NoSuchElementException();
+            return entries.get(entries.size() - 1).getKey();
+        }
+
+        @Override
+        public SortedMap<K, V> subMap(K fromKey, K toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<K, V> headMap(K toKey) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public SortedMap<K, V> tailMap(K fromKey) {
+            throw new UnsupportedOperationException();
         }
-        epic.recalcTimes(subtasks);
     }
-}
\ No newline at end of file
+}
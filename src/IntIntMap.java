@@ -0,0 +1,139 @@
+import java.util.Arrays;
+
+/**
+ * Отображение int → неотрицательный int с открытой адресацией, как IntObjectMap, но без объектов
+ * вовсе: и ключи, и значения — в int[]. Ячейка свободна, если значение -1, поэтому
+ * отрицательные значения не допускаются; get возвращает -1, если ключа нет.
+ */
+public class IntIntMap {
+
+    private static final int MIN_CAPACITY = 16;
+    private static final int FREE = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+    // ячейка — старшие биты произведения на 2^32 / φ (хэширование Фибоначчи)
+    private int shift;
+
+    public IntIntMap() {
+        allocate(MIN_CAPACITY);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int key) {
+        int i = slot(key);
+        int v;
+        while ((v = values[i]) != FREE) {
+            if (keys[i] == key) return v;
+            i = (i + 1) & mask;
+        }
+        return FREE;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != FREE;
+    }
+
+    /**
+     * @return прежнее значение или -1
+     */
+    public int put(int key, int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("Значение не может быть отрицательным: " + value);
+        }
+        int i = slot(key);
+        int v;
+        while ((v = values[i]) != FREE) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size > (mask + 1) * 3 / 4) {
+            rehash((mask + 1) << 1);
+        }
+        return FREE;
+    }
+
+    /**
+     * Байты массивов ключей и значений (без заголовков) — для оценки индекса на куче.
+     */
+    public long footprintBytes() {
+        return (long) keys.length * 2 * Integer.BYTES;
+    }
+
+    /**
+     * @return удалённое значение или -1
+     */
+    public int remove(int key) {
+        int i = slot(key);
+        int v;
+        while ((v = values[i]) != FREE) {
+            if (keys[i] == key) {
+                values[i] = FREE;
+                size--;
+                shiftBack(i);
+                return v;
+            }
+            i = (i + 1) & mask;
+        }
+        return FREE;
+    }
+
+    // тот же сдвиг хвоста цепочки, что и в IntObjectMap
+    private void shiftBack(int hole) {
+        int i = (hole + 1) & mask;
+        int v;
+        while ((v = values[i]) != FREE) {
+            int home = slot(keys[i]);
+            if (((i - home) & mask) >= ((i - hole) & mask)) {
+                keys[hole] = keys[i];
+                values[hole] = v;
+                values[i] = FREE;
+                hole = i;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    // без перемешивания ключи с общими младшими битами (id с шагом 2^k, внешние ключи)
+    // собирались бы в одну цепочку
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> shift;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+        Arrays.fill(values, FREE);
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(capacity);
+        for (int j = 0; j < oldValues.length; j++) {
+            if (oldValues[j] == FREE) continue;
+            int i = slot(oldKeys[j]);
+            while (values[i] != FREE) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+}
@@ -0,0 +1,39 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntIntMapTest {
+
+    @Test
+    void matchesHashMapOnRandomOperations() {
+        // Ключи кратны 64 и отрицательные — длинные цепочки коллизий и сдвиги при удалении
+        Random rnd = new Random(17);
+        Map<Integer, Integer> expected = new HashMap<>();
+        IntIntMap map = new IntIntMap();
+        for (int i = 0; i < 20_000; i++) {
+            int key = (rnd.nextInt(400) - 100) * (rnd.nextBoolean() ? 64 : 1);
+            if (rnd.nextInt(3) == 0) {
+                assertEquals((int) expected.getOrDefault(key, -1), map.remove(key));
+                expected.remove(key);
+            } else {
+                assertEquals((int) expected.getOrDefault(key, -1), map.put(key, i));
+                expected.put(key, i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -100 * 64; key < 400 * 64; key++) {
+            assertEquals((int) expected.getOrDefault(key, -1), map.get(key));
+        }
+    }
+
+    @Test
+    void negativeValuesRejected() {
+        IntIntMap map = new IntIntMap();
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, -1));
+        assertFalse(map.containsKey(1));
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Замер удержанной памяти на n задач (по умолчанию 1M): {@code HashMap<Integer, Task>} против {@code IntObjectMap<Task>}.
+ * Сами задачи общие, меряется только хранилище. Зависит от сборщика и размера кучи, поэтому
+ * в тесты не входит и запускается вручную, например с -Xmx1g.
+ */
+public class IntObjectMapBenchmark {
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Task[] entities = new Task[n];
+        for (int i = 0; i < n; i++) {
+            entities[i] = new Task("T", "d");
+            entities[i].setId(i + 1);
+        }
+
+        long base = usedHeap();
+        Map<Integer, Task> boxed = new HashMap<>();
+        for (Task t : entities) {
+            boxed.put(t.getId(), t);
+        }
+        long boxedBytes = usedHeap() - base;
+        int boxedSize = boxed.size();
+        boxed = null;
+
+        base = usedHeap();
+        IntObjectMap<Task> primitive = new IntObjectMap<>();
+        for (Task t : entities) {
+            primitive.put(t.getId(), t);
+        }
+        long primitiveBytes = usedHeap() - base;
+
+        System.out.printf("%d записей: HashMap<Integer, Task> ~%d МБ, IntObjectMap<Task> ~%d МБ%n",
+                boxedSize, boxedBytes >> 20, primitiveBytes >> 20);
+        System.out.println(primitive.size() == boxedSize ? "Размеры совпадают" : "Размеры различаются");
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
@@ -0,0 +1,54 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntObjectMapTest {
+
+    @Test
+    void matchesHashMapOnRandomOperations() {
+        // Ключи кратны 64 и отрицательные — длинные цепочки коллизий и сдвиги при удалении
+        Random rnd = new Random(11);
+        Map<Integer, String> expected = new HashMap<>();
+        IntObjectMap<String> map = new IntObjectMap<>();
+        for (int i = 0; i < 20_000; i++) {
+            int key = (rnd.nextInt(400) - 100) * (rnd.nextBoolean() ? 64 : 1);
+            if (rnd.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, "v" + i), map.put(key, "v" + i));
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        for (int key = -100 * 64; key < 400 * 64; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+        List<String> values = new ArrayList<>(map.values());
+        assertEquals(expected.size(), values.size());
+        assertTrue(values.containsAll(expected.values()));
+    }
+
+    @Test
+    void stridedKeysAreFoundAndIteratedCompletely() {
+        // ключи с одинаковыми младшими битами — без перемешивания одна цепочка на всю таблицу
+        IntObjectMap<Integer> map = new IntObjectMap<>();
+        for (int i = 0; i < 5_000; i++) {
+            map.put(i << 16, i);
+        }
+        map.remove(50 << 16);
+        for (int i = 0; i < 5_000; i++) {
+            assertEquals(i == 50 ? null : i, map.get(i << 16));
+        }
+        List<Integer> all = new ArrayList<>(map.values());
+        all.sort(null);
+        assertEquals(4_999, all.size());
+        assertEquals(49, (int) all.get(49));
+        assertEquals(51, (int) all.get(50));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1, null));
+    }
+}
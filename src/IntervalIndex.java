@@ -0,0 +1,290 @@
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Индекс непересекающихся интервалов [start, end), упорядоченных по (start, end, id).
+ * У такого набора концы интервалов не убывают, поэтому пересечение с кандидатом достаточно
+ * проверить у последнего интервала, начинающегося раньше конца кандидата: O(log n).
+ * С календарём слотов интервал внутри горизонта, попавший только в свободные слоты, проверяется
+ * за время, пропорциональное его длине в слотах.
+ * <p>
+ * Границы хранятся и сравниваются в минутах от эпохи, как время в Task; методы с LocalDateTime —
+ * обёртки над ними.
+ * <p>
+ * Узлы — не объекты, а номера в массивах примитивов (AVL-дерево по ключу (start, end, id)),
+ * поэтому на интервал приходится несколько десятков байтов без заголовков объектов.
+ */
+public class IntervalIndex {
+
+    private static final int NONE = -1;
+
+    // узел дерева: границы, id и ссылки; свободные узлы переиспользуются
+    private long[] starts = new long[16];
+    private long[] ends = new long[16];
+    private int[] ids = new int[16];
+    private int[] left = new int[16];
+    private int[] right = new int[16];
+    private byte[] heights = new byte[16];
+    private int[] freeNodes = new int[16];
+    private int freeCount;
+    private int nodes;
+    private int root = NONE;
+    private int size;
+    // границы запоминаются при вставке: задача может измениться снаружи до удаления из индекса
+    private final IntIntMap nodeById = new IntIntMap();
+    private final SlotCalendar calendar;
+
+    public IntervalIndex() {
+        this(null);
+    }
+
+    public IntervalIndex(SlotCalendar calendar) {
+        this.calendar = calendar;
+    }
+
+    public void add(int id, LocalDateTime start, LocalDateTime end) {
+        add(id, Task.toMinute(start), Task.toMinute(end));
+    }
+
+    public void add(int id, long start, long end) {
+        remove(id);
+        int node = allocateNode();
+        starts[node] = start;
+        ends[node] = end;
+        ids[node] = id;
+        root = attach(root, node);
+        nodeById.put(id, node);
+        size++;
+        if (calendar != null) {
+            calendar.reserve(start, end);
+        }
+    }
+
+    public void remove(int id) {
+        int node = nodeById.remove(id);
+        if (node != NONE) {
+            long start = starts[node];
+            long end = ends[node];
+            root = detach(root, start, end, id);
+            if (freeCount == freeNodes.length) freeNodes = Arrays.copyOf(freeNodes, freeCount * 2);
+            freeNodes[freeCount++] = node;
+            size--;
+            if (calendar != null) {
+                calendar.release(start, end, this::touchesSlot);
+            }
+        }
+    }
+
+    /**
+     * Пересекается ли [start, end) с каким-либо интервалом, кроме интервала с тем же id.
+     */
+    public boolean overlapsAny(int id, LocalDateTime start, LocalDateTime end) {
+        return overlapsAny(id, Task.toMinute(start), Task.toMinute(end));
+    }
+
+    public boolean overlapsAny(int id, long start, long end) {
+        if (calendarSaysFree(start, end)) {
+            return false;
+        }
+        return overlapsExact(id, start, end);
+    }
+
+    /**
+     * Пересекается ли [start, end) с каким-либо интервалом, кроме тех, для чьих id ignored возвращает true.
+     * Концы интервалов не убывают, поэтому обход назад от конца кандидата останавливается на первом
+     * интервале, закончившемся не позже start: просматриваются только пропускаемые интервалы.
+     */
+    public boolean overlapsAny(long start, long end, IntPredicate ignored) {
+        if (calendarSaysFree(start, end)) {
+            return false;
+        }
+        int last = lower(end, Long.MIN_VALUE, Integer.MIN_VALUE);
+        while (last != NONE && ends[last] > start) {
+            if (!ignored.test(ids[last])) return true;
+            last = lower(starts[last], ends[last], ids[last]);
+        }
+        return false;
+    }
+
+    /**
+     * id интервала, содержащего момент instant (start <= instant < end), или null.
+     * Интервалы не пересекаются, поэтому кандидат один — последний начавшийся не позже instant.
+     */
+    public Integer idAt(LocalDateTime instant) {
+        // границы целые минуты: start <= instant и end > instant равносильны сравнению с минутой instant
+        long minute = Task.toMinute(instant);
+        int last = lower(minute, Long.MAX_VALUE, Integer.MAX_VALUE);
+        return last != NONE && ends[last] > minute ? ids[last] : null;
+    }
+
+    private boolean calendarSaysFree(long start, long end) {
+        return calendar != null && calendar.covers(start, end) && calendar.isFree(start, end);
+    }
+
+    private boolean overlapsExact(int id, long start, long end) {
+        int last = lower(end, Long.MIN_VALUE, Integer.MIN_VALUE);
+        if (last != NONE && ids[last] == id) {
+            last = lower(starts[last], ends[last], ids[last]);
+        }
+        return last != NONE && ends[last] > start;
+    }
+
+    private boolean touchesSlot(int slot) {
+        // слот может не совпадать с границами минут: расширяем его до целых минут наружу
+        long from = calendar.slotStartMinute(slot);
+        long to = calendar.slotEndMinute(slot);
+        if (overlapsExact(Integer.MIN_VALUE, from, to)) return true;
+        // интервал нулевой длины ровно на начале слота тоже его занимает
+        int first = ceiling(from, Long.MIN_VALUE, Integer.MIN_VALUE);
+        return first != NONE && starts[first] < to;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Байты массивов узлов и отображения id → узел (без заголовков).
+     */
+    public long footprintBytes() {
+        long perNode = 2 * Long.BYTES + 3 * Integer.BYTES + 1;
+        return starts.length * perNode + (long) freeNodes.length * Integer.BYTES + nodeById.footprintBytes();
+    }
+
+    // --- дерево ---
+
+    private int compareKey(int node, long start, long end, int id) {
+        int cmp = Long.compare(starts[node], start);
+        if (cmp == 0) cmp = Long.compare(ends[node], end);
+        return cmp != 0 ? cmp : Integer.compare(ids[node], id);
+    }
+
+    // последний узел с ключом строго меньше заданного
+    private int lower(long start, long end, int id) {
+        int found = NONE;
+        for (int node = root; node != NONE; ) {
+            if (compareKey(node, start, end, id) < 0) {
+                found = node;
+                node = right[node];
+            } else {
+                node = left[node];
+            }
+        }
+        return found;
+    }
+
+    // первый узел с ключом не меньше заданного
+    private int ceiling(long start, long end, int id) {
+        int found = NONE;
+        for (int node = root; node != NONE; ) {
+            if (compareKey(node, start, end, id) >= 0) {
+                found = node;
+                node = left[node];
+            } else {
+                node = right[node];
+            }
+        }
+        return found;
+    }
+
+    private int allocateNode() {
+        if (freeCount > 0) return freeNodes[--freeCount];
+        if (nodes == starts.length) {
+            int capacity = nodes * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            left = Arrays.copyOf(left, capacity);
+            right = Arrays.copyOf(right, capacity);
+            heights = Arrays.copyOf(heights, capacity);
+        }
+        return nodes++;
+    }
+
+    private int attach(int node, int added) {
+        if (node == NONE) {
+            left[added] = right[added] = NONE;
+            heights[added] = 1;
+            return added;
+        }
+        if (compareKey(added, starts[node], ends[node], ids[node]) < 0) {
+            left[node] = attach(left[node], added);
+        } else {
+            right[node] = attach(right[node], added);
+        }
+        return rebalance(node);
+    }
+
+    private int detach(int node, long start, long end, int id) {
+        if (node == NONE) return NONE;
+        int cmp = compareKey(node, start, end, id);
+        if (cmp > 0) {
+            left[node] = detach(left[node], start, end, id);
+        } else if (cmp < 0) {
+            right[node] = detach(right[node], start, end, id);
+        } else {
+            int l = left[node];
+            int r = right[node];
+            if (l == NONE) return r;
+            if (r == NONE) return l;
+            // на место узла встаёт следующий по порядку
+            int successor = r;
+            while (left[successor] != NONE) {
+                successor = left[successor];
+            }
+            right[successor] = detachLeftmost(r);
+            left[successor] = l;
+            return rebalance(successor);
+        }
+        return rebalance(node);
+    }
+
+    private int detachLeftmost(int node) {
+        if (left[node] == NONE) return right[node];
+        left[node] = detachLeftmost(left[node]);
+        return rebalance(node);
+    }
+
+    private int rebalance(int node) {
+        updateHeight(node);
+        int diff = height(left[node]) - height(right[node]);
+        if (diff > 1) {
+            int l = left[node];
+            if (height(left[l]) < height(right[l])) left[node] = rotateLeft(l);
+            return rotateRight(node);
+        }
+        if (diff < -1) {
+            int r = right[node];
+            if (height(right[r]) < height(left[r])) right[node] = rotateRight(r);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private int rotateRight(int node) {
+        int l = left[node];
+        left[node] = right[l];
+        right[l] = node;
+        updateHeight(node);
+        updateHeight(l);
+        return l;
+    }
+
+    private int rotateLeft(int node) {
+        int r = right[node];
+        right[node] = left[r];
+        left[r] = node;
+        updateHeight(node);
+        updateHeight(r);
+        return r;
+    }
+
+    private int height(int node) {
+        return node == NONE ? 0 : heights[node];
+    }
+
+    private void updateHeight(int node) {
+        heights[node] = (byte) (1 + Math.max(height(left[node]), height(right[node])));
+    }
+}
@@ -0,0 +1,66 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IntervalIndexTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void neighbourCheckFindsOverlaps() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(1, at(60), at(120));  // 01:00-02:00
+        index.add(2, at(180), at(240)); // 03:00-04:00
+
+        assertTrue(index.overlapsAny(3, at(90), at(100)), "Внутри интервала");
+        assertTrue(index.overlapsAny(3, at(30), at(200)), "Накрывает оба интервала");
+        assertTrue(index.overlapsAny(3, at(100), at(100)), "Нулевой интервал внутри существующего");
+        assertFalse(index.overlapsAny(3, at(120), at(180)), "Стык с обеих сторон");
+        assertFalse(index.overlapsAny(3, at(60), at(60)), "Нулевой интервал на границе");
+        assertFalse(index.overlapsAny(1, at(90), at(150)), "Интервал с тем же id не учитывается");
+    }
+
+    @Test
+    void removeUsesBoundsFromInsertion() {
+        IntervalIndex index = new IntervalIndex();
+        index.add(1, at(0), at(60));
+        index.add(1, at(120), at(180)); // повторная вставка переносит интервал
+        assertFalse(index.overlapsAny(2, at(0), at(60)));
+        index.remove(1);
+        assertEquals(0, index.size());
+        assertFalse(index.overlapsAny(2, at(120), at(180)));
+    }
+
+    @Test
+    void matchesBruteForceOnRandomIntervals() {
+        Random rnd = new Random(42);
+        IntervalIndex index = new IntervalIndex();
+        List<long[]> stored = new ArrayList<>();
+        for (int i = 1; i <= 2_000; i++) {
+            long start = rnd.nextInt(20_000);
+            long end = start + (rnd.nextInt(10) == 0 ? 0 : rnd.nextInt(60));
+            boolean expected = bruteForce(stored, start, end);
+            assertEquals(expected, index.overlapsAny(i, at(start), at(end)), "Интервал №" + i);
+            if (!expected) {
+                index.add(i, at(start), at(end));
+                stored.add(new long[]{start, end});
+            }
+        }
+    }
+
+    private static boolean bruteForce(List<long[]> stored, long start, long end) {
+        for (long[] s : stored) {
+            if (s[0] < end && start < s[1]) return true;
+        }
+        return false;
+    }
+
+    private static LocalDateTime at(long minutes) {
+        return BASE.plusMinutes(minutes);
+    }
+}
@@ -0,0 +1,301 @@
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
+
+/**
+ * Множество int с порядком добавления: значения — узлы двусвязного списка в массивах,
+ * индекс значение → узел — IntIntMap. add, remove и contains — O(1), обход — в порядке добавления.
+ * Освобождённые узлы переиспользуются.
+ * <p>
+ * Множество можно отдать нескольким владельцам (share): после этого оно только читается,
+ * а владелец, которому нужно его изменить, сначала делает себе копию (копирование при записи).
+ */
+public final class LinkedIntSet {
+
+    private static final int NONE = -1;
+
+    private final IntIntMap nodes = new IntIntMap();
+    private int[] values = new int[8];
+    private int[] next = new int[8];
+    private int[] prev = new int[8];
+    private int head = NONE;
+    private int tail = NONE;
+    // свободные узлы связаны через next
+    private int free = NONE;
+    private int used;
+    private int size;
+    private int modCount;
+    // volatile: отметку ставит копирование владельца, в том числе из читающего потока
+    private volatile boolean shared;
+    private final List<Integer> view = new View();
+
+    public LinkedIntSet() {
+    }
+
+    public LinkedIntSet(LinkedIntSet other) {
+        other.forEach(this::add);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        return nodes.containsKey(value);
+    }
+
+    /**
+     * Отмечает множество общим и возвращает его же: дальше оно не меняется.
+     */
+    public LinkedIntSet share() {
+        shared = true;
+        return this;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    /**
+     * Добавляет в конец; уже имеющееся значение остаётся на своём месте.
+     */
+    public boolean add(int value) {
+        if (nodes.containsKey(value)) return false;
+        ensureNotShared();
+        int node = allocate();
+        values[node] = value;
+        next[node] = NONE;
+        prev[node] = tail;
+        if (tail == NONE) head = node;
+        else next[tail] = node;
+        tail = node;
+        nodes.put(value, node);
+        size++;
+        modCount++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        if (!nodes.containsKey(value)) return false;
+        ensureNotShared();
+        int node = nodes.remove(value);
+        int before = prev[node];
+        int after = next[node];
+        if (before == NONE) head = after;
+        else next[before] = after;
+        if (after == NONE) tail = before;
+        else prev[after] = before;
+        next[node] = free;
+        free = node;
+        size--;
+        modCount++;
+        return true;
+    }
+
+    public void clear() {
+        ensureNotShared();
+        for (int node = head; node != NONE; node = next[node]) {
+            nodes.remove(values[node]);
+        }
+        head = tail = free = NONE;
+        used = 0;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Значение на позиции index в порядке добавления: O(min(index, size - index)).
+     * Чтение ничего не меняет, поэтому его можно вести из нескольких потоков сразу;
+     * для последовательного обхода — итератор представления asList.
+     */
+    public int get(int index) {
+        return values[nodeAt(index)];
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int node = head; node != NONE; node = next[node]) {
+            action.accept(values[node]);
+        }
+    }
+
+    public int[] toArray() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int node = head; node != NONE; node = next[node]) {
+            result[i++] = values[node];
+        }
+        return result;
+    }
+
+    /**
+     * Неизменяемое представление в виде списка без копирования; изменения множества в нём видны.
+     */
+    public List<Integer> asList() {
+        return view;
+    }
+
+    @Override
+    public String toString() {
+        return view.toString();
+    }
+
+    private void ensureNotShared() {
+        if (shared) {
+            throw new IllegalStateException("Множество общее для нескольких владельцев, изменять нужно копию");
+        }
+    }
+
+    private int nodeAt(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Индекс вне диапазона: " + index);
+        }
+        int node;
+        if (index < size / 2) {
+            node = head;
+            for (int i = 0; i < index; i++) {
+                node = next[node];
+            }
+        } else {
+            node = tail;
+            for (int i = size - 1; i > index; i--) {
+                node = prev[node];
+            }
+        }
+        return node;
+    }
+
+    private int allocate() {
+        if (free != NONE) {
+            int node = free;
+            free = next[node];
+            return node;
+        }
+        if (used == values.length) {
+            values = Arrays.copyOf(values, used * 2);
+            next = Arrays.copyOf(next, used * 2);
+            prev = Arrays.copyOf(prev, used * 2);
+        }
+        return used++;
+    }
+
+    private final class View extends AbstractList<Integer> {
+
+        @Override
+        public Integer get(int index) {
+            return LinkedIntSet.this.get(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return o instanceof Integer value && nodes.containsKey(value);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            if (!contains(o)) return -1;
+            int target = (Integer) o;
+            int index = 0;
+            for (int node = head; values[node] != target; node = next[node]) {
+                index++;
+            }
+            return index;
+        }
+
+        @Override
+        public Iterator<Integer> iterator() {
+            return listIterator(0);
+        }
+
+        // положение обхода — в самом итераторе: у каждого читателя своё, equals и hashCode линейны
+        @Override
+        public ListIterator<Integer> listIterator(int index) {
+            if (index < 0 || index > size) {
+                throw new IndexOutOfBoundsException("Индекс вне диапазона: " + index);
+            }
+            return new ListIterator<>() {
+                private int nextNode = index == size ? NONE : nodeAt(index);
+                private int nextIndex = index;
+                // modCount без квалификатора здесь — поле AbstractList, а не множества
+                private final int expectedModCount = LinkedIntSet.this.modCount;
+
+                @Override
+                public boolean hasNext() {
+                    return nextIndex < size;
+                }
+
+                @Override
+                public Integer next() {
+                    checkForComodification();
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    int value = values[nextNode];
+                    nextNode = next[nextNode];
+                    nextIndex++;
+                    return value;
+                }
+
+                @Override
+                public boolean hasPrevious() {
+                    return nextIndex > 0;
+                }
+
+                @Override
+                public Integer previous() {
+                    checkForComodification();
+                    if (!hasPrevious()) {
+                        throw new NoSuchElementException();
+                    }
+                    nextNode = nextNode == NONE ? tail : prev[nextNode];
+                    nextIndex--;
+                    return values[nextNode];
+                }
+
+                @Override
+                public int nextIndex() {
+                    return nextIndex;
+                }
+
+                @Override
+                public int previousIndex() {
+                    return nextIndex - 1;
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void set(Integer value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public void add(Integer value) {
+                    throw new UnsupportedOperationException();
+                }
+
+                private void checkForComodification() {
+                    if (LinkedIntSet.this.modCount != expectedModCount) {
+                        throw new ConcurrentModificationException();
+                    }
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,140 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LinkedIntSetTest {
+
+    @Test
+    void matchesLinkedHashSetOnRandomOperations() {
+        Random rnd = new Random(23);
+        LinkedHashSet<Integer> expected = new LinkedHashSet<>();
+        LinkedIntSet set = new LinkedIntSet();
+        for (int i = 0; i < 20_000; i++) {
+            int value = rnd.nextInt(500) - 100;
+            if (rnd.nextInt(3) == 0) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        List<Integer> order = new ArrayList<>(expected);
+        assertEquals(order, set.asList(), "Порядок добавления сохраняется");
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals((int) order.get(i), set.get(i));
+        }
+        assertEquals(order.size(), set.toArray().length);
+        assertTrue(set.contains(order.get(0)));
+        assertEquals(order.indexOf(order.get(order.size() - 1)), set.asList().indexOf(order.get(order.size() - 1)));
+    }
+
+    @Test
+    void viewIsReadOnlyAndFailsFast() {
+        LinkedIntSet set = new LinkedIntSet();
+        set.add(1);
+        set.add(2);
+        assertThrows(UnsupportedOperationException.class, () -> set.asList().add(3));
+
+        Iterator<Integer> it = set.asList().iterator();
+        it.next();
+        set.remove(2);
+        assertThrows(ConcurrentModificationException.class, it::next);
+
+        set.clear();
+        assertTrue(set.isEmpty());
+        set.add(7);
+        assertEquals(List.of(7), set.asList());
+    }
+
+    @Test
+    void concurrentIndexedReadsSeeOwnPositions() throws InterruptedException {
+        LinkedIntSet set = new LinkedIntSet();
+        for (int i = 0; i < 1_000; i++) {
+            set.add(i * 3);
+        }
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> readers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            int step = t + 1;
+            Thread reader = new Thread(() -> {
+                try {
+                    for (int round = 0; round < 50; round++) {
+                        for (int i = 0; i < set.size(); i += step) {
+                            if (set.get(i) != i * 3) {
+                                throw new AssertionError("Позиция " + i + ": " + set.get(i));
+                            }
+                        }
+                        ListIterator<Integer> back = set.asList().listIterator(set.size());
+                        for (int i = set.size() - 1; i >= 0; i--) {
+                            if (back.previous() != i * 3) {
+                                throw new AssertionError("Обратный обход, позиция " + i);
+                            }
+                        }
+                    }
+                } catch (Throwable e) {
+                    failures.add(e);
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(failures.isEmpty(), "Параллельные чтения не мешают друг другу: " + failures);
+    }
+
+    @Test
+    void sharedSetIsReadOnlyAndCopiesAreIndependent() {
+        LinkedIntSet set = new LinkedIntSet();
+        set.add(1);
+        set.add(2);
+        assertSame(set, set.share());
+        assertThrows(IllegalStateException.class, () -> set.add(3));
+        assertThrows(IllegalStateException.class, () -> set.remove(1));
+        assertFalse(set.add(1), "Повторное добавление ничего не меняет и разрешено");
+
+        LinkedIntSet copy = new LinkedIntSet(set);
+        assertFalse(copy.isShared());
+        copy.add(3);
+        assertEquals(List.of(1, 2), set.asList());
+        assertEquals(List.of(1, 2, 3), copy.asList());
+    }
+
+    @Test
+    void epicCopySharesIdsUntilEitherChanges() {
+        Epic epic = new Epic("E", "d");
+        epic.addSubtask(5);
+        epic.addSubtask(3);
+        Epic copy = new Epic(epic);
+        assertSame(epic.getSubtaskIds(), copy.getSubtaskIds(), "Копия не копирует список");
+        epic.addSubtask(9);
+        copy.removeSubtask(5);
+
+        assertEquals(List.of(5, 3, 9), epic.getSubtaskIds());
+        assertEquals(List.of(3), copy.getSubtaskIds());
+    }
+
+    @Test
+    void epicJsonKeepsSubtaskOrder() {
+        com.google.gson.Gson gson = GsonAdapters.create();
+        Epic epic = new Epic("E", "d");
+        epic.addSubtask(5);
+        epic.addSubtask(3);
+        epic.addSubtask(9);
+        epic.removeSubtask(3);
+
+        String json = gson.toJson(epic);
+        assertTrue(json.contains("\"subtaskIds\":[5,9]"), json);
+        assertEquals(List.of(5, 9), gson.fromJson(json, Epic.class).getSubtaskIds());
+    }
+}
@@ -4,6 +4,18 @@ public class Managers {
         return new InMemoryTaskManager();
     }
 
+    public static TaskManager getConcurrent() {
+        return new ConcurrentTaskManager(new InMemoryTaskManager());
+    }
+
+    public static TaskManager getSnapshot() {
+        return new SnapshotTaskManager(new InMemoryTaskManager());
+    }
+
+    public static TaskManager getColumnar() {
+        return new ColumnarTaskManager();
+    }
+
     public static HistoryManager getDefaultHistory() {
         return new InMemoryHistoryManager();
     }
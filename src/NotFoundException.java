@@ -0,0 +1,13 @@
+/**
+ * Операция ссылается на сущность, которой нет (например, подзадача — на несуществующий эпик).
+ * Наследует IllegalArgumentException, поэтому прежние обработчики её тоже ловят; HTTP-слой
+ * отвечает на неё 404, а на остальные IllegalArgumentException — как на конфликт или ошибку запроса.
+ */
+public class NotFoundException extends IllegalArgumentException {
+
+    private static final long serialVersionUID = 1L;
+
+    public NotFoundException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,203 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Строки вне кучи: записи фиксированной длины в одном прямом буфере, текст в UTF-8 — в другом.
+ * Сборщик мусора видит только два объекта-буфера независимо от числа задач.
+ * <p>
+ * Поля читаются абсолютными get прямо из буфера, без разбора записи в промежуточные объекты.
+ * Чтение ничего не меняет — ни позиций буферов, ни полей, — поэтому читатели могут идти
+ * параллельно (см. ConcurrentTaskManager); изменения, как и у менеджера, требуют внешней блокировки.
+ */
+class OffHeapTaskRows implements TaskRows {
+
+    private static final int ID = 0;
+    private static final int STATUS = 4;
+    private static final int EPIC_ID = 8;
+    private static final int START = 16;
+    private static final int DURATION = 24;
+    private static final int NAME_OFFSET = 32;
+    private static final int NAME_LENGTH = 36;
+    private static final int DESCRIPTION_OFFSET = 40;
+    private static final int DESCRIPTION_LENGTH = 44;
+    private static final int RECORD_BYTES = 48;
+
+    private ByteBuffer records;
+    private ByteBuffer text;
+    private int textLength;
+    private int textGarbage;
+
+    /**
+     * Память выделяется сразу: capacity записей и textBytes байтов текста; при нехватке
+     * буфер заменяется вдвое большим, старый освобождается вместе со своим объектом-буфером.
+     */
+    OffHeapTaskRows(int capacity, int textBytes) {
+        records = allocate((long) capacity * RECORD_BYTES);
+        text = allocate(Math.max(256, textBytes));
+    }
+
+    @Override
+    public int capacity() {
+        return records.capacity() / RECORD_BYTES;
+    }
+
+    @Override
+    public void grow(int capacity) {
+        ByteBuffer grown = allocate((long) capacity * RECORD_BYTES);
+        grown.put(0, records, 0, records.capacity());
+        records = grown;
+    }
+
+    @Override
+    public int id(int row) {
+        return records.getInt(row * RECORD_BYTES + ID);
+    }
+
+    @Override
+    public byte status(int row) {
+        return records.get(row * RECORD_BYTES + STATUS);
+    }
+
+    @Override
+    public int epicId(int row) {
+        return records.getInt(row * RECORD_BYTES + EPIC_ID);
+    }
+
+    @Override
+    public long start(int row) {
+        return records.getLong(row * RECORD_BYTES + START);
+    }
+
+    @Override
+    public long duration(int row) {
+        return records.getLong(row * RECORD_BYTES + DURATION);
+    }
+
+    @Override
+    public String name(int row) {
+        int base = row * RECORD_BYTES;
+        return read(records.getInt(base + NAME_OFFSET), records.getInt(base + NAME_LENGTH));
+    }
+
+    @Override
+    public String description(int row) {
+        int base = row * RECORD_BYTES;
+        return read(records.getInt(base + DESCRIPTION_OFFSET), records.getInt(base + DESCRIPTION_LENGTH));
+    }
+
+    @Override
+    public void setId(int row, int id) {
+        records.putInt(row * RECORD_BYTES + ID, id);
+    }
+
+    @Override
+    public void setStatus(int row, byte status) {
+        records.put(row * RECORD_BYTES + STATUS, status);
+    }
+
+    @Override
+    public void setEpicId(int row, int epicId) {
+        records.putInt(row * RECORD_BYTES + EPIC_ID, epicId);
+    }
+
+    @Override
+    public void setTimes(int row, long start, long duration) {
+        records.putLong(row * RECORD_BYTES + START, start);
+        records.putLong(row * RECORD_BYTES + DURATION, duration);
+    }
+
+    @Override
+    public void setText(int row, String name, String description) {
+        int base = row * RECORD_BYTES;
+        writeText(base + NAME_OFFSET, base + NAME_LENGTH, name);
+        writeText(base + DESCRIPTION_OFFSET, base + DESCRIPTION_LENGTH, description);
+        compactIfNeeded();
+    }
+
+    @Override
+    public void clearText(int row) {
+        int base = row * RECORD_BYTES;
+        textGarbage += Math.max(records.getInt(base + NAME_LENGTH), 0)
+                + Math.max(records.getInt(base + DESCRIPTION_LENGTH), 0);
+        records.putInt(base + NAME_LENGTH, -1);
+        records.putInt(base + DESCRIPTION_LENGTH, -1);
+        compactIfNeeded();
+    }
+
+    @Override
+    public ColumnarTaskManager.StorageStats stats(int rows, int freeRows, long indexBytes) {
+        return new ColumnarTaskManager.StorageStats(true, rows, freeRows,
+                (long) records.capacity() + text.capacity(),
+                (long) rows * RECORD_BYTES + textLength,
+                textGarbage, indexBytes);
+    }
+
+    private void writeText(int offsetField, int lengthField, String s) {
+        int length = records.getInt(lengthField);
+        byte[] encoded = s == null ? null : s.getBytes(StandardCharsets.UTF_8);
+        if (textEquals(records.getInt(offsetField), length, encoded)) return;
+        textGarbage += Math.max(length, 0);
+        if (encoded == null) {
+            records.putInt(lengthField, -1);
+            return;
+        }
+        if (textLength + encoded.length > text.capacity()) {
+            ByteBuffer grown = allocate(Math.max((long) text.capacity() * 2, (long) textLength + encoded.length));
+            grown.put(0, text, 0, textLength);
+            text = grown;
+        }
+        text.put(textLength, encoded);
+        records.putInt(offsetField, textLength);
+        records.putInt(lengthField, encoded.length);
+        textLength += encoded.length;
+    }
+
+    private boolean textEquals(int offset, int length, byte[] encoded) {
+        if (encoded == null || length < 0) return encoded == null && length < 0;
+        if (encoded.length != length) return false;
+        for (int i = 0; i < length; i++) {
+            if (text.get(offset + i) != encoded[i]) return false;
+        }
+        return true;
+    }
+
+    private String read(int offset, int length) {
+        if (length < 0) return null;
+        // свой массив на вызов: общий буфер перезаписали бы параллельные читатели
+        byte[] bytes = new byte[length];
+        text.get(offset, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // у освобождённых записей длины -1, у ни разу не занятых — 0: копировать нечего
+    private void compactIfNeeded() {
+        if (textLength < MIN_COMPACT_LENGTH || textGarbage * 2 <= textLength) return;
+        ByteBuffer compacted = allocate(Math.max(256L, (long) (textLength - textGarbage) * 2));
+        int length = 0;
+        int rows = capacity();
+        for (int row = 0; row < rows; row++) {
+            int base = row * RECORD_BYTES;
+            length = move(compacted, length, base + NAME_OFFSET, base + NAME_LENGTH);
+            length = move(compacted, length, base + DESCRIPTION_OFFSET, base + DESCRIPTION_LENGTH);
+        }
+        text = compacted;
+        textLength = length;
+        textGarbage = 0;
+    }
+
+    private int move(ByteBuffer target, int position, int offsetField, int lengthField) {
+        int length = records.getInt(lengthField);
+        if (length <= 0) return position;
+        target.put(position, text, records.getInt(offsetField), length);
+        records.putInt(offsetField, position);
+        return position + length;
+    }
+
+    private static ByteBuffer allocate(long bytes) {
+        if (bytes > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Превышен размер области вне кучи: " + bytes + " байт");
+        }
+        return ByteBuffer.allocateDirect((int) bytes).order(ByteOrder.nativeOrder());
+    }
+}
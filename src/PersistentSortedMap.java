@@ -0,0 +1,241 @@
+import java.util.AbstractList;
+import java.util.ArrayDeque;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Неизменяемое отсортированное отображение на AVL-дереве с копированием пути: put и remove
+ * возвращают новую версию за O(log n), переиспользуя все незатронутые узлы старой.
+ * Узлы хранят размер поддерева, поэтому доступ по позиции тоже O(log n).
+ */
+public final class PersistentSortedMap<K, V> {
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int height;
+        final int size;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+    private final List<V> values = new Values();
+
+    private PersistentSortedMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    public static <K extends Comparable<? super K>, V> PersistentSortedMap<K, V> empty() {
+        return new PersistentSortedMap<>(Comparator.naturalOrder(), null);
+    }
+
+    public static <K, V> PersistentSortedMap<K, V> empty(Comparator<? super K> comparator) {
+        return new PersistentSortedMap<>(comparator, null);
+    }
+
+    public int size() {
+        return size(root);
+    }
+
+    public boolean isEmpty() {
+        return root == null;
+    }
+
+    public V get(K key) {
+        Node<K, V> n = root;
+        while (n != null) {
+            int cmp = comparator.compare(key, n.key);
+            if (cmp == 0) return n.value;
+            n = cmp < 0 ? n.left : n.right;
+        }
+        return null;
+    }
+
+    public PersistentSortedMap<K, V> put(K key, V value) {
+        return new PersistentSortedMap<>(comparator, put(root, key, value));
+    }
+
+    public PersistentSortedMap<K, V> remove(K key) {
+        Node<K, V> updated = remove(root, key);
+        return updated == root ? this : new PersistentSortedMap<>(comparator, updated);
+    }
+
+    /**
+     * Число ключей, строго меньших key: позиция, с которой начинаются ключи >= key.
+     */
+    public int rank(K key) {
+        int rank = 0;
+        Node<K, V> n = root;
+        while (n != null) {
+            if (comparator.compare(key, n.key) <= 0) {
+                n = n.left;
+            } else {
+                rank += size(n.left) + 1;
+                n = n.right;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Значение на позиции index в порядке ключей.
+     */
+    public V valueAt(int index) {
+        if (index < 0 || index >= size()) {
+            throw new IndexOutOfBoundsException("Индекс вне диапазона: " + index);
+        }
+        Node<K, V> n = root;
+        while (true) {
+            int leftSize = size(n.left);
+            if (index < leftSize) {
+                n = n.left;
+            } else if (index == leftSize) {
+                return n.value;
+            } else {
+                index -= leftSize + 1;
+                n = n.right;
+            }
+        }
+    }
+
+    /**
+     * Неизменяемое представление значений в порядке ключей. Создаётся один раз на версию,
+     * ничего не копирует.
+     */
+    public List<V> values() {
+        return values;
+    }
+
+    private Node<K, V> put(Node<K, V> n, K key, V value) {
+        if (n == null) {
+            return new Node<>(key, value, null, null);
+        }
+        int cmp = comparator.compare(key, n.key);
+        if (cmp == 0) {
+            return new Node<>(key, value, n.left, n.right);
+        }
+        if (cmp < 0) {
+            return balance(n.key, n.value, put(n.left, key, value), n.right);
+        }
+        return balance(n.key, n.value, n.left, put(n.right, key, value));
+    }
+
+    private Node<K, V> remove(Node<K, V> n, K key) {
+        if (n == null) {
+            return null;
+        }
+        int cmp = comparator.compare(key, n.key);
+        if (cmp < 0) {
+            Node<K, V> left = remove(n.left, key);
+            return left == n.left ? n : balance(n.key, n.value, left, n.right);
+        }
+        if (cmp > 0) {
+            Node<K, V> right = remove(n.right, key);
+            return right == n.right ? n : balance(n.key, n.value, n.left, right);
+        }
+        if (n.left == null) return n.right;
+        if (n.right == null) return n.left;
+        Node<K, V> min = n.right;
+        while (min.left != null) {
+            min = min.left;
+        }
+        return balance(min.key, min.value, n.left, removeMin(n.right));
+    }
+
+    private Node<K, V> removeMin(Node<K, V> n) {
+        if (n.left == null) return n.right;
+        return balance(n.key, n.value, removeMin(n.left), n.right);
+    }
+
+    private Node<K, V> balance(K key, V value, Node<K, V> left, Node<K, V> right) {
+        int diff = height(left) - height(right);
+        if (diff > 1) {
+            if (height(left.left) >= height(left.right)) {
+                return new Node<>(left.key, left.value, left.left, new Node<>(key, value, left.right, right));
+            }
+            Node<K, V> lr = left.right;
+            return new Node<>(lr.key, lr.value,
+                    new Node<>(left.key, left.value, left.left, lr.left),
+                    new Node<>(key, value, lr.right, right));
+        }
+        if (diff < -1) {
+            if (height(right.right) >= height(right.left)) {
+                return new Node<>(right.key, right.value, new Node<>(key, value, left, right.left), right.right);
+            }
+            Node<K, V> rl = right.left;
+            return new Node<>(rl.key, rl.value,
+                    new Node<>(key, value, left, rl.left),
+                    new Node<>(right.key, right.value, rl.right, right.right));
+        }
+        return new Node<>(key, value, left, right);
+    }
+
+    private static int height(Node<?, ?> n) {
+        return n == null ? 0 : n.height;
+    }
+
+    private static int size(Node<?, ?> n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private final class Values extends AbstractList<V> {
+
+        @Override
+        public V get(int index) {
+            return valueAt(index);
+        }
+
+        @Override
+        public int size() {
+            return PersistentSortedMap.this.size();
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            // обход по порядку со стеком вместо get(i): O(n) на весь проход
+            return new Iterator<>() {
+                private final ArrayDeque<Node<K, V>> stack = new ArrayDeque<>();
+
+                {
+                    pushLeft(root);
+                }
+
+                private void pushLeft(Node<K, V> n) {
+                    while (n != null) {
+                        stack.push(n);
+                        n = n.left;
+                    }
+                }
+
+                @Override
+                public boolean hasNext() {
+                    return !stack.isEmpty();
+                }
+
+                @Override
+                public V next() {
+                    if (stack.isEmpty()) {
+                        throw new NoSuchElementException();
+                    }
+                    Node<K, V> n = stack.pop();
+                    pushLeft(n.right);
+                    return n.value;
+                }
+            };
+        }
+    }
+}
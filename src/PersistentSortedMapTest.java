@@ -0,0 +1,70 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PersistentSortedMapTest {
+
+    @Test
+    void matchesTreeMapOnRandomOperations() {
+        Random rnd = new Random(7);
+        TreeMap<Integer, String> expected = new TreeMap<>();
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.empty();
+        for (int i = 0; i < 5_000; i++) {
+            int key = rnd.nextInt(500);
+            if (rnd.nextInt(3) == 0) {
+                expected.remove(key);
+                map = map.remove(key);
+            } else {
+                expected.put(key, "v" + i);
+                map = map.put(key, "v" + i);
+            }
+            assertEquals(expected.size(), map.size());
+        }
+        assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+        List<String> byIndex = new ArrayList<>();
+        for (int i = 0; i < map.size(); i++) {
+            byIndex.add(map.valueAt(i));
+        }
+        assertEquals(new ArrayList<>(expected.values()), byIndex);
+        for (int key = 0; key < 500; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+
+    @Test
+    void oldVersionsStayUnchanged() {
+        // Каждое изменение даёт новую версию, старые видят прежнее содержимое
+        PersistentSortedMap<Integer, String> v1 = PersistentSortedMap.<Integer, String>empty().put(1, "a").put(2, "b");
+        PersistentSortedMap<Integer, String> v2 = v1.put(2, "B").put(3, "c");
+        PersistentSortedMap<Integer, String> v3 = v2.remove(1);
+
+        assertEquals(List.of("a", "b"), v1.values());
+        assertEquals(List.of("a", "B", "c"), v2.values());
+        assertEquals(List.of("B", "c"), v3.values());
+        assertSame(v3, v3.remove(42), "Удаление отсутствующего ключа не создаёт версию");
+    }
+
+    @Test
+    void valuesViewIsReadOnly() {
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.<Integer, String>empty().put(1, "a");
+        assertThrows(UnsupportedOperationException.class, () -> map.values().add("b"));
+        assertThrows(IndexOutOfBoundsException.class, () -> map.valueAt(1));
+    }
+
+    @Test
+    void rankCountsSmallerKeys() {
+        PersistentSortedMap<Integer, String> map = PersistentSortedMap.empty();
+        for (int k = 0; k < 100; k += 10) {
+            map = map.put(k, "v" + k);
+        }
+        assertEquals(0, map.rank(-5));
+        assertEquals(3, map.rank(30));
+        assertEquals(4, map.rank(31));
+        assertEquals(10, map.rank(1000));
+    }
+}
@@ -0,0 +1,116 @@
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый текстовый индекс для версий SnapshotTaskManager: with и without возвращают новую
+ * версию за O(слов документа · log n), разделяя с прежней всё незатронутое (см. PersistentSortedMap).
+ * Разбор слов, запросы и веса — как у TextIndex.
+ */
+public final class PersistentTextIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+    private static final PersistentTextIndex EMPTY = new PersistentTextIndex(PersistentSortedMap.empty());
+
+    private record Posting(int id, int weight) {
+    }
+
+    // слово → (id → вес)
+    private final PersistentSortedMap<String, PersistentSortedMap<Integer, Posting>> postings;
+
+    private PersistentTextIndex(PersistentSortedMap<String, PersistentSortedMap<Integer, Posting>> postings) {
+        this.postings = postings;
+    }
+
+    public static PersistentTextIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Версия с документом task; прежний текст документа сначала нужно убрать через without.
+     */
+    public PersistentTextIndex with(Task task) {
+        Map<String, Integer> weights = weights(task);
+        if (weights.isEmpty()) return this;
+        var result = postings;
+        for (Map.Entry<String, Integer> e : weights.entrySet()) {
+            var docs = result.get(e.getKey());
+            if (docs == null) docs = PersistentSortedMap.empty();
+            result = result.put(e.getKey(), docs.put(task.getId(), new Posting(task.getId(), e.getValue())));
+        }
+        return new PersistentTextIndex(result);
+    }
+
+    /**
+     * Версия без документа task; слова берутся из его текста, поэтому нужен тот же объект, что был добавлен.
+     */
+    public PersistentTextIndex without(Task task) {
+        Map<String, Integer> weights = weights(task);
+        if (weights.isEmpty()) return this;
+        var result = postings;
+        for (String term : weights.keySet()) {
+            var docs = result.get(term);
+            if (docs == null) continue;
+            docs = docs.remove(task.getId());
+            result = docs.isEmpty() ? result.remove(term) : result.put(term, docs);
+        }
+        return new PersistentTextIndex(result);
+    }
+
+    /**
+     * id лучших limit документов, содержащих все слова запроса, по убыванию веса (при равенстве — по id).
+     */
+    public List<Integer> search(String query, int limit) {
+        return TextIndex.search(query, limit, this::exact, this::prefix);
+    }
+
+    private TextIndex.Postings exact(String term) {
+        var docs = postings.get(term);
+        if (docs == null) return TextIndex.postingsOf(new IntObjectMap<>());
+        return new TextIndex.Postings() {
+            @Override
+            public int size() {
+                return docs.size();
+            }
+
+            @Override
+            public int weight(int id) {
+                Posting p = docs.get(id);
+                return p == null ? 0 : p.weight();
+            }
+
+            @Override
+            public void forEach(TextIndex.WeightConsumer action) {
+                for (Posting p : docs.values()) {
+                    action.accept(p.id(), p.weight());
+                }
+            }
+        };
+    }
+
+    // документ, у которого префиксу соответствуют несколько слов, получает сумму их весов
+    private TextIndex.Postings prefix(String prefix) {
+        IntObjectMap<Integer> merged = new IntObjectMap<>();
+        int from = postings.rank(prefix);
+        int to = postings.rank(prefix + Character.MAX_VALUE);
+        for (var docs : postings.values().subList(from, to)) {
+            for (Posting p : docs.values()) {
+                Integer w = merged.get(p.id());
+                merged.put(p.id(), (w == null ? 0 : w) + p.weight());
+            }
+        }
+        return TextIndex.postingsOf(merged);
+    }
+
+    private static Map<String, Integer> weights(Task task) {
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        for (String term : TextIndex.tokenize(task.getName())) {
+            weights.merge(term, NAME_WEIGHT, Integer::sum);
+        }
+        for (String term : TextIndex.tokenize(task.getDescription())) {
+            weights.merge(term, DESCRIPTION_WEIGHT, Integer::sum);
+        }
+        return weights;
+    }
+}
@@ -85,4 +85,83 @@ public class PrioritizationAndOverlapTest {
         assertThrows(IllegalStateException.class, () -> manager.updateTask(b),
                 "Update тоже должен проверять пересечения");
     }
-}
\ No newline at end of file
+
+    @Test
+    void rejectedUpdateKeepsOriginalInterval() {
+        Task a = new Task("A", "d");
+        a.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        a.setDuration(Duration.ofMinutes(60)); // 10-11
+        manager.addTask(a);
+
+        Task b = new Task("B", "d");
+        b.setStartTime(LocalDateTime.of(2025, 1, 1, 12, 0));
+        b.setDuration(Duration.ofMinutes(60)); // 12-13
+        manager.addTask(b);
+
+        Task moved = new Task("A", "d");
+        moved.setId(a.getId());
+        moved.setStartTime(LocalDateTime.of(2025, 1, 1, 12, 30));
+        moved.setDuration(Duration.ofMinutes(60));
+        assertThrows(IllegalStateException.class, () -> manager.updateTask(moved));
+
+        // отклонённое обновление не должно освобождать исходный интервал
+        Task c = new Task("C", "d");
+        c.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 30));
+        c.setDuration(Duration.ofMinutes(15));
+        assertThrows(IllegalStateException.class, () -> manager.addTask(c));
+        assertEquals(2, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void rangeAndNextQueries() {
+        LocalDateTime base = LocalDateTime.of(2025, 3, 3, 9, 0);
+        for (int day = 0; day < 10; day++) {
+            Task t = new Task("T" + day, "d");
+            t.setStartTime(base.plusDays(day));
+            t.setDuration(Duration.ofMinutes(60));
+            manager.addTask(t);
+        }
+
+        List<Task> week = manager.getPrioritizedTasks(base.plusDays(2), base.plusDays(9), 0);
+        assertEquals(7, week.size(), "Граница to не включается");
+        assertEquals(base.plusDays(2), week.get(0).getStartTime().orElseThrow());
+
+        List<Task> next = manager.getPrioritizedTasks(base.plusDays(8).minusMinutes(1), null, 5);
+        assertEquals(2, next.size());
+        assertEquals(base.plusDays(8), next.get(0).getStartTime().orElseThrow());
+        assertEquals(3, manager.getPrioritizedTasks(null, null, 3).size());
+    }
+
+    @Test
+    void activeAtFindsRunningTask() {
+        Task a = new Task("A", "d");
+        a.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        a.setDuration(Duration.ofMinutes(60));
+        manager.addTask(a);
+        Task noDuration = new Task("B", "d");
+        noDuration.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 30));
+        manager.addTask(noDuration);
+
+        assertEquals(a, manager.getActiveAt(LocalDateTime.of(2025, 1, 1, 10, 45)).orElseThrow());
+        assertEquals(a, manager.getActiveAt(LocalDateTime.of(2025, 1, 1, 10, 0)).orElseThrow());
+        assertTrue(manager.getActiveAt(LocalDateTime.of(2025, 1, 1, 11, 0)).isEmpty(), "Конец не включается");
+    }
+
+    @Test
+    void startChangedInPlaceIsReindexed() {
+        // Задачу поменяли снаружи до updateTask: старая запись индекса не должна остаться
+        Task a = new Task("A", "d");
+        a.setStartTime(LocalDateTime.of(2025, 1, 1, 10, 0));
+        a.setDuration(Duration.ofMinutes(30));
+        manager.addTask(a);
+
+        a.setStartTime(LocalDateTime.of(2025, 1, 2, 10, 0));
+        manager.updateTask(a);
+
+        assertEquals(1, manager.getPrioritizedTasks().size());
+        assertTrue(manager.getPrioritizedTasks(LocalDateTime.of(2025, 1, 1, 0, 0),
+                LocalDateTime.of(2025, 1, 2, 0, 0), 0).isEmpty());
+        manager.deleteTask(a.getId());
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+    }
+}
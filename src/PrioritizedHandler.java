@@ -3,6 +3,10 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
 
 public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager manager;
@@ -19,7 +23,30 @@ public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
                 sendError(h, "Неподдерживаемый метод: " + h.getRequestMethod());
                 return;
             }
-            sendOk(h, manager.getPrioritizedTasks());
+            Map<String, String> params = parseQuery(h.getRequestURI().getQuery());
+            if (params.containsKey("at")) {
+                // задача, которая идёт в указанный момент: пустой список или один элемент
+                sendOk(h, manager.getActiveAt(LocalDateTime.parse(params.get("at"))).map(List::of).orElse(List.of()));
+            } else if (params.containsKey("after")) {
+                // курсор — «время начала,id» последней задачи предыдущей страницы
+                String after = params.get("after");
+                int comma = after.lastIndexOf(',');
+                LocalDateTime afterStart = comma < 0 ? null : LocalDateTime.parse(after.substring(0, comma));
+                int afterId = comma < 0 ? 0 : Integer.parseInt(after.substring(comma + 1));
+                int limit = parseLimit(params);
+                List<Task> page = manager.getPrioritizedPage(afterStart, afterId, limit);
+                Task last = page.isEmpty() ? null : page.get(page.size() - 1);
+                sendPage(h, page, limit, last == null ? "" : last.getStartTime().orElseThrow() + "," + last.getId());
+            } else if (params.containsKey("from") || params.containsKey("to") || params.containsKey("limit")) {
+                LocalDateTime from = params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null;
+                LocalDateTime to = params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null;
+                int limit = parseLimit(params, 0); // без limit — весь диапазон
+                sendOk(h, manager.getPrioritizedTasks(from, to, limit));
+            } else {
+                sendOk(h, manager.getPrioritizedTasks());
+            }
+        } catch (DateTimeParseException | NumberFormatException ex) {
+            sendBadRequest(h, "Неправильный параметр запроса: " + ex.getMessage());
         } catch (Exception ex) {
             sendError(h, "Внутренняя ошибка: " + ex.getMessage());
         }
@@ -0,0 +1,43 @@
+import com.google.gson.Gson;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+
+import java.io.IOException;
+import java.util.Map;
+
+public class SearchHandler extends BaseHttpHandler implements HttpHandler {
+    private static final int DEFAULT_LIMIT = 20;
+
+    private final TaskManager manager;
+
+    public SearchHandler(TaskManager manager, Gson gson) {
+        super(gson);
+        this.manager = manager;
+    }
+
+    @Override
+    public void handle(HttpExchange h) throws IOException {
+        try {
+            if (!"GET".equals(h.getRequestMethod())) {
+                sendError(h, "Неподдерживаемый метод: " + h.getRequestMethod());
+                return;
+            }
+            Map<String, String> params = parseQuery(h.getRequestURI().getQuery());
+            String q = params.get("q");
+            if (q == null || q.isBlank()) {
+                sendBadRequest(h, "Для поиска необходим параметр q");
+                return;
+            }
+            int limit;
+            try {
+                limit = parseLimit(params, DEFAULT_LIMIT);
+            } catch (NumberFormatException e) {
+                sendBadRequest(h, e.getMessage());
+                return;
+            }
+            sendOk(h, manager.search(q, limit));
+        } catch (Exception ex) {
+            sendError(h, "Внутренняя ошибка: " + ex.getMessage());
+        }
+    }
+}
@@ -0,0 +1,191 @@
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.function.IntPredicate;
+
+/**
+ * Битовая карта занятости слотов фиксированной длины на горизонте планирования [origin, origin + horizon).
+ * Слот занят, если его задевает хотя бы один интервал (интервал нулевой длины задевает слот, в котором лежит).
+ * Все свободные слоты гарантируют отсутствие пересечений; занятый слот требует точной проверки.
+ * <p>
+ * У каждого метода есть вариант в минутах эпохи (как Task хранит время): смещение от начала горизонта
+ * тогда считается арифметикой, без LocalDateTime и Duration на каждый вызов.
+ */
+public class SlotCalendar {
+
+    private final LocalDateTime origin;
+    // origin в секундах эпохи (UTC, как Task.toMinute) и наносекундах внутри секунды
+    private final long originSecond;
+    private final int originNano;
+    private final long slotNanos;
+    private final int slots;
+    private final long[] bits;
+
+    public SlotCalendar(LocalDateTime origin, Duration horizon, Duration slot) {
+        if (slot.isZero() || slot.isNegative() || horizon.compareTo(slot) < 0) {
+            throw new IllegalArgumentException("Некорректные параметры календаря: горизонт " + horizon + ", слот " + slot);
+        }
+        this.origin = origin;
+        this.originSecond = origin.toEpochSecond(ZoneOffset.UTC);
+        this.originNano = origin.getNano();
+        this.slotNanos = slot.toNanos();
+        long count = horizon.toNanos() / slotNanos;
+        if (count > Integer.MAX_VALUE - 63) {
+            throw new IllegalArgumentException("Слишком много слотов: " + count);
+        }
+        this.slots = (int) count;
+        this.bits = new long[(slots + 63) >>> 6];
+    }
+
+    /**
+     * Лежит ли интервал целиком внутри горизонта.
+     */
+    public boolean covers(LocalDateTime start, LocalDateTime end) {
+        return coversAt(offset(start), offset(end));
+    }
+
+    public boolean covers(long startMinute, long endMinute) {
+        return coversAt(minuteOffset(startMinute), minuteOffset(endMinute));
+    }
+
+    /**
+     * Все слоты интервала свободны. Имеет смысл только для интервалов внутри горизонта.
+     */
+    public boolean isFree(LocalDateTime start, LocalDateTime end) {
+        return isFreeAt(offset(start), offset(end));
+    }
+
+    public boolean isFree(long startMinute, long endMinute) {
+        return isFreeAt(minuteOffset(startMinute), minuteOffset(endMinute));
+    }
+
+    /**
+     * Помечает слоты, которые задевает интервал (часть за горизонтом отбрасывается).
+     */
+    public void reserve(LocalDateTime start, LocalDateTime end) {
+        reserveAt(offset(start), offset(end));
+    }
+
+    public void reserve(long startMinute, long endMinute) {
+        reserveAt(minuteOffset(startMinute), minuteOffset(endMinute));
+    }
+
+    /**
+     * Освобождает слоты интервала, которые stillUsed не признаёт занятыми. Проверяется каждый слот,
+     * а не только крайние: внутри пакета изменений интервалы могут ненадолго пересекаться,
+     * и внутренний слот тогда принадлежит не одному интервалу.
+     */
+    public void release(LocalDateTime start, LocalDateTime end, IntPredicate stillUsed) {
+        releaseAt(offset(start), offset(end), stillUsed);
+    }
+
+    public void release(long startMinute, long endMinute, IntPredicate stillUsed) {
+        releaseAt(minuteOffset(startMinute), minuteOffset(endMinute), stillUsed);
+    }
+
+    public LocalDateTime slotStart(int slot) {
+        return origin.plusNanos(slot * slotNanos);
+    }
+
+    public LocalDateTime slotEnd(int slot) {
+        return origin.plusNanos((slot + 1) * slotNanos);
+    }
+
+    /**
+     * Минута, в которой начинается слот (с округлением вниз).
+     */
+    public long slotStartMinute(int slot) {
+        long nanos = originNano + slot * slotNanos;
+        long second = originSecond + Math.floorDiv(nanos, 1_000_000_000L);
+        return Math.floorDiv(second, 60);
+    }
+
+    /**
+     * Первая минута, начинающаяся не раньше конца слота (с округлением вверх).
+     */
+    public long slotEndMinute(int slot) {
+        long nanos = originNano + (slot + 1) * slotNanos;
+        long second = originSecond + Math.floorDiv(nanos, 1_000_000_000L);
+        boolean exact = Math.floorMod(nanos, 1_000_000_000L) == 0 && Math.floorMod(second, 60) == 0;
+        return Math.floorDiv(second, 60) + (exact ? 0 : 1);
+    }
+
+    public int slotCount() {
+        return slots;
+    }
+
+    // дальше интервал задан смещениями начала и конца от origin в наносекундах
+
+    private boolean coversAt(long startOffset, long endOffset) {
+        return startOffset >= 0 && endOffset <= (long) slots * slotNanos;
+    }
+
+    private boolean isFreeAt(long startOffset, long endOffset) {
+        int from = firstSlot(startOffset);
+        int to = lastSlot(startOffset, endOffset);
+        return from > to || !anySet(from, to);
+    }
+
+    private void reserveAt(long startOffset, long endOffset) {
+        int from = firstSlot(startOffset);
+        int to = lastSlot(startOffset, endOffset);
+        for (int k = from; k <= to; k++) {
+            bits[k >>> 6] |= 1L << k;
+        }
+    }
+
+    private void releaseAt(long startOffset, long endOffset, IntPredicate stillUsed) {
+        int from = firstSlot(startOffset);
+        int to = lastSlot(startOffset, endOffset);
+        for (int k = from; k <= to; k++) {
+            if (stillUsed.test(k)) continue;
+            bits[k >>> 6] &= ~(1L << k);
+        }
+    }
+
+    private int firstSlot(long startOffset) {
+        if (startOffset < 0) return 0;
+        return (int) Math.min(startOffset / slotNanos, slots);
+    }
+
+    private int lastSlot(long startOffset, long endOffset) {
+        if (endOffset < 0) return -1;
+        long last = endOffset == startOffset ? endOffset / slotNanos
+                : (endOffset + slotNanos - 1) / slotNanos - 1;
+        return (int) Math.min(last, slots - 1);
+    }
+
+    private long minuteOffset(long minute) {
+        // как и в offset: за пределами long смещения не различаются
+        if (minute > Long.MAX_VALUE / 60 || minute < Long.MIN_VALUE / 60) {
+            return minute > 0 ? Long.MAX_VALUE : Long.MIN_VALUE;
+        }
+        long seconds = minute * 60 - originSecond;
+        if (seconds > Long.MAX_VALUE / 1_000_000_000L - 1) return Long.MAX_VALUE;
+        if (seconds < Long.MIN_VALUE / 1_000_000_000L + 1) return Long.MIN_VALUE;
+        return seconds * 1_000_000_000L - originNano;
+    }
+
+    private long offset(LocalDateTime t) {
+        // отрицательное смещение за пределами long не нужно различать: такие интервалы вне горизонта
+        Duration d = Duration.between(origin, t);
+        if (d.getSeconds() > Long.MAX_VALUE / 1_000_000_000L - 1) return Long.MAX_VALUE;
+        if (d.getSeconds() < Long.MIN_VALUE / 1_000_000_000L + 1) return Long.MIN_VALUE;
+        return d.toNanos();
+    }
+
+    private boolean anySet(int from, int to) {
+        int fw = from >>> 6;
+        int tw = to >>> 6;
+        long firstMask = -1L << from;
+        long lastMask = -1L >>> (63 - (to & 63));
+        if (fw == tw) {
+            return (bits[fw] & firstMask & lastMask) != 0;
+        }
+        if ((bits[fw] & firstMask) != 0) return true;
+        for (int w = fw + 1; w < tw; w++) {
+            if (bits[w] != 0) return true;
+        }
+        return (bits[tw] & lastMask) != 0;
+    }
+}
@@ -0,0 +1,152 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotCalendarTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void slotsAreMarkedAndReleased() {
+        SlotCalendar c = new SlotCalendar(BASE, Duration.ofDays(1), Duration.ofMinutes(15));
+        assertEquals(96, c.slotCount());
+
+        c.reserve(at(10), at(40)); // слоты 0..2
+        assertFalse(c.isFree(at(35), at(50)));
+        assertTrue(c.isFree(at(45), at(60)));
+        assertTrue(c.isFree(at(45), at(45)));
+
+        c.release(at(10), at(40), slot -> false);
+        assertTrue(c.isFree(at(0), at(45)));
+    }
+
+    @Test
+    void horizonBounds() {
+        SlotCalendar c = new SlotCalendar(BASE, Duration.ofDays(1), Duration.ofMinutes(15));
+        assertTrue(c.covers(at(0), at(24 * 60)));
+        assertFalse(c.covers(at(-1), at(10)));
+        assertFalse(c.covers(at(24 * 60 - 5), at(24 * 60 + 5)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new SlotCalendar(BASE, Duration.ofMinutes(5), Duration.ofMinutes(15)));
+    }
+
+    @Test
+    void minuteOverloadsMatchDateTimeOnes() {
+        // начало горизонта и длина слота не кратны минуте
+        LocalDateTime origin = BASE.plusSeconds(20);
+        SlotCalendar byTime = new SlotCalendar(origin, Duration.ofHours(6), Duration.ofSeconds(90));
+        SlotCalendar byMinute = new SlotCalendar(origin, Duration.ofHours(6), Duration.ofSeconds(90));
+        long base = Task.toMinute(BASE);
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            long start = base - 10 + random.nextInt(400);
+            long end = start + random.nextInt(30);
+            LocalDateTime from = Task.fromMinute(start);
+            LocalDateTime to = Task.fromMinute(end);
+            assertEquals(byTime.covers(from, to), byMinute.covers(start, end), "covers " + start + ".." + end);
+            assertEquals(byTime.isFree(from, to), byMinute.isFree(start, end), "isFree " + start + ".." + end);
+            if (random.nextInt(3) == 0) {
+                byTime.reserve(from, to);
+                byMinute.reserve(start, end);
+            } else if (random.nextInt(3) == 0) {
+                byTime.release(from, to, slot -> false);
+                byMinute.release(start, end, slot -> false);
+            }
+        }
+        for (int slot = 0; slot < byMinute.slotCount(); slot++) {
+            assertEquals(Task.toMinute(byTime.slotStart(slot)), byMinute.slotStartMinute(slot), "начало слота " + slot);
+            assertEquals(Task.ceilMinute(byTime.slotEnd(slot)), byMinute.slotEndMinute(slot), "конец слота " + slot);
+        }
+    }
+
+    @Test
+    void managerWithCalendarAgreesWithExactCheck() {
+        // Случайные добавления, переносы и удаления, в том числе за горизонтом и нулевой длины:
+        // менеджер с календарём должен принимать и отклонять ровно то же, что и без него
+        SlotCalendar calendar = new SlotCalendar(BASE, Duration.ofDays(2), Duration.ofMinutes(15));
+        InMemoryTaskManager fast = new InMemoryTaskManager(calendar);
+        InMemoryTaskManager exact = new InMemoryTaskManager();
+        Random rnd = new Random(7);
+        List<Integer> ids = new ArrayList<>();
+
+        for (int i = 0; i < 5_000; i++) {
+            int op = rnd.nextInt(10);
+            if (op < 6 || ids.isEmpty()) {
+                Task a = randomTask(rnd, 0);
+                Task b = randomTask(rnd, 0);
+                b.setStartTime(a.getStartTime().orElseThrow());
+                b.setDuration(a.getDuration().orElseThrow());
+                boolean fastOk = tryRun(() -> fast.addTask(a));
+                boolean exactOk = tryRun(() -> exact.addTask(b));
+                assertEquals(exactOk, fastOk, "Добавление №" + i);
+                if (fastOk) ids.add(a.getId());
+            } else if (op < 9) {
+                int id = ids.get(rnd.nextInt(ids.size()));
+                Task a = randomTask(rnd, id);
+                Task b = randomTask(rnd, id);
+                b.setStartTime(a.getStartTime().orElseThrow());
+                b.setDuration(a.getDuration().orElseThrow());
+                assertEquals(tryRun(() -> exact.updateTask(b)), tryRun(() -> fast.updateTask(a)), "Перенос №" + i);
+            } else {
+                int id = ids.remove(rnd.nextInt(ids.size()));
+                fast.deleteTask(id);
+                exact.deleteTask(id);
+            }
+        }
+        assertEquals(exact.getPrioritizedTasks().size(), fast.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void batchWithMomentaryOverlapKeepsSlotsOfLiveIntervals() {
+        // внутри пакета B ложится на место A до переноса A: освобождение слотов A
+        // не должно стереть слоты, которые занимает B
+        SlotCalendar calendar = new SlotCalendar(BASE, Duration.ofDays(1), Duration.ofMinutes(15));
+        InMemoryTaskManager manager = new InMemoryTaskManager(calendar);
+        Task a = new Task("A", "d");
+        a.setStartTime(at(10 * 60));
+        a.setDuration(Duration.ofMinutes(60));
+        manager.addTask(a);
+
+        Task b = new Task("B", "d");
+        b.setStartTime(at(10 * 60));
+        b.setDuration(Duration.ofMinutes(60));
+        Task movedA = new Task("A", "d");
+        movedA.setId(a.getId());
+        movedA.setStartTime(at(12 * 60));
+        movedA.setDuration(Duration.ofMinutes(60));
+        manager.applyBatch(new TaskBatch().add(b).update(movedA));
+
+        Task c = new Task("C", "d");
+        c.setStartTime(at(10 * 60 + 20));
+        c.setDuration(Duration.ofMinutes(20));
+        assertThrows(IllegalStateException.class, () -> manager.addTask(c), "C пересекается с B");
+    }
+
+    private static Task randomTask(Random rnd, int id) {
+        Task t = new Task("T", "d");
+        t.setId(id);
+        // часть интервалов выходит за двухдневный горизонт
+        t.setStartTime(at(rnd.nextInt(3 * 24 * 60) - 60));
+        t.setDuration(Duration.ofMinutes(rnd.nextInt(8) == 0 ? 0 : rnd.nextInt(90)));
+        return t;
+    }
+
+    private static boolean tryRun(Runnable r) {
+        try {
+            r.run();
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private static LocalDateTime at(long minutes) {
+        return BASE.plusMinutes(minutes);
+    }
+}
@@ -0,0 +1,660 @@
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Менеджер с чтением без блокировок. Изменения выполняются последовательно над обычным менеджером,
+ * после каждого публикуется новая неизменяемая версия состояния через одну volatile-ссылку.
+ * Версии разделяют структуру (persistent-деревья), поэтому запись стоит O(log n) на изменённую
+ * сущность, а списки getAll* и getPrioritizedTasks отдаются без копирования.
+ * <p>
+ * Объекты в списках общие для всех читателей версии — менять их нельзя, для правки берите копию
+ * через get*ById.
+ * <p>
+ * Каждая публикация — коммит с номером; версия каждой сущности помечена номером коммита, в котором
+ * она изменилась. Длинное чтение открывает транзакцию (beginRead) и видит одну версию, сколько бы
+ * записей ни прошло; запись читателей не ждёт. Старые версии отдельно не хранятся и не чистятся:
+ * структура общая, и всё, что не нужно ни текущей версии, ни открытым транзакциям, становится
+ * недостижимым и собирается сборщиком мусора JVM. Менеджер держит транзакции через слабые ссылки,
+ * поэтому и брошенная без close транзакция не удерживает свою версию.
+ * <p>
+ * Поиск и getActiveAt тоже читают только версию: текстовый индекс и интервалы в неё входят.
+ */
+public class SnapshotTaskManager implements TaskManager {
+
+    private record PriorityKey(long start, int id) {
+        // курсор точнее минуты стоит после всех задач своей минуты
+        static PriorityKey after(LocalDateTime start, int id) {
+            long minute = Task.toMinute(start);
+            return Task.fromMinute(minute).equals(start) ? new PriorityKey(minute, id)
+                    : new PriorityKey(minute, Integer.MAX_VALUE);
+        }
+    }
+
+    private static final Comparator<PriorityKey> PRIORITY_ORDER =
+            Comparator.comparingLong(PriorityKey::start).thenComparingInt(PriorityKey::id);
+
+    /**
+     * Согласованная неизменяемая версия состояния менеджера.
+     */
+    public static final class Snapshot {
+        private final PersistentSortedMap<Integer, Task> tasks;
+        private final PersistentSortedMap<Integer, Epic> epics;
+        private final PersistentSortedMap<Integer, Subtask> subtasks;
+        private final PersistentSortedMap<PriorityKey, Task> prioritized;
+        // задачи и подзадачи ненулевой длительности: интервалы не пересекаются
+        private final PersistentSortedMap<PriorityKey, Task> intervals;
+        private final PersistentTextIndex textIndex;
+        // после публикации не меняется: при записи копируется (три элемента)
+        private final Map<TaskStatus, PersistentSortedMap<Integer, Subtask>> subtasksByStatus;
+        // id → номер коммита, в котором сущность последний раз изменилась
+        private final PersistentSortedMap<Integer, Long> versions;
+        private final long sequence;
+
+        private Snapshot(PersistentSortedMap<Integer, Task> tasks, PersistentSortedMap<Integer, Epic> epics,
+                         PersistentSortedMap<Integer, Subtask> subtasks,
+                         PersistentSortedMap<PriorityKey, Task> prioritized,
+                         PersistentSortedMap<PriorityKey, Task> intervals, PersistentTextIndex textIndex,
+                         Map<TaskStatus, PersistentSortedMap<Integer, Subtask>> subtasksByStatus,
+                         PersistentSortedMap<Integer, Long> versions, long sequence) {
+            this.tasks = tasks;
+            this.epics = epics;
+            this.subtasks = subtasks;
+            this.prioritized = prioritized;
+            this.intervals = intervals;
+            this.textIndex = textIndex;
+            this.subtasksByStatus = subtasksByStatus;
+            this.versions = versions;
+            this.sequence = sequence;
+        }
+
+        /**
+         * Номер коммита, который опубликовал эту версию.
+         */
+        public long getSequence() {
+            return sequence;
+        }
+
+        /**
+         * Номер коммита, в котором сущность id получила видимое в этой версии состояние; 0, если её нет.
+         */
+        public long versionOf(int id) {
+            Long version = versions.get(id);
+            return version == null ? 0 : version;
+        }
+
+        public List<Task> getAllTasks() {
+            return tasks.values();
+        }
+
+        public List<Epic> getAllEpics() {
+            return epics.values();
+        }
+
+        public List<Subtask> getAllSubtasks() {
+            return subtasks.values();
+        }
+
+        public List<Task> getPrioritizedTasks() {
+            return prioritized.values();
+        }
+
+        public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+            return subtasksByStatus.get(status).values();
+        }
+
+        public List<Subtask> getEpicSubtasks(int epicId) {
+            Epic epic = epics.get(epicId);
+            if (epic == null) return List.of();
+            List<Subtask> result = new ArrayList<>(epic.getSubtaskIds().size());
+            for (int subtaskId : epic.getSubtaskIds()) {
+                Subtask s = subtasks.get(subtaskId);
+                if (s != null) result.add(s);
+            }
+            return result;
+        }
+
+        /**
+         * Представление отрезка индекса без копирования: границы ищутся за O(log n).
+         */
+        public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+            int lo = from == null ? 0 : prioritized.rank(new PriorityKey(Task.ceilMinute(from), Integer.MIN_VALUE));
+            int hi = to == null ? prioritized.size() : prioritized.rank(new PriorityKey(Task.ceilMinute(to), Integer.MIN_VALUE));
+            if (limit > 0) hi = Math.min(hi, lo + limit);
+            return prioritized.values().subList(lo, Math.max(lo, hi));
+        }
+
+        public List<Task> getTasksPage(int afterId, int limit) {
+            return page(tasks, afterId, limit);
+        }
+
+        public List<Epic> getEpicsPage(int afterId, int limit) {
+            return page(epics, afterId, limit);
+        }
+
+        public List<Subtask> getSubtasksPage(int afterId, int limit) {
+            return page(subtasks, afterId, limit);
+        }
+
+        public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+            return afterStart == null ? page(prioritized, null, limit)
+                    : page(prioritized, PriorityKey.after(afterStart, afterId), limit);
+        }
+
+        // позиция первого ключа строго после курсора — rank плюс сам курсор, если он ещё в карте
+        private static <K, T> List<T> page(PersistentSortedMap<K, T> map, K after, int limit) {
+            int from = after == null ? 0 : map.rank(after) + (map.get(after) != null ? 1 : 0);
+            return map.values().subList(from, Math.min(map.size(), from + Math.max(limit, 0)));
+        }
+
+        public List<Task> search(String query, int limit) {
+            List<Integer> found = textIndex.search(query, limit);
+            List<Task> result = new ArrayList<>(found.size());
+            for (int id : found) {
+                result.add(getById(id));
+            }
+            return result;
+        }
+
+        /**
+         * Интервалы не пересекаются, поэтому кандидат один — последний начавшийся не позже instant.
+         */
+        public Optional<Task> getActiveAt(LocalDateTime instant) {
+            // границы целые минуты: сравнения с instant равносильны сравнению с его минутой
+            long minute = Task.toMinute(instant);
+            int before = intervals.rank(new PriorityKey(minute, Integer.MAX_VALUE));
+            if (before == 0) return Optional.empty();
+            Task last = intervals.valueAt(before - 1);
+            return last.getEndMinute() > minute ? Optional.of(last) : Optional.empty();
+        }
+
+        public Task getTask(int id) {
+            return tasks.get(id);
+        }
+
+        public Epic getEpic(int id) {
+            return epics.get(id);
+        }
+
+        public Subtask getSubtask(int id) {
+            return subtasks.get(id);
+        }
+
+        public Task getById(int id) {
+            Task t = tasks.get(id);
+            if (t == null) t = epics.get(id);
+            if (t == null) t = subtasks.get(id);
+            return t;
+        }
+    }
+
+    /**
+     * Транзакция чтения: все чтения через snapshot() видят одну версию. Открытие и закрытие
+     * не берут блокировку менеджера.
+     */
+    public final class ReadTransaction implements AutoCloseable {
+        private final Snapshot snapshot;
+        private final OpenRead registration;
+
+        private ReadTransaction(Snapshot snapshot) {
+            this.snapshot = snapshot;
+            this.registration = new OpenRead(this, abandoned);
+        }
+
+        public Snapshot snapshot() {
+            return snapshot;
+        }
+
+        public long getSequence() {
+            return snapshot.sequence;
+        }
+
+        @Override
+        public void close() {
+            openReads.remove(registration);
+        }
+    }
+
+    // запись об открытой транзакции: номер её версии и слабая ссылка, которая не держит саму версию
+    private static final class OpenRead extends WeakReference<ReadTransaction> {
+        final long sequence;
+
+        OpenRead(ReadTransaction tx, ReferenceQueue<ReadTransaction> queue) {
+            super(tx, queue);
+            this.sequence = tx.snapshot.sequence;
+        }
+    }
+
+    private final InMemoryTaskManager delegate;
+    private volatile Snapshot current;
+    private final Set<OpenRead> openReads = ConcurrentHashMap.newKeySet();
+    // сюда попадают транзакции, собранные без close
+    private final ReferenceQueue<ReadTransaction> abandoned = new ReferenceQueue<>();
+
+    public SnapshotTaskManager(InMemoryTaskManager delegate) {
+        this.delegate = delegate;
+        Map<TaskStatus, PersistentSortedMap<Integer, Subtask>> byStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            byStatus.put(status, PersistentSortedMap.empty());
+        }
+        Snapshot s = new Snapshot(PersistentSortedMap.empty(), PersistentSortedMap.empty(),
+                PersistentSortedMap.empty(), PersistentSortedMap.empty(PRIORITY_ORDER),
+                PersistentSortedMap.empty(PRIORITY_ORDER), PersistentTextIndex.empty(), byStatus,
+                PersistentSortedMap.empty(), 0);
+        List<Integer> ids = new ArrayList<>();
+        delegate.getAllTasks().forEach(t -> ids.add(t.getId()));
+        delegate.getAllEpics().forEach(e -> ids.add(e.getId()));
+        delegate.getAllSubtasks().forEach(st -> ids.add(st.getId()));
+        for (int id : ids) {
+            s = refresh(s, id, 0);
+        }
+        this.current = s;
+    }
+
+    public ReadTransaction beginRead() {
+        expungeAbandoned();
+        ReadTransaction tx = new ReadTransaction(current);
+        openReads.add(tx.registration);
+        return tx;
+    }
+
+    /**
+     * Число открытых транзакций; собранные сборщиком без close не считаются.
+     */
+    public int getOpenReadCount() {
+        expungeAbandoned();
+        return openReads.size();
+    }
+
+    /**
+     * Номер самой старой версии, которую ещё держит открытая транзакция (или текущей, если таких нет):
+     * всё, что опубликовано раньше и не вошло в неё, уже может быть собрано.
+     */
+    public long getOldestReadSequence() {
+        expungeAbandoned();
+        long oldest = current.sequence;
+        for (OpenRead read : openReads) {
+            oldest = Math.min(oldest, read.sequence);
+        }
+        return oldest;
+    }
+
+    private void expungeAbandoned() {
+        for (var ref = abandoned.poll(); ref != null; ref = abandoned.poll()) {
+            openReads.remove(ref);
+        }
+    }
+
+    /**
+     * Текущая версия: несколько чтений из неё видят одно и то же состояние.
+     */
+    public Snapshot snapshot() {
+        return current;
+    }
+
+    @Override
+    public void addTask(Task task) {
+        write(() -> {
+            delegate.addTask(task);
+            publish(task.getId());
+        });
+    }
+
+    @Override
+    public void addEpic(Epic epic) {
+        write(() -> {
+            delegate.addEpic(epic);
+            publish(epic.getId());
+        });
+    }
+
+    @Override
+    public void addSubtask(Subtask subtask) {
+        write(() -> {
+            delegate.addSubtask(subtask);
+            publish(subtask.getId(), subtask.getEpicId());
+        });
+    }
+
+    @Override
+    public List<Task> getAllTasks() {
+        return current.getAllTasks();
+    }
+
+    @Override
+    public List<Epic> getAllEpics() {
+        return current.getAllEpics();
+    }
+
+    @Override
+    public List<Subtask> getAllSubtasks() {
+        return current.getAllSubtasks();
+    }
+
+    @Override
+    public List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return current.getSubtasksByStatus(status);
+    }
+
+    @Override
+    public List<Subtask> getEpicSubtasks(int epicId) {
+        return current.getEpicSubtasks(epicId);
+    }
+
+    @Override
+    public List<Task> search(String query, int limit) {
+        return current.search(query, limit);
+    }
+
+    @Override
+    public Task getTaskById(int id) {
+        return viewed(current.getTask(id));
+    }
+
+    @Override
+    public Epic getEpicById(int id) {
+        return (Epic) viewed(current.getEpic(id));
+    }
+
+    @Override
+    public Subtask getSubtaskById(int id) {
+        return (Subtask) viewed(current.getSubtask(id));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        write(() -> {
+            delegate.updateTask(task);
+            if (task != null) publish(task.getId());
+        });
+    }
+
+    @Override
+    public void updateEpic(Epic epic) {
+        write(() -> {
+            delegate.updateEpic(epic);
+            if (epic != null) publish(epic.getId());
+        });
+    }
+
+    @Override
+    public void updateSubtask(Subtask subtask) {
+        write(() -> {
+            if (subtask == null) {
+                delegate.updateSubtask(null);
+                return;
+            }
+            Subtask old = current.getSubtask(subtask.getId());
+            delegate.updateSubtask(subtask);
+            publish(subtask.getId(), subtask.getEpicId(), old == null ? subtask.getEpicId() : old.getEpicId());
+        });
+    }
+
+    @Override
+    public Task deleteTask(int id) {
+        return write(() -> {
+            Task removed = delegate.deleteTask(id);
+            if (removed != null) publish(id);
+            return removed;
+        });
+    }
+
+    @Override
+    public Epic deleteEpic(int id) {
+        return write(() -> {
+            Epic removed = delegate.deleteEpic(id);
+            if (removed == null) return null;
+            List<Integer> subtaskIds = removed.getSubtaskIds();
+            int[] ids = new int[subtaskIds.size() + 1];
+            ids[0] = id;
+            int i = 1;
+            for (int subtaskId : subtaskIds) {
+                ids[i++] = subtaskId;
+            }
+            publish(ids);
+            return removed;
+        });
+    }
+
+    @Override
+    public Subtask deleteSubtask(int id) {
+        return write(() -> {
+            Subtask removed = delegate.deleteSubtask(id);
+            if (removed != null) publish(id, removed.getEpicId());
+            return removed;
+        });
+    }
+
+    /**
+     * Пакет публикуется одной новой версией: читатели не видят его применённым наполовину.
+     */
+    @Override
+    public void applyBatch(TaskBatch batch) {
+        write(() -> {
+            // удаления разрешаются по версии до пакета: у удалённого эпика нужно снять и подзадачи
+            Set<Integer> touched = new LinkedHashSet<>();
+            for (TaskBatch.Operation op : batch.getOperations()) {
+                if (op.action() != TaskBatch.Action.DELETE) continue;
+                Task old = current.getById(op.id());
+                touched.add(op.id());
+                if (old instanceof Epic e) touched.addAll(e.getSubtaskIds());
+                if (old instanceof Subtask s) touched.add(s.getEpicId());
+            }
+            for (TaskBatch.Operation op : batch.getOperations()) {
+                if (op.task() instanceof Subtask s && current.getSubtask(s.getId()) != null) {
+                    touched.add(current.getSubtask(s.getId()).getEpicId());
+                }
+            }
+            try {
+                delegate.applyBatch(batch);
+            } finally {
+                for (TaskBatch.Operation op : batch.getOperations()) {
+                    if (op.task() == null) continue;
+                    touched.add(op.task().getId());
+                    if (op.task() instanceof Subtask s) touched.add(s.getEpicId());
+                }
+                touched.remove(0);
+                publish(touched.stream().mapToInt(Integer::intValue).toArray());
+            }
+        });
+    }
+
+    @Override
+    public ChangeFeed getChangeFeed() {
+        return delegate.getChangeFeed();
+    }
+
+    @Override
+    public Task peekTask(int id) {
+        return current.getTask(id);
+    }
+
+    @Override
+    public Epic peekEpic(int id) {
+        return current.getEpic(id);
+    }
+
+    @Override
+    public Subtask peekSubtask(int id) {
+        return current.getSubtask(id);
+    }
+
+    @Override
+    public Task getById(int id) {
+        return viewed(current.getById(id));
+    }
+
+    @Override
+    public TaskType typeOf(int id) {
+        Task t = current.getById(id);
+        return t == null ? null : TaskType.of(t);
+    }
+
+    @Override
+    public List<Task> getHistory() {
+        return delegate.getHistory();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks() {
+        return current.getPrioritizedTasks();
+    }
+
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return current.getPrioritizedTasks(from, to, limit);
+    }
+
+    @Override
+    public List<Task> getTasksPage(int afterId, int limit) {
+        return current.getTasksPage(afterId, limit);
+    }
+
+    @Override
+    public List<Epic> getEpicsPage(int afterId, int limit) {
+        return current.getEpicsPage(afterId, limit);
+    }
+
+    @Override
+    public List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return current.getSubtasksPage(afterId, limit);
+    }
+
+    @Override
+    public List<Task> getHistoryPage(int afterId, int limit) {
+        return delegate.getHistoryPage(afterId, limit);
+    }
+
+    @Override
+    public List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        return current.getPrioritizedPage(afterStart, afterId, limit);
+    }
+
+    @Override
+    public Optional<Task> getActiveAt(LocalDateTime instant) {
+        return current.getActiveAt(instant);
+    }
+
+    // запись — под монитором менеджера; подписчиков BLOCK пишущий ждёт уже вне его (см. ChangeFeed.afterUnlock)
+    private void write(Runnable action) {
+        write(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private <T> T write(Supplier<T> action) {
+        return delegate.getChangeFeed().afterUnlock(() -> {
+            synchronized (this) {
+                return action.get();
+            }
+        });
+    }
+
+    // по id отдаётся собственная копия: её можно менять и передавать в update*
+    private Task viewed(Task frozen) {
+        if (frozen == null) return null;
+        delegate.addToHistory(frozen);
+        return Task.copyOf(frozen);
+    }
+
+    // один вызов — один коммит, сколько бы сущностей он ни затронул
+    private void publish(int... ids) {
+        Snapshot s = current;
+        long sequence = s.sequence + 1;
+        for (int id : ids) {
+            s = refresh(s, id, sequence);
+        }
+        current = s;
+    }
+
+    /**
+     * Переносит в версию текущее состояние одной сущности из менеджера (или её удаление).
+     */
+    private Snapshot refresh(Snapshot s, int id, long sequence) {
+        var tasks = s.tasks;
+        var epics = s.epics;
+        var subtasks = s.subtasks;
+        var prioritized = s.prioritized;
+        var intervals = s.intervals;
+        var textIndex = s.textIndex;
+        var byStatus = s.subtasksByStatus;
+        var versions = s.versions;
+
+        Task old = s.getById(id);
+        if (old != null && !(old instanceof Epic) && old.getStartMinute() != Task.UNSET) {
+            prioritized = prioritized.remove(new PriorityKey(old.getStartMinute(), id));
+            intervals = intervals.remove(new PriorityKey(old.getStartMinute(), id));
+        }
+        if (old != null) {
+            textIndex = textIndex.without(old);
+        }
+        if (old instanceof Subtask) {
+            byStatus = withStatus(byStatus, statusOf(old), byStatus.get(statusOf(old)).remove(id));
+        }
+
+        Task task = delegate.peekTask(id);
+        Epic epic = delegate.peekEpic(id);
+        Subtask subtask = delegate.peekSubtask(id);
+        Task frozen = null;
+        if (task != null) {
+            frozen = Task.copyOf(task);
+            tasks = tasks.put(id, frozen);
+        } else {
+            tasks = tasks.remove(id);
+        }
+        if (epic != null) {
+            Epic frozenEpic = new Epic(epic);
+            epics = epics.put(id, frozenEpic);
+            textIndex = textIndex.with(frozenEpic);
+        } else {
+            epics = epics.remove(id);
+        }
+        if (subtask != null) {
+            frozen = Task.copyOf(subtask);
+            subtasks = subtasks.put(id, (Subtask) frozen);
+            TaskStatus status = statusOf(frozen);
+            byStatus = withStatus(byStatus, status, byStatus.get(status).put(id, (Subtask) frozen));
+        } else {
+            subtasks = subtasks.remove(id);
+        }
+        if (frozen != null) {
+            textIndex = textIndex.with(frozen);
+        }
+        if (frozen != null && frozen.getStartMinute() != Task.UNSET) {
+            PriorityKey key = new PriorityKey(frozen.getStartMinute(), id);
+            prioritized = prioritized.put(key, frozen);
+            long end = frozen.getEndMinute();
+            if (end != Task.UNSET && end > frozen.getStartMinute()) intervals = intervals.put(key, frozen);
+        }
+        if (task != null || epic != null || subtask != null) {
+            versions = versions.put(id, sequence);
+        } else {
+            versions = versions.remove(id);
+        }
+        return new Snapshot(tasks, epics, subtasks, prioritized, intervals, textIndex, byStatus, versions, sequence);
+    }
+
+    private static Map<TaskStatus, PersistentSortedMap<Integer, Subtask>> withStatus(
+            Map<TaskStatus, PersistentSortedMap<Integer, Subtask>> byStatus, TaskStatus status,
+            PersistentSortedMap<Integer, Subtask> bucket) {
+        if (byStatus.get(status) == bucket) return byStatus;
+        Map<TaskStatus, PersistentSortedMap<Integer, Subtask>> copy = new EnumMap<>(byStatus);
+        copy.put(status, bucket);
+        return copy;
+    }
+
+    private static TaskStatus statusOf(Task t) {
+        return t.getStatus() == null ? TaskStatus.NEW : t.getStatus();
+    }
+}
@@ -0,0 +1,228 @@
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SnapshotTaskManagerTest extends TaskManagerBaseTest<SnapshotTaskManager> {
+
+    @Override
+    protected SnapshotTaskManager createManager() {
+        return new SnapshotTaskManager(new InMemoryTaskManager());
+    }
+
+    @Test
+    void listsAreSharedUntilNextWrite() {
+        // Повторное чтение без изменений не создаёт новый список
+        manager.addTask(new Task("A", "d"));
+        List<Task> first = manager.getAllTasks();
+        assertSame(first, manager.getAllTasks());
+
+        manager.addTask(new Task("B", "d"));
+        assertEquals(1, first.size(), "Старая версия не меняется");
+        assertEquals(2, manager.getAllTasks().size());
+    }
+
+    @Test
+    void snapshotIsConsistentAcrossCalls() {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        manager.addSubtask(s);
+        SnapshotTaskManager.Snapshot view = manager.snapshot();
+
+        s.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(s);
+        manager.deleteEpic(e.getId());
+
+        assertEquals(TaskStatus.NEW, view.getEpic(e.getId()).getStatus());
+        assertEquals(1, view.getAllSubtasks().size());
+        assertTrue(manager.getAllEpics().isEmpty());
+        assertTrue(manager.getAllSubtasks().isEmpty());
+    }
+
+    @Test
+    void epicAndPrioritizedFollowSubtaskChanges() {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        s.setStartTime(LocalDateTime.of(2025, 5, 1, 9, 0));
+        s.setDuration(Duration.ofMinutes(30));
+        manager.addSubtask(s);
+        Task t = new Task("T", "d");
+        t.setStartTime(LocalDateTime.of(2025, 5, 1, 8, 0));
+        t.setDuration(Duration.ofMinutes(30));
+        manager.addTask(t);
+
+        assertEquals(List.of(t.getId(), s.getId()), manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+        assertEquals(s.getStartTime(), manager.getEpicById(e.getId()).getStartTime());
+
+        Subtask moved = manager.getSubtaskById(s.getId());
+        moved.setStartTime(LocalDateTime.of(2025, 5, 1, 7, 0));
+        moved.setStatus(TaskStatus.IN_PROGRESS);
+        manager.updateSubtask(moved);
+
+        assertEquals(List.of(s.getId(), t.getId()), manager.getPrioritizedTasks().stream().map(Task::getId).toList());
+        Epic epic = manager.getEpicById(e.getId());
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(moved.getStartTime(), epic.getStartTime());
+    }
+
+    @Test
+    void byIdReturnsPrivateCopyAndRecordsHistory() {
+        Task t = new Task("T", "d");
+        manager.addTask(t);
+        Task copy = manager.getTaskById(t.getId());
+        copy.setName("changed");
+
+        assertEquals("T", manager.getAllTasks().get(0).getName(), "Изменение копии не видно до updateTask");
+        assertEquals(1, manager.getHistory().size());
+    }
+
+    @Test
+    void wrapsExistingState() {
+        InMemoryTaskManager base = new InMemoryTaskManager();
+        base.addTask(new Task("A", "d"));
+        Epic e = new Epic("E", "d");
+        base.addEpic(e);
+        base.addSubtask(new Subtask("S", "d", e.getId()));
+
+        SnapshotTaskManager m = new SnapshotTaskManager(base);
+        assertEquals(1, m.getAllTasks().size());
+        assertEquals(1, m.getAllSubtasks().size());
+        assertEquals(1, m.getEpicById(e.getId()).getSubtaskIds().size());
+    }
+
+    @Test
+    void statusSlicesFollowWrites() {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        manager.addSubtask(s);
+        List<Subtask> before = manager.getSubtasksByStatus(TaskStatus.NEW);
+
+        s.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(s);
+
+        assertEquals(1, before.size(), "Срез старой версии не меняется");
+        assertTrue(manager.getSubtasksByStatus(TaskStatus.NEW).isEmpty());
+        assertEquals(s.getId(), manager.getSubtasksByStatus(TaskStatus.DONE).get(0).getId());
+        assertEquals(1, manager.getEpicSubtasks(e.getId()).size());
+    }
+
+    @Test
+    void prioritizedRangeIsViewOfVersion() {
+        LocalDateTime base = LocalDateTime.of(2025, 6, 1, 9, 0);
+        for (int i = 0; i < 6; i++) {
+            Task t = new Task("T" + i, "d");
+            t.setStartTime(base.plusHours(i));
+            t.setDuration(Duration.ofMinutes(30));
+            manager.addTask(t);
+        }
+        List<Task> range = manager.getPrioritizedTasks(base.plusHours(1), base.plusHours(4), 0);
+        assertEquals(3, range.size());
+        assertEquals(base.plusHours(1), range.get(0).getStartTime().orElseThrow());
+        assertEquals(2, manager.getPrioritizedTasks(base.plusHours(4), null, 10).size());
+        assertEquals(base.plusHours(2), manager.getActiveAt(base.plusHours(2).plusMinutes(5)).orElseThrow().getStartTime().orElseThrow());
+    }
+
+    @Test
+    void readTransactionKeepsItsVersionWhileWritesContinue() {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        manager.addSubtask(s);
+        long afterAdd = manager.snapshot().getSequence();
+
+        try (SnapshotTaskManager.ReadTransaction tx = manager.beginRead()) {
+            assertEquals(1, manager.getOpenReadCount());
+            s.setStatus(TaskStatus.DONE);
+            manager.updateSubtask(s);
+            manager.addTask(new Task("T", "d"));
+
+            // отчёт видит эпик и подзадачи на момент открытия транзакции
+            assertEquals(TaskStatus.NEW, tx.snapshot().getEpic(e.getId()).getStatus());
+            assertEquals(TaskStatus.NEW, tx.snapshot().getEpicSubtasks(e.getId()).get(0).getStatus());
+            assertTrue(tx.snapshot().getAllTasks().isEmpty());
+            assertEquals(afterAdd, manager.getOldestReadSequence());
+            assertEquals(afterAdd + 2, manager.snapshot().getSequence());
+        }
+        assertEquals(0, manager.getOpenReadCount());
+        assertEquals(manager.snapshot().getSequence(), manager.getOldestReadSequence());
+    }
+
+    @Test
+    void searchAndActiveAtReadTheVersionWithoutWriterLock() throws InterruptedException {
+        Task t = new Task("Отчёт за квартал", "сверка");
+        LocalDateTime start = LocalDateTime.of(2025, 5, 1, 10, 0);
+        t.setStartTime(start);
+        t.setDuration(Duration.ofMinutes(60));
+        manager.addTask(t);
+        Task old = manager.search("отчет", 10).get(0);
+
+        java.util.concurrent.atomic.AtomicReference<Throwable> failure = new java.util.concurrent.atomic.AtomicReference<>();
+        Thread reader = new Thread(() -> {
+            try {
+                assertEquals(List.of(t), manager.search("отч* сверка", 10));
+                assertEquals(t, manager.getActiveAt(start.plusMinutes(59).plusSeconds(30)).orElseThrow());
+                assertTrue(manager.getActiveAt(start.plusMinutes(60)).isEmpty());
+            } catch (Throwable e) {
+                failure.set(e);
+            }
+        });
+        // монитор записи занят: чтения не должны его ждать
+        synchronized (manager) {
+            reader.start();
+            reader.join(5_000);
+            assertFalse(reader.isAlive(), "Поиск и getActiveAt ждут блокировку записи");
+        }
+        assertNull(failure.get());
+
+        t.setName("Итоги");
+        manager.updateTask(t);
+        assertTrue(manager.search("отчет", 10).isEmpty(), "Старый текст уходит из индекса");
+        assertEquals("Отчёт за квартал", old.getName(), "Найденные объекты прежней версии не меняются");
+        manager.deleteTask(t.getId());
+        assertTrue(manager.getActiveAt(start.plusMinutes(10)).isEmpty());
+    }
+
+    @Test
+    void abandonedReadTransactionDoesNotPinItsVersion() throws InterruptedException {
+        manager.addTask(new Task("A", "d"));
+        SnapshotTaskManager.ReadTransaction tx = manager.beginRead();
+        java.lang.ref.WeakReference<SnapshotTaskManager.Snapshot> version =
+                new java.lang.ref.WeakReference<>(tx.snapshot());
+        assertEquals(1, manager.getOpenReadCount());
+        tx = null; // транзакция брошена без close
+        manager.addTask(new Task("B", "d"));
+
+        for (int i = 0; i < 50 && version.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(version.get(), "Брошенная транзакция не держит свою версию");
+        assertEquals(0, manager.getOpenReadCount());
+        assertEquals(manager.snapshot().getSequence(), manager.getOldestReadSequence());
+    }
+
+    @Test
+    void entityVersionsAreStampedWithCommitSequence() {
+        Task a = new Task("A", "d");
+        manager.addTask(a);
+        Task b = new Task("B", "d");
+        manager.addTask(b);
+        long created = manager.snapshot().versionOf(a.getId());
+
+        a.setName("A2");
+        manager.updateTask(a);
+        SnapshotTaskManager.Snapshot now = manager.snapshot();
+        assertEquals(now.getSequence(), now.versionOf(a.getId()));
+        assertTrue(now.versionOf(a.getId()) > created);
+        assertEquals(created + 1, now.versionOf(b.getId()), "Неизменённая сущность сохраняет свою версию");
+
+        manager.deleteTask(b.getId());
+        assertEquals(0, manager.snapshot().versionOf(b.getId()));
+    }
+}
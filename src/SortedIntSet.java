@@ -0,0 +1,111 @@
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Упорядоченное множество int на отсортированном массиве. Менеджер выдаёт id по возрастанию,
+ * поэтому вставка обычно дописывает в конец за O(1). Удаление ленивое: значение помечается
+ * в битовой карте за O(log n), а массив сжимается, когда удалённых становится больше живых, —
+ * в среднем O(1) на удаление. Поиск по курсору — двоичный, O(log n).
+ */
+public class SortedIntSet {
+
+    private static final int MIN_COMPACT = 64;
+
+    // отсортированы вместе с удалёнными; used — занятая часть массива
+    private int[] elements = new int[16];
+    private long[] removed = new long[1];
+    private int used;
+    private int size;
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int value) {
+        int pos = Arrays.binarySearch(elements, 0, used, value);
+        return pos >= 0 && !isRemoved(pos);
+    }
+
+    public boolean add(int value) {
+        int pos;
+        if (used == 0 || elements[used - 1] < value) {
+            pos = used;
+        } else {
+            pos = Arrays.binarySearch(elements, 0, used, value);
+            if (pos >= 0) {
+                if (!isRemoved(pos)) return false;
+                removed[pos >>> 6] &= ~(1L << pos);
+                size++;
+                return true;
+            }
+            // вставка в середину и так O(n): заодно выбрасываем удалённые, чтобы не сдвигать карту
+            compact();
+            pos = -Arrays.binarySearch(elements, 0, used, value) - 1;
+        }
+        if (used == elements.length) {
+            elements = Arrays.copyOf(elements, used * 2);
+            removed = Arrays.copyOf(removed, (used * 2 + 63) >>> 6);
+        }
+        System.arraycopy(elements, pos, elements, pos + 1, used - pos);
+        elements[pos] = value;
+        used++;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int value) {
+        int pos = Arrays.binarySearch(elements, 0, used, value);
+        if (pos < 0 || isRemoved(pos)) return false;
+        removed[pos >>> 6] |= 1L << pos;
+        size--;
+        if (used >= MIN_COMPACT && used - size > size) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * До limit значений, строго больших value, по возрастанию — страница по курсору.
+     */
+    public int[] valuesAfter(int value, int limit) {
+        int pos = Arrays.binarySearch(elements, 0, used, value);
+        pos = pos >= 0 ? pos + 1 : -pos - 1;
+        int[] result = new int[Math.min(Math.max(limit, 0), size)];
+        int count = 0;
+        for (; pos < used && count < result.length; pos++) {
+            if (!isRemoved(pos)) result[count++] = elements[pos];
+        }
+        return count == result.length ? result : Arrays.copyOf(result, count);
+    }
+
+    public void forEach(IntConsumer action) {
+        for (int pos = 0; pos < used; pos++) {
+            if (!isRemoved(pos)) action.accept(elements[pos]);
+        }
+    }
+
+    /**
+     * Байты массива значений и карты удалённых (без заголовков).
+     */
+    public long footprintBytes() {
+        return (long) elements.length * Integer.BYTES + (long) removed.length * Long.BYTES;
+    }
+
+    private boolean isRemoved(int pos) {
+        return (removed[pos >>> 6] & 1L << pos) != 0;
+    }
+
+    private void compact() {
+        if (used == size) return;
+        int live = 0;
+        for (int pos = 0; pos < used; pos++) {
+            if (!isRemoved(pos)) elements[live++] = elements[pos];
+        }
+        Arrays.fill(removed, 0L);
+        used = live;
+    }
+}
@@ -0,0 +1,71 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SortedIntSetTest {
+
+    private static List<Integer> values(SortedIntSet set) {
+        List<Integer> result = new ArrayList<>();
+        set.forEach(result::add);
+        return result;
+    }
+
+    private static List<Integer> after(SortedIntSet set, int value, int limit) {
+        return Arrays.stream(set.valuesAfter(value, limit)).boxed().toList();
+    }
+
+    @Test
+    void keepsOrderForOutOfOrderInserts() {
+        SortedIntSet set = new SortedIntSet();
+        for (int v : new int[]{5, 1, 40, 3, 17, 2}) {
+            assertTrue(set.add(v));
+        }
+        assertFalse(set.add(3), "Повторное добавление ничего не меняет");
+        assertEquals(6, set.size());
+        assertEquals(List.of(1, 2, 3, 5, 17, 40), values(set));
+    }
+
+    @Test
+    void valuesAfterWorksForMissingAndRemovedValues() {
+        SortedIntSet set = new SortedIntSet();
+        for (int i = 1; i <= 100; i++) {
+            set.add(i * 10);
+        }
+        assertEquals(List.of(10, 20), after(set, 0, 2));
+        assertEquals(List.of(20), after(set, 10, 1));
+        assertEquals(List.of(20), after(set, 15, 1));
+        assertEquals(0, set.valuesAfter(1000, 5).length);
+
+        assertTrue(set.remove(20));
+        assertFalse(set.remove(20));
+        assertFalse(set.contains(20));
+        assertEquals(List.of(30, 40), after(set, 10, 2), "Удалённые пропускаются");
+        assertTrue(set.add(20), "Удалённое значение можно вернуть");
+        assertEquals(List.of(20, 30), after(set, 10, 2));
+    }
+
+    @Test
+    void matchesTreeSetOnRandomOperations() {
+        Random rnd = new Random(17);
+        TreeSet<Integer> expected = new TreeSet<>();
+        SortedIntSet set = new SortedIntSet();
+        for (int i = 0; i < 50_000; i++) {
+            int value = rnd.nextInt(2_000) - 500;
+            if (rnd.nextInt(5) < 2) {
+                assertEquals(expected.remove(value), set.remove(value));
+            } else {
+                assertEquals(expected.add(value), set.add(value));
+            }
+            assertEquals(expected.size(), set.size());
+        }
+        assertEquals(new ArrayList<>(expected), values(set));
+        int cursor = expected.first();
+        assertEquals(new ArrayList<>(expected.tailSet(cursor, false)).subList(0, 10), after(set, cursor, 10));
+    }
+}
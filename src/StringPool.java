@@ -0,0 +1,80 @@
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограниченный пул строк для повторяющихся названий и описаний («Code review», текст шаблонов):
+ * равные строки, прошедшие через пул, становятся одним объектом, а дубликаты достаются сборщику.
+ * <p>
+ * Пул — кэш с прямым отображением: строка ложится в ячейку по хэшу и вытесняет прежнюю, поэтому
+ * размер ограничен числом ячеек. Блокировок нет: String неизменяема и безопасно публикуется
+ * через гонку, а проигравшая гонку запись просто даёт лишний промах.
+ */
+public class StringPool {
+
+    private static final StringPool SHARED = new StringPool(1 << 14, 1024);
+
+    private final String[] slots;
+    private final int mask;
+    private final int maxLength;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * capacity округляется вверх до степени двойки; строки длиннее maxLength не кэшируются.
+     */
+    public StringPool(int capacity, int maxLength) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Ёмкость должна быть положительной: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) size <<= 1;
+        this.slots = new String[size];
+        this.mask = size - 1;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * Пул для названий и описаний задач: через него проходят конструкторы и сеттеры Task,
+     * загрузка из файла и чтение JSON.
+     */
+    public static StringPool shared() {
+        return SHARED;
+    }
+
+    /**
+     * Равная строка из пула, если она там есть, иначе s (и s запоминается).
+     */
+    public String intern(String s) {
+        if (s == null || s.length() > maxLength) return s;
+        int h = s.hashCode();
+        int i = (h ^ (h >>> 16)) & mask;
+        String cached = slots[i];
+        if (cached != null && cached.hashCode() == h && cached.equals(s)) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        slots[i] = s;
+        return s;
+    }
+
+    public int capacity() {
+        return slots.length;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Доля обращений, вернувших строку из пула; 0, если обращений не было.
+     */
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+}
@@ -0,0 +1,111 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class StringPoolTest {
+
+    @Test
+    void equalStringsBecomeOneInstance() {
+        StringPool pool = new StringPool(64, 100);
+        String first = pool.intern(new String("Code review"));
+        String second = pool.intern(new String("Code review"));
+
+        assertSame(first, second);
+        assertEquals(1, pool.getHits());
+        assertEquals(1, pool.getMisses());
+        assertEquals(0.5, pool.getHitRate());
+        assertNull(pool.intern(null));
+    }
+
+    @Test
+    void poolIsBoundedAndSkipsLongStrings() {
+        StringPool pool = new StringPool(10, 5);
+        assertEquals(16, pool.capacity(), "Ёмкость округляется до степени двойки");
+
+        String longText = "длинный текст";
+        assertSame(longText, pool.intern(longText));
+        assertNotSame(longText, pool.intern(new String(longText)), "Длинные строки не кэшируются");
+        assertEquals(0, pool.getHits() + pool.getMisses());
+
+        // строк больше, чем ячеек: вытеснение, а не рост
+        for (int i = 0; i < 1000; i++) {
+            pool.intern("s" + i);
+        }
+        assertEquals(16, pool.capacity());
+        assertEquals(1000, pool.getMisses());
+    }
+
+    @Test
+    void concurrentInternReturnsEqualStrings() throws InterruptedException {
+        StringPool pool = new StringPool(256, 100);
+        List<Thread> threads = new ArrayList<>();
+        List<Throwable> errors = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    String s = "Deploy " + (i % 50);
+                    if (!s.equals(pool.intern(s))) {
+                        synchronized (errors) {
+                            errors.add(new AssertionError("Пул вернул другую строку для " + s));
+                        }
+                    }
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertTrue(errors.isEmpty());
+        assertEquals(40_000, pool.getHits() + pool.getMisses());
+        assertTrue(pool.getHitRate() > 0.5);
+    }
+
+    @Test
+    void tasksFromJsonAndConstructorsShareStrings() {
+        com.google.gson.Gson gson = GsonAdapters.create();
+        Task a = gson.fromJson("{\"name\":\"Шаблонная задача\",\"description\":\"Текст шаблона\"}", Task.class);
+        Task b = gson.fromJson("{\"name\":\"Шаблонная задача\",\"description\":\"Текст шаблона\"}", Task.class);
+        Task c = new Task(new String("Шаблонная задача"), new String("Текст шаблона"));
+
+        assertSame(a.getName(), b.getName());
+        assertSame(a.getDescription(), c.getDescription());
+        c.setName(new String("Текст шаблона"));
+        assertSame(a.getDescription(), c.getName());
+    }
+
+    @Test
+    void internalCopiesDoNotTouchThePool() {
+        TaskManager inMemory = new InMemoryTaskManager();
+        TaskManager columnar = new ColumnarTaskManager();
+        for (TaskManager m : List.of(inMemory, columnar)) {
+            Epic e = new Epic("Эпик шаблона", "Описание эпика");
+            m.addEpic(e);
+            m.addSubtask(new Subtask("Подзадача шаблона", "Описание подзадачи", e.getId()));
+            m.addTask(new Task("Задача шаблона", "Описание задачи"));
+        }
+        Epic rename = new Epic("Новое имя эпика", "Новое описание");
+        rename.setId(inMemory.getAllEpics().get(0).getId());
+        StringPool pool = StringPool.shared();
+        long before = pool.getHits() + pool.getMisses();
+
+        Subtask stored = inMemory.getAllSubtasks().get(0);
+        Subtask copy = (Subtask) Task.copyOf(stored);
+        assertSame(stored.getName(), copy.getName(), "Копия берёт ту же строку");
+        assertEquals(stored.getEpicId(), copy.getEpicId());
+        Task.copyOf(inMemory.getAllEpics().get(0));
+        inMemory.getTaskById(inMemory.getAllTasks().get(0).getId());
+        inMemory.getHistory();
+        inMemory.updateEpic(rename);
+        assertSame(rename.getName(), inMemory.getEpicById(rename.getId()).getName());
+        columnar.getAllTasks();
+        columnar.getAllEpics();
+        columnar.getSubtaskById(columnar.getAllSubtasks().get(0).getId());
+
+        assertEquals(before, pool.getHits() + pool.getMisses(), "Внутренние копии не обращаются к пулу");
+    }
+}
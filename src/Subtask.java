@@ -6,6 +6,17 @@ public class Subtask extends Task {
         this.epicId = epicId;
     }
 
+    public Subtask(Subtask other) {
+        super(other);
+        this.epicId = other.epicId;
+    }
+
+    // см. Task(String, String, TaskStatus)
+    Subtask(String name, String description, int epicId, TaskStatus status) {
+        super(name, description, status);
+        this.epicId = epicId;
+    }
+
     public int getEpicId() {
         return epicId;
     }
@@ -3,6 +3,7 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager manager;
@@ -16,11 +17,26 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
     public void handle(HttpExchange h) throws IOException {
         try {
             String method = h.getRequestMethod();
-            Integer id = parseId(h.getRequestURI().getQuery());
+            String query = h.getRequestURI().getQuery();
+            Integer id = parseId(query);
 
             switch (method) {
                 case "GET" -> {
-                    if (id == null) {
+                    Map<String, String> params = parseQuery(query);
+                    String status = params.get("status");
+                    if (id == null && status != null) {
+                        TaskStatus parsed;
+                        try {
+                            parsed = TaskStatus.valueOf(status);
+                        } catch (IllegalArgumentException iae) {
+                            sendError(h, "Неизвестный статус: " + status);
+                            return;
+                        }
+                        sendOk(h, manager.getSubtasksByStatus(parsed));
+                    } else if (id == null && isPageRequest(params)) {
+                        int limit = parseLimit(params);
+                        sendIdPage(h, manager.getSubtasksPage(parseAfter(params), limit), limit);
+                    } else if (id == null) {
                         sendOk(h, manager.getAllSubtasks());
                     } else {
                         Subtask s = manager.getSubtaskById(id);
@@ -60,16 +76,18 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
                         sendError(h, "Для удаления Подзадачи необходим №");
                         return;
                     }
-                    Subtask s = manager.getSubtaskById(id);
-                    if (s == null) {
+                    // удаление и проверка существования — одна операция, без записи в историю
+                    if (manager.deleteSubtask(id) == null) {
                         sendNotFound(h, "Подзадача не найдена: №" + id);
                         return;
                     }
-                    manager.deleteSubtask(id);
                     sendCreated(h);
                 }
                 default -> sendError(h, "Неподдерживаемый метод: " + method);
             }
+        } catch (NumberFormatException badPage) {
+            // limit/after страницы
+            sendBadRequest(h, badPage.getMessage());
         } catch (Exception ex) {
             sendError(h, "Внутренняя ошибка: " + ex.getMessage());
         }
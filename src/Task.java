@@ -1,41 +1,108 @@
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.Optional;
 
 public class Task {
 
+    /**
+     * «Не задано» для времени и длительности в минутах.
+     */
+    public static final long UNSET = Long.MIN_VALUE;
+
     protected String name;
     protected String description;
     protected int id;
     protected TaskStatus status;
-    protected Duration duration;
-    protected LocalDateTime startTime;
+    // время — минуты от эпохи (LocalDateTime как UTC), длительность — минуты; без объектов на задачу.
+    // В JSON остаются прежние поля startTime и duration (см. GsonAdapters)
+    protected transient long startMinute = UNSET;
+    protected transient long durationMinutes = UNSET;
 
     public Optional<Duration> getDuration() {
-        return Optional.ofNullable(duration);
+        long minutes = getDurationMinutes();
+        return minutes == UNSET ? Optional.empty() : Optional.of(Duration.ofMinutes(minutes));
     }
 
     public Optional<LocalDateTime> getStartTime() {
-        return Optional.ofNullable(startTime);
+        long minute = getStartMinute();
+        return minute == UNSET ? Optional.empty() : Optional.of(fromMinute(minute));
     }
 
     public Optional<LocalDateTime> getEndTime() {
-        if (startTime == null || duration == null) return Optional.empty();
-        return Optional.of(startTime.plus(duration));
+        long minute = getEndMinute();
+        return minute == UNSET ? Optional.empty() : Optional.of(fromMinute(minute));
     }
 
+    /**
+     * Длительность хранится в целых минутах: секунды и доли секунды отбрасываются (Duration.toMinutes),
+     * поэтому getDuration вернёт уже усечённое значение.
+     */
     public void setDuration(Duration duration) {
-        this.duration = duration;
+        this.durationMinutes = duration == null ? UNSET : duration.toMinutes();
     }
 
+    /**
+     * Время начала хранится с точностью до минуты: секунды и доли секунды отбрасываются (округление вниз),
+     * поэтому getStartTime, JSON, CSV и бинарный снимок отдают уже усечённое время.
+     */
     public void setStartTime(LocalDateTime startTime) {
-        this.startTime = startTime;
+        this.startMinute = startTime == null ? UNSET : toMinute(startTime);
+    }
+
+    public long getStartMinute() {
+        return startMinute;
+    }
+
+    public long getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    /**
+     * Конец интервала в минутах; UNSET, если не заданы начало или длительность.
+     */
+    public long getEndMinute() {
+        return startMinute == UNSET || durationMinutes == UNSET ? UNSET : startMinute + durationMinutes;
+    }
+
+    void setStartMinute(long startMinute) {
+        this.startMinute = startMinute;
+    }
+
+    void setDurationMinutes(long durationMinutes) {
+        this.durationMinutes = durationMinutes;
+    }
+
+    static long toMinute(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), 60);
     }
 
+    // первая минута, начинающаяся не раньше time
+    static long ceilMinute(LocalDateTime time) {
+        long minute = toMinute(time);
+        return fromMinute(minute).isBefore(time) ? minute + 1 : minute;
+    }
+
+    static LocalDateTime fromMinute(long minute) {
+        return LocalDateTime.ofEpochSecond(minute * 60, 0, ZoneOffset.UTC);
+    }
+
+    /**
+     * Название и описание проходят через общий пул строк (как и в сеттерах): у задач из шаблонов
+     * они повторяются, и одинаковые строки хранятся одним объектом.
+     */
     public Task(String name, String description) {
+        this(StringPool.shared().intern(name), StringPool.shared().intern(description), TaskStatus.NEW);
+    }
+
+    /**
+     * Для внутренних копий и материализации: строки берутся как есть, мимо пула и его статистики —
+     * они уже прошли через пул при создании задачи или прочитаны из хранилища менеджера.
+     */
+    Task(String name, String description, TaskStatus status) {
         this.name = name;
         this.description = description;
-        this.status = TaskStatus.NEW;
+        this.status = status;
     }
 
     public Task(Task other) {
@@ -43,28 +110,16 @@ public class Task {
         this.description = other.description;
         this.id = other.id;
         this.status = other.status;
-        this.duration = other.duration;
-        this.startTime = other.startTime;
+        this.durationMinutes = other.durationMinutes;
+        this.startMinute = other.startMinute;
     }
 
     public static Task copyOf(Task t) {
         if (t == null) return null;
         if (t instanceof Subtask s) {
-            Subtask copy = new Subtask(s.getName(), s.getDescription(), s.getEpicId());
-            copy.setId(s.getId());
-            copy.setStatus(s.getStatus());
-            copy.setStartTime(s.getStartTime().orElse(null));
-            copy.setDuration(s.getDuration().orElse(null));
-            return copy;
+            return new Subtask(s);
         } else if (t instanceof Epic e) {
-            Epic copy = new Epic(e.getName(), e.getDescription());
-            copy.setId(e.getId());
-            copy.setStatus(e.getStatus());
-            // копируем только список id подзадач (как и раньше)
-            for (Integer subId : e.getSubtaskIds()) {
-                copy.addSubtask(subId);
-            }
-            return copy;
+            return new Epic(e);
         } else {
             return new Task(t);
         }
@@ -91,7 +146,13 @@ public class Task {
     }
 
     public void setName(String name) {
-        this.name = name;
+        this.name = StringPool.shared().intern(name);
+    }
+
+    // название и описание другой задачи: они уже прошли через пул и повторно не интернируются
+    void copyTextFrom(Task other) {
+        this.name = other.name;
+        this.description = other.description;
     }
 
     public String getDescription() {
@@ -99,7 +160,7 @@ public class Task {
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        this.description = StringPool.shared().intern(description);
     }
 
     @Override
@@ -0,0 +1,54 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Упорядоченный набор изменений для TaskManager.applyBatch: добавления, обновления и удаления
+ * применяются в порядке добавления в пакет. Тип сущности при добавлении и обновлении определяется
+ * по классу объекта, удаление — по id.
+ */
+public class TaskBatch {
+
+    public enum Action {
+        ADD, UPDATE, DELETE
+    }
+
+    // для DELETE task == null
+    public record Operation(Action action, Task task, int id) {
+    }
+
+    private final List<Operation> operations = new ArrayList<>();
+
+    public TaskBatch add(Task task) {
+        return append(Action.ADD, task);
+    }
+
+    public TaskBatch update(Task task) {
+        return append(Action.UPDATE, task);
+    }
+
+    public TaskBatch delete(int id) {
+        operations.add(new Operation(Action.DELETE, null, id));
+        return this;
+    }
+
+    public List<Operation> getOperations() {
+        return Collections.unmodifiableList(operations);
+    }
+
+    public int size() {
+        return operations.size();
+    }
+
+    public boolean isEmpty() {
+        return operations.isEmpty();
+    }
+
+    private TaskBatch append(Action action, Task task) {
+        if (task == null) {
+            throw new IllegalArgumentException("Пустая задача в пакете");
+        }
+        operations.add(new Operation(action, task, 0));
+        return this;
+    }
+}
@@ -0,0 +1,135 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+
+/**
+ * Проверки для атомарного applyBatch, общие для менеджеров с разным хранением: всё, что могло бы
+ * прервать пакет на середине, проверяется заранее по модели пакета поверх текущего состояния.
+ */
+final class TaskBatchValidator {
+
+    /**
+     * Пересекается ли [start, end) с сохранённым интервалом, не считая интервалов с id из ignored.
+     */
+    interface Intervals {
+        boolean overlapsAny(long start, long end, IntPredicate ignored);
+    }
+
+    private TaskBatchValidator() {
+    }
+
+    /**
+     * Моделирует пакет, ничего не меняя: staged — итоговые версии сущностей по id (новым id
+     * назначаются так же, как их назначит менеджер, начиная с nextId), dropped — удалённые id.
+     * current возвращает сохранённую сущность по id (эпик — со списком подзадач) или null.
+     * Пересечения проверяются один раз: итоговые интервалы пакета между собой одним проходом
+     * и каждый — с сохранёнными, не считая интервалов, которые пакет заменяет или удаляет.
+     */
+    static void validate(TaskBatch batch, IntFunction<Task> current, int nextId, Intervals intervals) {
+        IntObjectMap<Task> staged = new IntObjectMap<>();
+        IntObjectMap<Boolean> dropped = new IntObjectMap<>();
+        Set<Task> added = Collections.newSetFromMap(new IdentityHashMap<>());
+        IntFunction<Task> lookup = entityId -> {
+            Task t = staged.get(entityId);
+            if (t != null || dropped.containsKey(entityId)) return t;
+            return current.apply(entityId);
+        };
+        for (TaskBatch.Operation op : batch.getOperations()) {
+            Task t = op.task();
+            switch (op.action()) {
+                case ADD -> {
+                    if (!added.add(t)) {
+                        throw new IllegalArgumentException("Задача добавлена в пакет дважды: " + t.getName());
+                    }
+                    if (t instanceof Subtask s) {
+                        if (s.getId() != 0 && s.getId() == s.getEpicId()) {
+                            throw new IllegalArgumentException("Эпик не может быть подзадачей самого себя.");
+                        }
+                        if (!(lookup.apply(s.getEpicId()) instanceof Epic)) {
+                            throw new NotFoundException("Эпик не найден: " + s.getEpicId());
+                        }
+                    }
+                    int newId = t.getId() == 0 ? nextId : t.getId();
+                    if (lookup.apply(newId) != null) {
+                        throw new IllegalArgumentException("Id уже используется: " + newId);
+                    }
+                    nextId = Math.max(nextId, newId + 1);
+                    staged.put(newId, t);
+                    dropped.remove(newId);
+                }
+                case UPDATE -> {
+                    // как и одиночное обновление, отсутствующая сущность или другой тип пропускаются
+                    Task existing = lookup.apply(t.getId());
+                    if (existing != null && TaskType.of(existing) == TaskType.of(t) && !(t instanceof Epic)) {
+                        // перенос подзадачи в другой эпик — эпик должен существовать
+                        if (t instanceof Subtask s && ((Subtask) existing).getEpicId() != s.getEpicId()
+                                && !(lookup.apply(s.getEpicId()) instanceof Epic)) {
+                            throw new NotFoundException("Эпик не найден: " + s.getEpicId());
+                        }
+                        staged.put(t.getId(), t);
+                    }
+                }
+                case DELETE -> {
+                    Task existing = lookup.apply(op.id());
+                    if (existing instanceof Epic epic) {
+                        List<Integer> orphans = new ArrayList<>();
+                        for (int subtaskId : epic.getSubtaskIds()) {
+                            // подзадачи, перенесённые пакетом в другой эпик, остаются
+                            Task moved = staged.get(subtaskId);
+                            if (!(moved instanceof Subtask s) || s.getEpicId() == op.id()) orphans.add(subtaskId);
+                        }
+                        staged.forEach((stagedId, st) -> {
+                            if (st instanceof Subtask s && s.getEpicId() == op.id()) orphans.add(stagedId);
+                        });
+                        for (int orphan : orphans) {
+                            staged.remove(orphan);
+                            dropped.put(orphan, Boolean.TRUE);
+                        }
+                    }
+                    if (existing != null) {
+                        staged.remove(op.id());
+                        dropped.put(op.id(), Boolean.TRUE);
+                    }
+                }
+            }
+        }
+
+        List<Task> timed = new ArrayList<>();
+        staged.forEachValue(t -> {
+            if (!(t instanceof Epic) && t.getEndMinute() != Task.UNSET) {
+                timed.add(t);
+            }
+        });
+        ensureNoOverlaps(timed);
+        for (Task t : timed) {
+            if (intervals.overlapsAny(t.getStartMinute(), t.getEndMinute(),
+                    other -> staged.containsKey(other) || dropped.containsKey(other))) {
+                throw new IllegalStateException("Интервал задачи пересекается с существующей задачей");
+            }
+        }
+    }
+
+    /**
+     * У непересекающихся интервалов, упорядоченных по (start, end), каждый следующий начинается
+     * не раньше максимального конца предыдущих.
+     */
+    static void ensureNoOverlaps(List<Task> candidates) {
+        List<Task> withEnd = new ArrayList<>();
+        for (Task t : candidates) {
+            if (t.getEndMinute() != Task.UNSET) withEnd.add(t);
+        }
+        withEnd.sort(Comparator.comparingLong(Task::getStartMinute).thenComparingLong(Task::getEndMinute));
+        long maxEnd = Long.MIN_VALUE;
+        for (Task t : withEnd) {
+            if (maxEnd > t.getStartMinute()) {
+                throw new IllegalStateException("Интервал задачи пересекается с существующей задачей");
+            }
+            maxEnd = Math.max(maxEnd, t.getEndMinute());
+        }
+    }
+}
@@ -0,0 +1,335 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Журнал изменений. Записи ставятся в ограниченную очередь, единственный поток-писатель
+ * забирает их пачками и пишет одной операцией (и одним force для FSYNC).
+ */
+public class TaskJournal {
+
+    public static final String ADD = "ADD";
+    public static final String UPDATE = "UPDATE";
+    public static final String DELETE = "DELETE";
+    public static final String BATCH = "BATCH";
+
+    private static final int QUEUE_CAPACITY = 4096;
+
+    public record Record(long seq, String op, String payload) {
+    }
+
+    private interface Control {
+        void run() throws IOException;
+    }
+
+    // либо готовая запись, либо служебная операция над файлом; после операции с last поток-писатель завершается
+    private record Entry(byte[] bytes, Control control, CompletableFuture<Void> done, boolean last) {
+    }
+
+    private final File file;
+    private final Durability durability;
+    private final BlockingQueue<Entry> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    private long seq = 0;
+    private volatile long size = 0;
+    private volatile boolean open = false;
+    private volatile Throwable failure;
+    private Thread writer;
+    private FileChannel channel;
+    private volatile boolean closed = false;
+    // проверка closed и постановка в очередь — одно действие: после close в очередь ничего не попадает
+    private final Object queueLock = new Object();
+
+    public TaskJournal(File file) {
+        this(file, Durability.WRITE);
+    }
+
+    public TaskJournal(File file, Durability durability) {
+        this.file = file;
+        this.durability = durability;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public Durability getDurability() {
+        return durability;
+    }
+
+    public long getSeq() {
+        return seq;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Текущий размер журнала в байтах, включая записи, ещё стоящие в очереди.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Журнал начинает принимать записи после того, как его база (снапшот) записана на диск.
+     */
+    void open(long seq) {
+        this.seq = Math.max(this.seq, seq);
+        this.size = file.length();
+        if (writer == null || closed) {
+            closed = false;
+            try {
+                channel = openChannel();
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка открытия журнала: " + file, e);
+            }
+            writer = new Thread(this::writeLoop, "journal-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        this.open = true;
+    }
+
+    /**
+     * Ставит запись в очередь. Вызывается под блокировкой менеджера, ждать результата нужно уже
+     * после её снятия — так параллельные клиенты попадают в одну пачку. Для ASYNC возвращает null.
+     */
+    public CompletableFuture<Void> append(String op, String payload) {
+        if (failure != null) {
+            throw new ManagerSaveException("Журнал недоступен после ошибки записи: " + file, failure);
+        }
+        byte[] record = ((seq + 1) + "," + op + "," + payload + "\n").getBytes(StandardCharsets.UTF_8);
+        CompletableFuture<Void> done = durability == Durability.ASYNC ? null : new CompletableFuture<>();
+        synchronized (queueLock) {
+            if (closed) {
+                throw new ManagerSaveException("Журнал закрыт: " + file);
+            }
+            enqueue(new Entry(record, null, done, false));
+        }
+        seq++;
+        size += record.length;
+        return done;
+    }
+
+    /**
+     * Дожидается записи всего, что уже поставлено в очередь.
+     */
+    public void flush() {
+        runOnWriter(() -> {
+        });
+    }
+
+    public void truncate() {
+        runOnWriter(() -> {
+            if (channel != null) {
+                channel.truncate(0);
+                channel.force(true);
+            } else {
+                Files.writeString(file.toPath(), "", StandardCharsets.UTF_8);
+                DurableFiles.force(file.toPath());
+            }
+            size = 0;
+        });
+    }
+
+    /**
+     * Отрезает первые offset байт журнала: оставшийся хвост переписывается во временный файл,
+     * который сбрасывается на диск и атомарно подменяет журнал.
+     */
+    public void dropPrefix(long offset) {
+        if (offset <= 0) return;
+        runOnWriter(() -> {
+            Path tmp = Path.of(file.getPath() + ".tmp");
+            byte[] tail;
+            try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+                tail = new byte[(int) (in.length() - offset)];
+                in.seek(offset);
+                in.readFully(tail);
+            }
+            Files.write(tmp, tail);
+            DurableFiles.replace(tmp, file.toPath());
+            if (channel != null) {
+                channel.close();
+                channel = openChannel();
+            }
+            size = tail.length;
+        });
+    }
+
+    /**
+     * Дописывает очередь и останавливает поток-писатель. Новые записи после этого отклоняются,
+     * служебные операции выполняются в вызывающем потоке; open запускает журнал заново.
+     */
+    public void close() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (queueLock) {
+            if (writer == null || closed) return;
+            closed = true;
+            open = false;
+            enqueue(new Entry(null, () -> {
+                try {
+                    channel.close();
+                } finally {
+                    channel = null;
+                }
+            }, done, true));
+        }
+        await(done);
+    }
+
+    /**
+     * Записи с номером больше afterSeq. Недописанная последняя строка (обрыв при сбое) отбрасывается.
+     */
+    public List<Record> readAfter(long afterSeq) {
+        List<Record> records = new ArrayList<>();
+        if (!file.exists()) {
+            return records;
+        }
+        try {
+            String content = Files.readString(file.toPath(), StandardCharsets.UTF_8);
+            int end = content.lastIndexOf('\n');
+            if (end < 0) {
+                return records;
+            }
+            for (String line : content.substring(0, end).split("\n")) {
+                if (line.isEmpty()) continue;
+                int first = line.indexOf(',');
+                int second = line.indexOf(',', first + 1);
+                long recSeq = Long.parseLong(line.substring(0, first));
+                seq = Math.max(seq, recSeq);
+                if (recSeq <= afterSeq) continue;
+                records.add(new Record(recSeq, line.substring(first + 1, second), line.substring(second + 1)));
+            }
+            return records;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка чтения журнала: " + file, e);
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        return FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+    }
+
+    private void runOnWriter(Control control) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        synchronized (queueLock) {
+            if (writer == null || closed) {
+                try {
+                    control.run();
+                } catch (IOException e) {
+                    throw new ManagerSaveException("Ошибка работы с журналом: " + file, e);
+                }
+                return;
+            }
+            enqueue(new Entry(null, control, done, false));
+        }
+        await(done);
+    }
+
+    void await(CompletableFuture<Void> done) {
+        if (done == null) return;
+        try {
+            done.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof ManagerSaveException mse) throw mse;
+            throw new ManagerSaveException("Ошибка записи в журнал: " + file, e.getCause());
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        try {
+            queue.put(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ManagerSaveException("Прервано ожидание очереди журнала: " + file, e);
+        }
+    }
+
+    private void writeLoop() {
+        List<Entry> batch = new ArrayList<>();
+        while (true) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch);
+            int from = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                Entry e = batch.get(i);
+                if (e.control() != null) {
+                    writeBatch(batch.subList(from, i));
+                    from = i + 1;
+                    Throwable error = null;
+                    try {
+                        e.control().run();
+                    } catch (Throwable t) {
+                        error = t;
+                    }
+                    if (e.last()) {
+                        // канал закрыт: то, что оказалось за закрытием, не пишется, а отклоняется
+                        rejectClosed(batch.subList(from, batch.size()));
+                    }
+                    if (error == null) e.done().complete(null);
+                    else e.done().completeExceptionally(error);
+                    if (e.last()) return;
+                }
+            }
+            writeBatch(batch.subList(from, batch.size()));
+            batch.clear();
+        }
+    }
+
+    private void rejectClosed(List<Entry> entries) {
+        ManagerSaveException error = new ManagerSaveException("Журнал закрыт: " + file);
+        for (Entry e : entries) {
+            if (e.done() != null) e.done().completeExceptionally(error);
+        }
+    }
+
+    private void writeBatch(List<Entry> entries) {
+        if (entries.isEmpty()) return;
+        int total = 0;
+        for (Entry e : entries) {
+            total += e.bytes().length;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(total);
+        for (Entry e : entries) {
+            buf.put(e.bytes());
+        }
+        buf.flip();
+        try {
+            if (failure != null) {
+                throw new IOException("Журнал недоступен после ошибки записи", failure);
+            }
+            while (buf.hasRemaining()) {
+                channel.write(buf);
+            }
+            if (durability == Durability.FSYNC) {
+                channel.force(false);
+            }
+            for (Entry e : entries) {
+                if (e.done() != null) e.done().complete(null);
+            }
+        } catch (Throwable t) {
+            failure = t;
+            for (Entry e : entries) {
+                if (e.done() != null) e.done().completeExceptionally(t);
+            }
+        }
+    }
+}
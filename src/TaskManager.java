@@ -1,4 +1,7 @@
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Optional;
 
 public interface TaskManager {
 
@@ -14,6 +17,63 @@ public interface TaskManager {
 
     List<Subtask> getAllSubtasks();
 
+    /**
+     * Подзадачи с данным статусом. История не меняется.
+     */
+    default List<Subtask> getSubtasksByStatus(TaskStatus status) {
+        return getAllSubtasks().stream().filter(s -> s.getStatus() == status).toList();
+    }
+
+    /**
+     * Подзадачи эпика в порядке добавления; для неизвестного эпика — пустой список. История не меняется.
+     */
+    default List<Subtask> getEpicSubtasks(int epicId) {
+        Epic epic = peekEpic(epicId);
+        if (epic == null) return List.of();
+        return epic.getSubtaskIds().stream().map(this::peekSubtask).filter(java.util.Objects::nonNull).toList();
+    }
+
+    /**
+     * Полнотекстовый поиск по названию и описанию задач, эпиков и подзадач (синтаксис — см. TextIndex):
+     * не больше limit лучших совпадений. История не меняется.
+     */
+    default List<Task> search(String query, int limit) {
+        TextIndex scan = new TextIndex();
+        List<Task> all = new java.util.ArrayList<>(getAllTasks());
+        all.addAll(getAllEpics());
+        all.addAll(getAllSubtasks());
+        all.forEach(scan::add);
+        java.util.Map<Integer, Task> byId = new java.util.HashMap<>();
+        all.forEach(t -> byId.put(t.getId(), t));
+        return scan.search(query, limit).stream().map(byId::get).toList();
+    }
+
+    /**
+     * Постраничное чтение по курсору: не больше limit сущностей с id больше afterId, по возрастанию id.
+     * Курсор следующей страницы — id последнего элемента; afterId = 0 — первая страница.
+     */
+    default List<Task> getTasksPage(int afterId, int limit) {
+        return getAllTasks().stream().filter(t -> t.getId() > afterId)
+                .sorted(Comparator.comparingInt(Task::getId)).limit(Math.max(limit, 0)).toList();
+    }
+
+    default List<Epic> getEpicsPage(int afterId, int limit) {
+        return getAllEpics().stream().filter(e -> e.getId() > afterId)
+                .sorted(Comparator.comparingInt(Task::getId)).limit(Math.max(limit, 0)).toList();
+    }
+
+    default List<Subtask> getSubtasksPage(int afterId, int limit) {
+        return getAllSubtasks().stream().filter(s -> s.getId() > afterId)
+                .sorted(Comparator.comparingInt(Task::getId)).limit(Math.max(limit, 0)).toList();
+    }
+
+    /**
+     * Страница истории после просмотра с id afterId (см. HistoryManager.getHistory(int, int)).
+     */
+    default List<Task> getHistoryPage(int afterId, int limit) {
+        return HistoryManager.page(getHistory(), afterId, limit);
+    }
+
     Task getTaskById(int id);
 
     Epic getEpicById(int id);
@@ -26,13 +86,129 @@ public interface TaskManager {
 
     void updateSubtask(Subtask subtask);
 
-    void deleteTask(int id);
-
-    void deleteEpic(int id);
-
-    void deleteSubtask(int id);
+    /**
+     * @return удалённая задача или null, если такой не было
+     */
+    Task deleteTask(int id);
+
+    /**
+     * @return удалённый эпик (его подзадачи удаляются вместе с ним) или null
+     */
+    Epic deleteEpic(int id);
+
+    /**
+     * @return удалённая подзадача или null
+     */
+    Subtask deleteSubtask(int id);
+
+    /**
+     * Применяет изменения пакета по порядку. Реализация по умолчанию — обычные одиночные вызовы
+     * без атомарности; InMemoryTaskManager проверяет пакет целиком заранее и при ошибке
+     * не применяет ничего.
+     */
+    default void applyBatch(TaskBatch batch) {
+        for (TaskBatch.Operation op : batch.getOperations()) {
+            Task t = op.task();
+            switch (op.action()) {
+                case ADD -> {
+                    if (t instanceof Epic e) addEpic(e);
+                    else if (t instanceof Subtask s) addSubtask(s);
+                    else addTask(t);
+                }
+                case UPDATE -> {
+                    if (t instanceof Epic e) updateEpic(e);
+                    else if (t instanceof Subtask s) updateSubtask(s);
+                    else updateTask(t);
+                }
+                case DELETE -> {
+                    TaskType type = typeOf(op.id());
+                    if (type == TaskType.EPIC) deleteEpic(op.id());
+                    else if (type == TaskType.SUBTASK) deleteSubtask(op.id());
+                    else if (type == TaskType.TASK) deleteTask(op.id());
+                }
+            }
+        }
+    }
+
+    /**
+     * Поток изменений: событие на каждое применённое изменение (см. ChangeFeed).
+     */
+    ChangeFeed getChangeFeed();
+
+    /**
+     * Задача по id без записи в историю — для проверок перед изменением.
+     */
+    default Task peekTask(int id) {
+        return getAllTasks().stream().filter(t -> t.getId() == id).findFirst().orElse(null);
+    }
+
+    default Epic peekEpic(int id) {
+        return getAllEpics().stream().filter(e -> e.getId() == id).findFirst().orElse(null);
+    }
+
+    default Subtask peekSubtask(int id) {
+        return getAllSubtasks().stream().filter(s -> s.getId() == id).findFirst().orElse(null);
+    }
+
+    /**
+     * Сущность любого типа по id. Как и get*ById, записывает просмотр в историю.
+     */
+    default Task getById(int id) {
+        Task t = getTaskById(id);
+        if (t == null) t = getEpicById(id);
+        if (t == null) t = getSubtaskById(id);
+        return t;
+    }
+
+    /**
+     * Тип сущности с этим id или null, если id свободен. Историю не меняет.
+     */
+    default TaskType typeOf(int id) {
+        if (peekTask(id) != null) return TaskType.TASK;
+        if (peekEpic(id) != null) return TaskType.EPIC;
+        if (peekSubtask(id) != null) return TaskType.SUBTASK;
+        return null;
+    }
+
+    default boolean exists(int id) {
+        return typeOf(id) != null;
+    }
 
     List<Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    /**
+     * Задачи и подзадачи, начинающиеся в [from, to), по времени начала; null — граница не задана.
+     * При limit > 0 возвращается не больше limit первых.
+     */
+    default List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to, int limit) {
+        return getPrioritizedTasks().stream()
+                .filter(t -> from == null || !t.getStartTime().orElseThrow().isBefore(from))
+                .filter(t -> to == null || t.getStartTime().orElseThrow().isBefore(to))
+                .limit(limit > 0 ? limit : Long.MAX_VALUE)
+                .toList();
+    }
+
+    /**
+     * Страница приоритизированного списка после ключа (afterStart, afterId); afterStart = null — с начала.
+     * Ключ стабилен: страницы не съезжают, даже если задача-курсор удалена.
+     */
+    default List<Task> getPrioritizedPage(LocalDateTime afterStart, int afterId, int limit) {
+        return getPrioritizedTasks().stream()
+                .filter(t -> afterStart == null || t.getStartTime().orElseThrow().isAfter(afterStart)
+                        || (t.getStartTime().orElseThrow().isEqual(afterStart) && t.getId() > afterId))
+                .limit(Math.max(limit, 0))
+                .toList();
+    }
+
+    /**
+     * Задача или подзадача, которая идёт в момент instant (start <= instant < end).
+     */
+    default Optional<Task> getActiveAt(LocalDateTime instant) {
+        return getPrioritizedTasks().stream()
+                .filter(t -> t.getEndTime().isPresent())
+                .filter(t -> !t.getStartTime().orElseThrow().isAfter(instant) && t.getEndTime().get().isAfter(instant))
+                .findFirst();
+    }
 }
@@ -3,9 +3,15 @@ import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public abstract class TaskManagerBaseTest<T extends TaskManager> {
 
@@ -50,4 +56,182 @@ public abstract class TaskManagerBaseTest<T extends TaskManager> {
 
         assertDoesNotThrow(() -> manager.addTask(b));
     }
+
+    @Test
+    void pagesFollowIdsAndSurviveDeletes() {
+        Task a = new Task("A", "d");
+        Task b = new Task("B", "d");
+        Task c = new Task("C", "d");
+        manager.addTask(a);
+        manager.addTask(b);
+        manager.addTask(c);
+
+        assertEquals(List.of(a, b), manager.getTasksPage(0, 2));
+        // курсор — id последней задачи: удаление уже выданной задачи не сдвигает следующую страницу
+        manager.deleteTask(b.getId());
+        assertEquals(List.of(c), manager.getTasksPage(b.getId(), 2));
+        assertTrue(manager.getTasksPage(c.getId(), 2).isEmpty());
+    }
+
+    @Test
+    void prioritizedPageUsesStartTimeAndId() {
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 10, 0);
+        Task late = new Task("Late", "d");
+        late.setStartTime(start.plusHours(2));
+        late.setDuration(Duration.ofMinutes(30));
+        Task early = new Task("Early", "d");
+        early.setStartTime(start);
+        early.setDuration(Duration.ofMinutes(30));
+        manager.addTask(late);
+        manager.addTask(early);
+
+        assertEquals(List.of(early), manager.getPrioritizedPage(null, 0, 1));
+        assertEquals(List.of(late), manager.getPrioritizedPage(start, early.getId(), 1));
+        assertTrue(manager.getPrioritizedPage(start.plusHours(2), late.getId(), 1).isEmpty());
+    }
+
+    @Test
+    void batchAppliesInOrderAndRecomputesEpic() {
+        Task old = new Task("Old", "d");
+        manager.addTask(old);
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+
+        LocalDateTime start = LocalDateTime.of(2025, 2, 1, 9, 0);
+        Subtask a = new Subtask("A", "d", e.getId());
+        a.setStatus(TaskStatus.DONE);
+        a.setStartTime(start);
+        a.setDuration(Duration.ofMinutes(60));
+        Subtask b = new Subtask("B", "d", e.getId());
+        b.setStatus(TaskStatus.DONE);
+        // b занимает время, которое освобождает удаляемая в том же пакете задача
+        Task moved = new Task("Moved", "d");
+        moved.setStartTime(start.plusHours(1));
+        moved.setDuration(Duration.ofMinutes(30));
+        manager.addTask(moved);
+        b.setStartTime(start.plusHours(1));
+        b.setDuration(Duration.ofMinutes(30));
+
+        manager.applyBatch(new TaskBatch().delete(moved.getId()).add(a).add(b).delete(old.getId()));
+
+        assertEquals(TaskStatus.DONE, manager.getEpicById(e.getId()).getStatus());
+        assertEquals(2, manager.getEpicSubtasks(e.getId()).size());
+        assertTrue(manager.getAllTasks().isEmpty());
+        assertEquals(2, manager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    void batchWithOverlapChangesNothing() {
+        LocalDateTime start = LocalDateTime.of(2025, 2, 1, 9, 0);
+        Task first = new Task("First", "d");
+        first.setStartTime(start);
+        first.setDuration(Duration.ofMinutes(60));
+        Task clash = new Task("Clash", "d");
+        clash.setStartTime(start.plusMinutes(30));
+        clash.setDuration(Duration.ofMinutes(60));
+        Task plain = new Task("Plain", "d");
+
+        TaskBatch batch = new TaskBatch().add(plain).add(first).add(clash);
+        assertThrows(IllegalStateException.class, () -> manager.applyBatch(batch));
+        assertTrue(manager.getAllTasks().isEmpty(), "Пакет не применяется частично");
+        assertTrue(manager.getPrioritizedTasks().isEmpty());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> manager.applyBatch(new TaskBatch().add(new Task("T", "d")).add(new Subtask("S", "d", 999))));
+        assertTrue(manager.getAllTasks().isEmpty());
+    }
+
+    @Test
+    void changeFeedReportsEveryMutation() {
+        Epic e = new Epic("E", "d");
+        manager.addEpic(e);
+        ChangeFeed.Subscription feed = manager.getChangeFeed().subscribe(ChangeFeed.Overflow.BLOCK);
+
+        Subtask s = new Subtask("S", "d", e.getId());
+        manager.addSubtask(s);
+        Subtask done = manager.peekSubtask(s.getId());
+        done.setStatus(TaskStatus.DONE);
+        manager.updateSubtask(done);
+        manager.deleteEpic(e.getId());
+
+        List<ChangeEvent> events = new ArrayList<>();
+        feed.drainTo(events, 100);
+        assertEquals(List.of(ChangeEvent.Kind.CREATED, ChangeEvent.Kind.UPDATED, ChangeEvent.Kind.UPDATED,
+                        ChangeEvent.Kind.UPDATED, ChangeEvent.Kind.DELETED, ChangeEvent.Kind.DELETED),
+                events.stream().map(ChangeEvent::kind).toList());
+        ChangeEvent epicDone = events.get(3);
+        assertEquals(e.getId(), epicDone.id());
+        assertEquals(TaskStatus.NEW, epicDone.before().getStatus());
+        assertEquals(TaskStatus.DONE, epicDone.after().getStatus());
+        assertNull(events.get(5).after());
+        assertEquals(TaskType.EPIC, events.get(5).type());
+
+        manager.addEpic(e = new Epic("E2", "d"));
+        TaskBatch batch = new TaskBatch();
+        for (int i = 0; i < 3; i++) {
+            batch.add(new Subtask("S" + i, "d", e.getId()));
+        }
+        events.clear();
+        manager.applyBatch(batch);
+        feed.drainTo(events, 100);
+        assertEquals(5, events.size(), "Событие нового эпика, три подзадачи и одно событие эпика за пакет");
+        assertTrue(((Epic) events.get(4).before()).getSubtaskIds().isEmpty(), "Эпик до пакета");
+        assertEquals(3, ((Epic) events.get(4).after()).getSubtaskIds().size());
+    }
+
+    @Test
+    void updateSubtaskWithOtherEpicMovesIt() {
+        Epic from = new Epic("From", "d");
+        Epic to = new Epic("To", "d");
+        manager.addEpic(from);
+        manager.addEpic(to);
+        Subtask s = new Subtask("S", "d", from.getId());
+        s.setStatus(TaskStatus.DONE);
+        s.setStartTime(LocalDateTime.of(2025, 5, 1, 9, 0));
+        s.setDuration(Duration.ofMinutes(30));
+        manager.addSubtask(s);
+
+        Subtask moved = new Subtask("S", "d", to.getId());
+        moved.setId(s.getId());
+        moved.setStatus(TaskStatus.DONE);
+        moved.setStartTime(LocalDateTime.of(2025, 5, 1, 9, 0));
+        moved.setDuration(Duration.ofMinutes(30));
+        manager.updateSubtask(moved);
+
+        assertTrue(manager.getEpicSubtasks(from.getId()).isEmpty());
+        assertEquals(TaskStatus.NEW, manager.getEpicById(from.getId()).getStatus());
+        assertTrue(manager.getEpicById(from.getId()).getStartTime().isEmpty(), "Время уходит вместе с подзадачей");
+        assertEquals(List.of(s.getId()), manager.getEpicById(to.getId()).getSubtaskIds());
+        assertEquals(TaskStatus.DONE, manager.getEpicById(to.getId()).getStatus());
+        assertEquals(to.getId(), manager.getSubtaskById(s.getId()).getEpicId());
+
+        Subtask lost = new Subtask("S", "d", 999);
+        lost.setId(s.getId());
+        assertThrows(NotFoundException.class, () -> manager.updateSubtask(lost));
+        assertEquals(to.getId(), manager.getSubtaskById(s.getId()).getEpicId(), "Ничего не изменилось");
+
+        manager.deleteEpic(from.getId());
+        assertNotNull(manager.getSubtaskById(s.getId()), "Удаление прежнего эпика перенесённую не трогает");
+    }
+
+    @Test
+    void batchMovesSubtaskBeforeDeletingItsEpic() {
+        Epic from = new Epic("From", "d");
+        Epic to = new Epic("To", "d");
+        manager.addEpic(from);
+        manager.addEpic(to);
+        Subtask s = new Subtask("S", "d", from.getId());
+        manager.addSubtask(s);
+
+        Subtask moved = new Subtask("S", "d", to.getId());
+        moved.setId(s.getId());
+        manager.applyBatch(new TaskBatch().update(moved).delete(from.getId()));
+
+        assertNull(manager.getEpicById(from.getId()));
+        assertEquals(List.of(s.getId()), manager.getEpicById(to.getId()).getSubtaskIds());
+
+        Subtask lost = new Subtask("S", "d", 999);
+        lost.setId(s.getId());
+        assertThrows(NotFoundException.class, () -> manager.applyBatch(new TaskBatch().update(lost)));
+    }
 }
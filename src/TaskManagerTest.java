@@ -1,6 +1,8 @@
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -290,4 +292,258 @@ public class TaskManagerTest {
         assertThrows(IllegalArgumentException.class, () -> taskManager.addSubtask(s),
                 "Эпик не найден: должна быть ошибка при добавлении подзадачи.");
     }
+
+    @Test
+    void getByIdResolvesAnyTypeWithOneIndex() {
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        taskManager.addSubtask(s);
+        Task t = new Task("T", "d");
+        taskManager.addTask(t);
+
+        assertEquals(e, taskManager.getById(e.getId()));
+        assertTrue(taskManager.getById(s.getId()) instanceof Subtask);
+        assertEquals(t, taskManager.getById(t.getId()));
+        assertNull(taskManager.getById(999));
+        assertEquals(3, taskManager.getHistory().size(), "getById пишет в историю, как и типизированные методы.");
+    }
+
+    @Test
+    void typeOfHasNoSideEffects() {
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        taskManager.addSubtask(s);
+
+        assertEquals(TaskType.EPIC, taskManager.typeOf(e.getId()));
+        assertEquals(TaskType.SUBTASK, taskManager.typeOf(s.getId()));
+        assertNull(taskManager.typeOf(999));
+        assertTrue(taskManager.exists(s.getId()));
+        assertTrue(taskManager.getHistory().isEmpty(), "Проверка существования не попадает в историю.");
+
+        taskManager.deleteEpic(e.getId());
+        assertFalse(taskManager.exists(e.getId()));
+        assertFalse(taskManager.exists(s.getId()));
+    }
+
+    @Test
+    void idTakenByAnotherTypeIsRejected() {
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        Task clash = new Task("T", "d");
+        clash.setId(e.getId());
+
+        assertThrows(IllegalArgumentException.class, () -> taskManager.addTask(clash));
+    }
+
+    @Test
+    void deleteReturnsRemovedEntity() {
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        taskManager.addSubtask(s);
+        Task t = new Task("T", "d");
+        taskManager.addTask(t);
+
+        assertEquals(t, taskManager.deleteTask(t.getId()));
+        assertNull(taskManager.deleteTask(t.getId()), "Повторное удаление ничего не возвращает.");
+        assertNull(taskManager.deleteTask(e.getId()), "Эпик не удаляется как задача.");
+        assertEquals(s, taskManager.deleteSubtask(s.getId()));
+        assertEquals(e, taskManager.deleteEpic(e.getId()));
+        assertNull(taskManager.deleteEpic(e.getId()));
+    }
+
+    @Test
+    void peekDoesNotTouchHistory() {
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        taskManager.addSubtask(s);
+
+        assertEquals(e, taskManager.peekEpic(e.getId()));
+        assertEquals(s, taskManager.peekSubtask(s.getId()));
+        assertNull(taskManager.peekTask(s.getId()));
+        assertTrue(taskManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void statusIndexFollowsUpdatesAndDeletes() {
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        Subtask a = new Subtask("A", "d", e.getId());
+        taskManager.addSubtask(a);
+        Subtask b = new Subtask("B", "d", e.getId());
+        taskManager.addSubtask(b);
+
+        a.setStatus(TaskStatus.IN_PROGRESS);
+        taskManager.updateSubtask(a);
+        assertEquals(List.of(a), taskManager.getSubtasksByStatus(TaskStatus.IN_PROGRESS));
+        assertEquals(List.of(b), taskManager.getSubtasksByStatus(TaskStatus.NEW));
+
+        taskManager.deleteSubtask(a.getId());
+        assertTrue(taskManager.getSubtasksByStatus(TaskStatus.IN_PROGRESS).isEmpty());
+        assertEquals(List.of(b), taskManager.getEpicSubtasks(e.getId()));
+
+        taskManager.deleteEpic(e.getId());
+        assertTrue(taskManager.getSubtasksByStatus(TaskStatus.NEW).isEmpty());
+        assertTrue(taskManager.getEpicSubtasks(e.getId()).isEmpty());
+        assertTrue(taskManager.getHistory().isEmpty());
+    }
+
+    @Test
+    void statusSliceStaysInIdOrder() {
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        List<Subtask> subtasks = new java.util.ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Subtask s = new Subtask("S" + i, "d", e.getId());
+            taskManager.addSubtask(s);
+            subtasks.add(s);
+        }
+        // в DONE подзадачи переходят в обратном порядке, выдача всё равно по возрастанию id
+        for (int i = subtasks.size() - 1; i >= 0; i -= 2) {
+            subtasks.get(i).setStatus(TaskStatus.DONE);
+            taskManager.updateSubtask(subtasks.get(i));
+        }
+        assertEquals(List.of(subtasks.get(0), subtasks.get(2), subtasks.get(4)),
+                taskManager.getSubtasksByStatus(TaskStatus.DONE));
+        assertEquals(List.of(subtasks.get(1), subtasks.get(3)), taskManager.getSubtasksByStatus(TaskStatus.NEW));
+        assertEquals("S2", taskManager.getSubtasksByStatus(TaskStatus.DONE).get(1).getName());
+    }
+
+    @Test
+    void searchIndexFollowsMutations() {
+        Task t = new Task("Купить молоко", "в магазине у дома");
+        taskManager.addTask(t);
+        Epic e = new Epic("Ремонт", "кухня");
+        taskManager.addEpic(e);
+
+        assertEquals(List.of(t), taskManager.search("молоко", 10));
+        t.setName("Купить хлеб");
+        taskManager.updateTask(t);
+        assertTrue(taskManager.search("молоко", 10).isEmpty());
+        assertEquals(List.of(t), taskManager.search("хлеб", 10));
+
+        Epic rename = new Epic("Покраска", "кухня");
+        rename.setId(e.getId());
+        taskManager.updateEpic(rename);
+        assertEquals(List.of(e), taskManager.search("покраска кухня", 10));
+
+        taskManager.deleteTask(t.getId());
+        assertTrue(taskManager.search("хлеб", 10).isEmpty());
+    }
+
+    @Test
+    void changeFeedReportsMutationsWithBeforeAndAfter() {
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        ChangeFeed.Subscription feed = taskManager.getChangeFeed().subscribe(ChangeFeed.Overflow.DROP_OLDEST);
+
+        Subtask s = new Subtask("S", "d", e.getId());
+        s.setStatus(TaskStatus.DONE);
+        taskManager.addSubtask(s);
+
+        ChangeEvent created = feed.poll();
+        assertEquals(ChangeEvent.Kind.CREATED, created.kind());
+        assertEquals(TaskType.SUBTASK, created.type());
+        assertNull(created.before());
+        ChangeEvent epicUpdate = feed.poll();
+        assertEquals(e.getId(), epicUpdate.id());
+        assertEquals(TaskStatus.NEW, epicUpdate.before().getStatus());
+        assertEquals(TaskStatus.DONE, epicUpdate.after().getStatus());
+        assertEquals(created.sequence() + 1, epicUpdate.sequence());
+
+        taskManager.deleteEpic(e.getId());
+        assertEquals(ChangeEvent.Kind.DELETED, feed.poll().kind());
+        ChangeEvent epicDeleted = feed.poll();
+        assertEquals(TaskType.EPIC, epicDeleted.type());
+        assertNull(epicDeleted.after());
+        assertNull(feed.poll());
+    }
+
+    @Test
+    void batchEmitsOneEpicEventAtTheEnd() {
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        ChangeFeed.Subscription feed = taskManager.getChangeFeed().subscribe(ChangeFeed.Overflow.BLOCK);
+
+        TaskBatch batch = new TaskBatch();
+        for (int i = 0; i < 5; i++) {
+            batch.add(new Subtask("S" + i, "d", e.getId()));
+        }
+        taskManager.applyBatch(batch);
+
+        List<ChangeEvent> events = new java.util.ArrayList<>();
+        feed.drainTo(events, 100);
+        assertEquals(6, events.size());
+        ChangeEvent last = events.get(5);
+        assertEquals(TaskType.EPIC, last.type());
+        assertTrue(((Epic) last.before()).getSubtaskIds().isEmpty(), "Эпик до пакета");
+        assertEquals(5, ((Epic) last.after()).getSubtaskIds().size());
+    }
+
+    @Test
+    void timesAreStoredInMinutesWithOptionalViews() {
+        Task t = new Task("T", "d");
+        assertEquals(Task.UNSET, t.getStartMinute());
+        assertEquals(Task.UNSET, t.getEndMinute());
+        assertTrue(t.getEndTime().isEmpty());
+
+        LocalDateTime start = LocalDateTime.of(2025, 6, 1, 9, 15);
+        t.setStartTime(start);
+        assertTrue(t.getEndTime().isEmpty(), "Без длительности конца нет");
+        t.setDuration(Duration.ofMinutes(45));
+        assertEquals(t.getStartMinute() + 45, t.getEndMinute());
+        assertEquals(start, t.getStartTime().orElseThrow());
+        assertEquals(start.plusMinutes(45), t.getEndTime().orElseThrow());
+        assertEquals(Duration.ofMinutes(45), t.getDuration().orElseThrow());
+    }
+
+    @Test
+    void jsonKeepsStartTimeAndDurationFields() {
+        com.google.gson.Gson gson = HttpTaskServer.getGson();
+        Task t = new Task("T", "d");
+        t.setStartTime(LocalDateTime.of(2025, 6, 1, 9, 15));
+        t.setDuration(Duration.ofMinutes(45));
+        com.google.gson.JsonObject json = gson.toJsonTree(t).getAsJsonObject();
+        assertEquals("2025-06-01T09:15", json.get("startTime").getAsString());
+        assertEquals(45, json.get("duration").getAsLong());
+        assertFalse(json.has("startMinute"));
+
+        Task back = gson.fromJson("{\"name\":\"N\",\"status\":\"NEW\"}", Task.class);
+        assertTrue(back.getStartTime().isEmpty(), "Отсутствующее поле — не задано, а не нулевая минута");
+        assertTrue(back.getDuration().isEmpty());
+
+        Epic e = new Epic("E", "d");
+        taskManager.addEpic(e);
+        Subtask s = new Subtask("S", "d", e.getId());
+        s.setStartTime(LocalDateTime.of(2025, 6, 1, 9, 15));
+        s.setDuration(Duration.ofMinutes(45));
+        taskManager.addSubtask(s);
+        json = gson.toJsonTree(e).getAsJsonObject();
+        assertEquals("2025-06-01T10:00", json.get("calcEndTime").getAsString());
+        Epic epicBack = gson.fromJson(json, Epic.class);
+        assertEquals(e.getEndTime(), epicBack.getEndTime());
+    }
+
+    @Test
+    void subMinutePartsOfTimesAreTruncated() {
+        Task t = new Task("T", "d");
+        t.setStartTime(LocalDateTime.of(2025, 6, 1, 9, 15, 59, 999_000_000));
+        t.setDuration(Duration.ofMinutes(45).plusSeconds(59));
+        assertEquals(LocalDateTime.of(2025, 6, 1, 9, 15), t.getStartTime().orElseThrow(),
+                "Секунды начала отбрасываются");
+        assertEquals(Duration.ofMinutes(45), t.getDuration().orElseThrow(), "Секунды длительности отбрасываются");
+        assertEquals(LocalDateTime.of(2025, 6, 1, 10, 0), t.getEndTime().orElseThrow());
+
+        t.setStartTime(LocalDateTime.of(1969, 12, 31, 23, 59, 30));
+        assertEquals(LocalDateTime.of(1969, 12, 31, 23, 59), t.getStartTime().orElseThrow(),
+                "До эпохи тоже вниз, а не к нулю");
+
+        Task parsed = HttpTaskServer.getGson().fromJson(
+                "{\"name\":\"N\",\"status\":\"NEW\",\"startTime\":\"2025-06-01T09:15:30\"}", Task.class);
+        assertEquals(LocalDateTime.of(2025, 6, 1, 9, 15), parsed.getStartTime().orElseThrow(),
+                "JSON усекается так же, как сеттер");
+    }
 }
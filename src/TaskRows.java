@@ -0,0 +1,54 @@
+/**
+ * Полезная нагрузка строк ColumnarTaskManager: поля фиксированной длины, название и описание
+ * по номеру строки. Индекс (id → строка, подзадачи эпиков, счётчики статусов) менеджер держит
+ * сам, на куче; здесь — только данные сущностей.
+ * <p>
+ * Текст дописывается в конец области, старый при перезаписи становится мусором; когда мусора
+ * больше половины, живой текст переписывается подряд.
+ */
+interface TaskRows {
+
+    // сжимать текст раньше нет смысла: копирование дороже сэкономленного
+    int MIN_COMPACT_LENGTH = 1 << 12;
+
+    int capacity();
+
+    void grow(int capacity);
+
+    int id(int row);
+
+    byte status(int row);
+
+    int epicId(int row);
+
+    long start(int row);
+
+    long duration(int row);
+
+    String name(int row);
+
+    String description(int row);
+
+    void setId(int row, int id);
+
+    void setStatus(int row, byte status);
+
+    void setEpicId(int row, int epicId);
+
+    void setTimes(int row, long start, long duration);
+
+    /**
+     * Совпадающий с сохранённым текст не перезаписывается.
+     */
+    void setText(int row, String name, String description);
+
+    /**
+     * Текст освобождённой строки становится мусором.
+     */
+    void clearText(int row);
+
+    /**
+     * indexBytes — индекс менеджера на куче, он передаётся в статистику как есть.
+     */
+    ColumnarTaskManager.StorageStats stats(int rows, int freeRows, long indexBytes);
+}
@@ -0,0 +1,11 @@
+public enum TaskType {
+    TASK,
+    EPIC,
+    SUBTASK;
+
+    public static TaskType of(Task task) {
+        if (task instanceof Epic) return EPIC;
+        if (task instanceof Subtask) return SUBTASK;
+        return TASK;
+    }
+}
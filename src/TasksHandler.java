@@ -3,6 +3,7 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 
 import java.io.IOException;
+import java.util.Map;
 
 public class TasksHandler extends BaseHttpHandler implements HttpHandler {
     private final TaskManager manager;
@@ -22,7 +23,11 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
 
             switch (method) {
                 case "GET" -> {
-                    if (id == null) {
+                    Map<String, String> params = parseQuery(query);
+                    if (id == null && isPageRequest(params)) {
+                        int limit = parseLimit(params);
+                        sendIdPage(h, manager.getTasksPage(parseAfter(params), limit), limit);
+                    } else if (id == null) {
                         sendOk(h, manager.getAllTasks());
                     } else {
                         Task t = manager.getTaskById(id);
@@ -65,16 +70,18 @@ public class TasksHandler extends BaseHttpHandler implements HttpHandler {
                         sendError(h, "Для удаления Задачи необходим №");
                         return;
                     }
-                    Task existing = manager.getTaskById(id);
-                    if (existing == null) {
+                    // удаление и проверка существования — одна операция, без записи в историю
+                    if (manager.deleteTask(id) == null) {
                         sendNotFound(h, "Задача не найдена: №" + id);
                         return;
                     }
-                    manager.deleteTask(id);
                     sendCreated(h);
                 }
                 default -> sendError(h, "Неподдерживаемый метод: " + method);
             }
+        } catch (NumberFormatException badPage) {
+            // limit/after страницы
+            sendBadRequest(h, badPage.getMessage());
         } catch (Exception ex) {
             sendError(h, "Внутренняя ошибка: " + ex.getMessage());
         }
@@ -0,0 +1,175 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * Инвертированный индекс по названию и описанию задач. Слова — последовательности букв и цифр
+ * (кириллица включительно), в нижнем регистре, «ё» приводится к «е».
+ * <p>
+ * Запрос — слова через пробел, все должны встретиться (AND); слово со звёздочкой на конце
+ * ищется как префикс. Совпадение в названии весит больше, чем в описании.
+ */
+public class TextIndex {
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    // слово → (id → вес); TreeMap даёт префиксный поиск через subMap
+    private final TreeMap<String, IntObjectMap<Integer>> postings = new TreeMap<>();
+    // слова каждого документа — чтобы удалить его без обхода всего словаря
+    private final IntObjectMap<Set<String>> documentTerms = new IntObjectMap<>();
+
+    public void add(Task task) {
+        remove(task.getId());
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : tokenize(task.getName())) {
+            terms.add(term);
+            postings.computeIfAbsent(term, t -> new IntObjectMap<>()).put(task.getId(),
+                    weight(term, task.getId()) + NAME_WEIGHT);
+        }
+        for (String term : tokenize(task.getDescription())) {
+            terms.add(term);
+            postings.computeIfAbsent(term, t -> new IntObjectMap<>()).put(task.getId(),
+                    weight(term, task.getId()) + DESCRIPTION_WEIGHT);
+        }
+        if (!terms.isEmpty()) {
+            documentTerms.put(task.getId(), terms);
+        }
+    }
+
+    public void remove(int id) {
+        Set<String> terms = documentTerms.remove(id);
+        if (terms == null) return;
+        for (String term : terms) {
+            IntObjectMap<Integer> docs = postings.get(term);
+            docs.remove(id);
+            if (docs.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    /**
+     * id лучших limit документов, содержащих все слова запроса, по убыванию веса (при равенстве — по id).
+     */
+    public List<Integer> search(String query, int limit) {
+        return search(query, limit, term -> postingsOf(postings.getOrDefault(term, new IntObjectMap<>())),
+                term -> postingsOf(matchPrefix(term)));
+    }
+
+    /**
+     * Документы одного слова запроса: вес документа (0 — документа нет) и обход с весами.
+     */
+    interface Postings {
+        int size();
+
+        int weight(int id);
+
+        void forEach(WeightConsumer action);
+    }
+
+    interface WeightConsumer {
+        void accept(int id, int weight);
+    }
+
+    static Postings postingsOf(IntObjectMap<Integer> docs) {
+        return new Postings() {
+            @Override
+            public int size() {
+                return docs.size();
+            }
+
+            @Override
+            public int weight(int id) {
+                Integer w = docs.get(id);
+                return w == null ? 0 : w;
+            }
+
+            @Override
+            public void forEach(WeightConsumer action) {
+                docs.forEach(action::accept);
+            }
+        };
+    }
+
+    /**
+     * Разбор запроса и ранжирование — общие для индексов с разным хранением (см. PersistentTextIndex):
+     * exact и prefix отдают документы слова и префикса.
+     */
+    static List<Integer> search(String query, int limit, Function<String, Postings> exact,
+                                Function<String, Postings> prefix) {
+        List<Integer> result = new ArrayList<>();
+        if (query == null || limit <= 0) return result;
+        List<Postings> perTerm = new ArrayList<>();
+        for (String raw : query.trim().split("\\s+")) {
+            boolean isPrefix = raw.endsWith("*");
+            for (String term : tokenize(isPrefix ? raw.substring(0, raw.length() - 1) : raw)) {
+                perTerm.add(isPrefix ? prefix.apply(term) : exact.apply(term));
+            }
+        }
+        if (perTerm.isEmpty()) return result;
+        // пересечение начинаем с самого короткого списка
+        perTerm.sort(Comparator.comparingInt(Postings::size));
+
+        record Hit(int id, int score) {
+        }
+        Comparator<Hit> worstFirst = Comparator.comparingInt(Hit::score).thenComparing(Hit::id, Comparator.reverseOrder());
+        PriorityQueue<Hit> top = new PriorityQueue<>(worstFirst);
+        perTerm.get(0).forEach((id, weight) -> {
+            int score = weight;
+            for (int i = 1; i < perTerm.size(); i++) {
+                int w = perTerm.get(i).weight(id);
+                if (w == 0) return;
+                score += w;
+            }
+            top.add(new Hit(id, score));
+            if (top.size() > limit) top.poll();
+        });
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(worstFirst.reversed());
+        for (Hit h : hits) {
+            result.add(h.id());
+        }
+        return result;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        String lower = text.toLowerCase(Locale.ROOT).replace('ё', 'е');
+        int start = -1;
+        for (int i = 0; i <= lower.length(); i++) {
+            boolean word = i < lower.length() && Character.isLetterOrDigit(lower.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                tokens.add(lower.substring(start, i));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    private int weight(String term, int id) {
+        Integer w = postings.get(term).get(id);
+        return w == null ? 0 : w;
+    }
+
+    // документ, у которого префиксу соответствуют несколько слов, получает сумму их весов
+    private IntObjectMap<Integer> matchPrefix(String prefix) {
+        IntObjectMap<Integer> merged = new IntObjectMap<>();
+        for (IntObjectMap<Integer> docs : postings.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+            docs.forEach((id, weight) -> {
+                Integer w = merged.get(id);
+                merged.put(id, (w == null ? 0 : w) + weight);
+            });
+        }
+        return merged;
+    }
+}
@@ -0,0 +1,57 @@
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TextIndexTest {
+
+    private static Task task(int id, String name, String description) {
+        Task t = new Task(name, description);
+        t.setId(id);
+        return t;
+    }
+
+    @Test
+    void tokenizesCyrillicCaseInsensitively() {
+        assertEquals(List.of("переезд", "собрать", "коробки", "2"),
+                TextIndex.tokenize("Переезд: собрать КОРОБКИ (2)!"));
+        assertEquals(List.of("еж"), TextIndex.tokenize("Ёж"));
+    }
+
+    @Test
+    void multiTermQueryRequiresAllTerms() {
+        TextIndex index = new TextIndex();
+        index.add(task(1, "Переезд", "Собрать коробки"));
+        index.add(task(2, "Переезд", "Упаковать кошку"));
+        index.add(task(3, "Коробки", "Купить в магазине"));
+
+        assertEquals(List.of(1), index.search("переезд коробки", 10));
+        assertEquals(List.of(3, 1), index.search("коробки", 10), "Совпадение в названии весит больше");
+        assertTrue(index.search("переезд собака", 10).isEmpty());
+    }
+
+    @Test
+    void prefixQueryAndLimit() {
+        TextIndex index = new TextIndex();
+        index.add(task(1, "Купить хлеб", ""));
+        index.add(task(2, "Купон на скидку", ""));
+        index.add(task(3, "Убрать квартиру", ""));
+
+        assertEquals(List.of(1, 2), index.search("куп*", 10));
+        assertEquals(List.of(1), index.search("куп*", 1));
+        assertTrue(index.search("куп", 10).isEmpty(), "Без звёздочки слово ищется целиком");
+    }
+
+    @Test
+    void reindexAndRemoveDropOldTerms() {
+        TextIndex index = new TextIndex();
+        index.add(task(1, "Старое название", ""));
+        index.add(task(1, "Новое название", ""));
+        assertTrue(index.search("старое", 10).isEmpty());
+        assertEquals(List.of(1), index.search("новое", 10));
+
+        index.remove(1);
+        assertTrue(index.search("название", 10).isEmpty());
+    }
+}